@@ -0,0 +1,80 @@
+package info.unterrainer.commons.cliutils;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the validation of the N-required constraints and of the
+ * dependencies of a command line in isolation.
+ * <p>
+ * This benchmark lives in the package of the library, since the compiled
+ * constraints aren't part of its public API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidationBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	public int constraints;
+
+	private Constraints nRequired;
+	private Constraints dependencies;
+	private long[] present;
+
+	@Setup
+	public void setup() {
+		int options = constraints * 2;
+		CliParserBuilder builder = CliParser.specFor("benchmark", "a benchmark");
+		for (int i = 0; i < options; i++)
+			builder.addFlag(Flag.builder("flag" + i));
+		CliSpec spec = builder.compile();
+
+		Set<Occurrences> min = new HashSet<>();
+		Set<Occurrences> exactly = new HashSet<>();
+		Set<Occurrences> max = new HashSet<>();
+		Map<String, Set<String>> requires = new HashMap<>();
+		Map<String, Set<String>> excludes = new HashMap<>();
+		for (int i = 0; i < constraints; i++) {
+			String a = "flag" + 2 * i;
+			String b = "flag" + (2 * i + 1);
+			String[] pair = { a, b };
+			min.add(new Occurrences(1, pair));
+			exactly.add(new Occurrences(2, pair));
+			max.add(new Occurrences(2, pair));
+			requires.computeIfAbsent(a, k -> new HashSet<>()).add(b);
+			if (i > 0)
+				requires.computeIfAbsent(b, k -> new HashSet<>()).add("flag" + (2 * i - 2));
+		}
+		nRequired = new Constraints(spec.slots, spec::slot, min, exactly, max, Map.of(), Map.of());
+		dependencies = new Constraints(spec.slots, spec::slot, Set.of(), Set.of(), Set.of(), requires, excludes);
+
+		present = Bits.create(spec.slots.length);
+		for (int i = 0; i < options; i++)
+			Bits.set(present, spec.slot("flag" + i));
+	}
+
+	@Benchmark
+	public long[] validateNRequired() {
+		nRequired.validate(present);
+		return present;
+	}
+
+	@Benchmark
+	public long[] validateDependencies() {
+		dependencies.validate(present);
+		return present;
+	}
+}
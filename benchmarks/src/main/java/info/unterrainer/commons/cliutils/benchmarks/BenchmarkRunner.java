@@ -0,0 +1,49 @@
+package info.unterrainer.commons.cliutils.benchmarks;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all benchmarks (or the ones matching the regular expression given as
+ * the first argument) twice, both times with the GC-/allocation-profiler:
+ * <ul>
+ * <li>steady-state: averaged over warmed-up iterations, written to
+ * {@code target/jmh-steady-state.json}</li>
+ * <li>cold-start: a single invocation in each of many fresh JVMs, written to
+ * {@code target/jmh-cold-start.json}</li>
+ * </ul>
+ * Keep the JSON-files of each release to compare them with the next one.
+ */
+public final class BenchmarkRunner {
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(final String[] args) throws RunnerException {
+		String include = args.length > 0 ? args[0] : "info\\.unterrainer\\.commons\\.cliutils\\..*Benchmark.*";
+
+		new Runner(options(include, "target/jmh-steady-state.json").mode(Mode.AverageTime)
+				.warmupIterations(5)
+				.measurementIterations(5)
+				.forks(2)
+				.build()).run();
+
+		new Runner(options(include, "target/jmh-cold-start.json").mode(Mode.SingleShotTime)
+				.warmupIterations(0)
+				.measurementIterations(1)
+				.forks(20)
+				.build()).run();
+	}
+
+	private static ChainedOptionsBuilder options(final String include, final String result) {
+		return new OptionsBuilder().include(include)
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.JSON)
+				.result(result);
+	}
+}
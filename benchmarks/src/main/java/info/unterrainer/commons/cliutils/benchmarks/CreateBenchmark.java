@@ -0,0 +1,47 @@
+package info.unterrainer.commons.cliutils.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import info.unterrainer.commons.cliutils.Cli;
+import info.unterrainer.commons.cliutils.CliSpec;
+
+/**
+ * Measures building and parsing with specs of different sizes, both from
+ * scratch ({@code create()}) and using a precompiled {@link CliSpec}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CreateBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	public int options;
+
+	private String[] args;
+	private CliSpec spec;
+
+	@Setup
+	public void setup() {
+		args = Specs.args(10);
+		spec = Specs.builder(args, options).compile();
+	}
+
+	@Benchmark
+	public Cli create() {
+		return Specs.builder(args, options).create();
+	}
+
+	@Benchmark
+	public Cli parseCompiled() {
+		return spec.parse(args);
+	}
+}
@@ -0,0 +1,47 @@
+package info.unterrainer.commons.cliutils.benchmarks;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import info.unterrainer.commons.cliutils.CliSpec;
+
+/**
+ * Measures printing the help: the first time (including its layout) and from
+ * the cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HelpBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	public int options;
+
+	private final Writer out = Writer.nullWriter();
+	private CliSpec spec;
+
+	@Setup
+	public void setup() {
+		spec = Specs.builder(null, options).compile();
+		spec.printHelp(out, 74);
+	}
+
+	@Benchmark
+	public void printHelpFirst() {
+		Specs.builder(null, options).compile().printHelp(out, 74);
+	}
+
+	@Benchmark
+	public void printHelp() {
+		spec.printHelp(out, 74);
+	}
+}
@@ -0,0 +1,46 @@
+package info.unterrainer.commons.cliutils.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import info.unterrainer.commons.cliutils.Arg;
+import info.unterrainer.commons.cliutils.CliParser;
+import info.unterrainer.commons.cliutils.CliParserBuilder;
+import info.unterrainer.commons.cliutils.Flag;
+
+/**
+ * Builds the specs and command lines used by the benchmarks.
+ */
+final class Specs {
+
+	private Specs() {
+	}
+
+	/**
+	 * Creates a builder with the given number of options; every even one is an
+	 * integer-argument ('arg&lt;i&gt;'), every odd one a flag ('flag&lt;i&gt;').
+	 */
+	static CliParserBuilder builder(final String[] args, final int options) {
+		CliParserBuilder builder = CliParser.cliFor(args, "benchmark", "a benchmark");
+		for (int i = 0; i < options; i++)
+			if (i % 2 == 0)
+				builder.addArg(Arg.Integer("arg" + i).shortName("a" + i).description("the argument number " + i));
+			else
+				builder.addFlag(Flag.builder("flag" + i).description("the flag number " + i));
+		return builder;
+	}
+
+	/**
+	 * Creates a command line setting the first given number of options.
+	 */
+	static String[] args(final int set) {
+		List<String> result = new ArrayList<>();
+		for (int i = 0; i < set; i++)
+			if (i % 2 == 0) {
+				result.add("--arg" + i);
+				result.add(String.valueOf(i));
+			} else
+				result.add("--flag" + i);
+		return result.toArray(new String[0]);
+	}
+}
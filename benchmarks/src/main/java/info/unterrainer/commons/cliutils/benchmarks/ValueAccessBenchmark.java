@@ -0,0 +1,87 @@
+package info.unterrainer.commons.cliutils.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import info.unterrainer.commons.cliutils.Arg;
+import info.unterrainer.commons.cliutils.Cli;
+import info.unterrainer.commons.cliutils.CliParser;
+import info.unterrainer.commons.cliutils.CliParserBuilder;
+
+/**
+ * Measures reading the values of a parsed command line in loops: 50 single
+ * values by name, by handle and unboxed and the 1000 values of an unlimited
+ * option as a list and as a primitive array.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ValueAccessBenchmark {
+
+	private static final int SINGLE = 50;
+	private static final int UNLIMITED = 1000;
+
+	@SuppressWarnings("unchecked")
+	private final Arg<Integer>[] handles = new Arg[SINGLE];
+	private final String[] names = new String[SINGLE];
+	private final Arg<Integer> values = Arg.Integer("values").unlimited();
+	private Cli cli;
+
+	@Setup
+	public void setup() {
+		StringBuilder args = new StringBuilder();
+		StringBuilder list = new StringBuilder();
+		for (int i = 0; i < UNLIMITED; i++)
+			list.append(i == 0 ? "" : ",").append(i);
+		args.append("--values ").append(list);
+		for (int i = 0; i < SINGLE; i++) {
+			names[i] = "arg" + i;
+			handles[i] = Arg.Integer(names[i]);
+			args.append(" --").append(names[i]).append(' ').append(i);
+		}
+		CliParserBuilder builder = CliParser.cliFor(args.toString().split(" "), "benchmark", "a benchmark")
+				.addArg(values);
+		for (Arg<Integer> handle : handles)
+			builder.addArg(handle);
+		cli = builder.create();
+	}
+
+	@Benchmark
+	public void getArgValueByName(final Blackhole bh) {
+		for (String name : names)
+			bh.consume(cli.<Integer>getArgValue(name));
+	}
+
+	@Benchmark
+	public void getArgValueByHandle(final Blackhole bh) {
+		for (Arg<Integer> handle : handles)
+			bh.consume(cli.getArgValue(handle));
+	}
+
+	@Benchmark
+	public long getInt() {
+		long sum = 0;
+		for (Arg<Integer> handle : handles)
+			sum += cli.getInt(handle);
+		return sum;
+	}
+
+	@Benchmark
+	public List<Integer> getArgValues() {
+		return cli.getArgValues(values);
+	}
+
+	@Benchmark
+	public int[] getInts() {
+		return cli.getInts(values);
+	}
+}
@@ -0,0 +1,322 @@
+package info.unterrainer.commons.cliutils;
+
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+public class Arg<T> extends Flag {
+
+	protected boolean unlimitedArgs;
+	protected boolean isOptional;
+	protected String[] argNames = new String[] { "ARG" };
+	protected char valueSeparator = ',';
+	protected Class<?> type;
+	protected boolean hasDefault;
+	protected T defaultValue;
+	protected String envVariable;
+	protected String propertyKey;
+	protected Converter<T> converter;
+	protected boolean expandGlobs;
+	protected boolean mustExist;
+	protected boolean mustBeReadable;
+	protected T min;
+	protected T max;
+	protected String pattern;
+	protected List<T> allowedValues;
+	protected List<Validator.Check> checks;
+
+	public static Arg<String> String(final String longName) {
+		return new Arg<>(longName, String.class);
+	}
+
+	public static Arg<Integer> Integer(final String longName) {
+		return new Arg<>(longName, Integer.class);
+	}
+
+	public static Arg<Float> Float(final String longName) {
+		return new Arg<>(longName, Float.class);
+	}
+
+	public static Arg<Double> Double(final String longName) {
+		return new Arg<>(longName, Double.class);
+	}
+
+	public static Arg<Long> Long(final String longName) {
+		return new Arg<>(longName, Long.class);
+	}
+
+	public static Arg<Boolean> Boolean(final String longName) {
+		return new Arg<>(longName, Boolean.class);
+	}
+
+	public static Arg<BigDecimal> BigDecimal(final String longName) {
+		return new Arg<>(longName, BigDecimal.class);
+	}
+
+	public static <E extends Enum<E>> Arg<E> Enum(final String longName, final Class<E> type) {
+		return new Arg<>(longName, type);
+	}
+
+	public static Arg<Duration> Duration(final String longName) {
+		return new Arg<>(longName, Duration.class);
+	}
+
+	public static Arg<java.nio.file.Path> Path(final String longName) {
+		return new Arg<>(longName, java.nio.file.Path.class);
+	}
+
+	public static Arg<URI> URI(final String longName) {
+		return new Arg<>(longName, URI.class);
+	}
+
+	public static Arg<InetSocketAddress> InetSocketAddress(final String longName) {
+		return new Arg<>(longName, InetSocketAddress.class);
+	}
+
+	/**
+	 * Creates an option accepting sizes like '512', '64K', '512M' or '1.5GiB'
+	 * (using binary multiples), converted to a number of bytes.
+	 *
+	 * @param longName the long-name of the option
+	 * @return the option
+	 */
+	@SuppressWarnings("unchecked")
+	public static Arg<Long> ByteSize(final String longName) {
+		return new Arg<Long>(longName, Long.class).converter((Converter<Long>) (Converter<?>) BuiltinConverter.BYTE_SIZE);
+	}
+
+	/**
+	 * Creates an option of any type a {@link Converter} is registered for (see
+	 * {@link Converters}).
+	 *
+	 * @param <T>      the type of the values
+	 * @param longName the long-name of the option
+	 * @param type     the type of the values
+	 * @return the option
+	 */
+	public static <T> Arg<T> of(final String longName, final Class<T> type) {
+		return new Arg<>(longName, type);
+	}
+
+	private Arg(final String longName, final Class<?> type) {
+		super(longName);
+		this.type = type;
+	}
+
+	@Override
+	void addToOptions(final CliParserBuilder parent) {
+		CliOption opt = describe(new CliOption()).type(type)
+				.hasDefaultValue(hasDefault)
+				.numberOfArgs(unlimitedArgs ? CliOption.UNLIMITED : argNames.length)
+				.optionalArg(isOptional)
+				.valueSeparator(valueSeparator)
+				.argName(unlimitedArgs ? "ARG> <..." : String.join("> <", argNames))
+				.envVariable(envVariable)
+				.propertyKey(propertyKey)
+				.converter(converter)
+				.expandGlobs(expandGlobs)
+				.mustExist(mustExist)
+				.mustBeReadable(mustBeReadable)
+				.min(min)
+				.max(max)
+				.pattern(pattern)
+				.allowedValues(allowedValues)
+				.checks(checks);
+		if (hasDefault)
+			opt.defaultValue(defaultValue);
+		parent.options.put(longName, opt);
+	}
+
+	@Override
+	public Arg<T> shortName(final String shortName) {
+		this.shortName = shortName;
+		return this;
+	}
+
+	@Override
+	public Arg<T> description(final String description) {
+		this.description = description;
+		return this;
+	}
+
+	@Override
+	public Arg<T> isRequired() {
+		isRequired = true;
+		return this;
+	}
+
+	public Arg<T> name(final String... argNames) {
+		this.argNames = argNames;
+		return this;
+	}
+
+	public Arg<T> optional() {
+		isOptional = true;
+		return this;
+	}
+
+	public Arg<T> separator(final char valueSeparator) {
+		this.valueSeparator = valueSeparator;
+		return this;
+	}
+
+	public Arg<T> unlimited() {
+		unlimitedArgs = true;
+		return this;
+	}
+
+	/**
+	 * Reads the value from the given environment-variable, if the option isn't
+	 * given on the command line.
+	 * <p>
+	 * The environment takes precedence over config-files and the default-value.
+	 * Options with more than one argument are split at the value-separator.
+	 *
+	 * @param variable the name of the environment-variable
+	 * @return this option
+	 */
+	public Arg<T> env(final String variable) {
+		envVariable = variable;
+		return this;
+	}
+
+	/**
+	 * Reads the value from the given key of the config-files registered using
+	 * {@link CliParserBuilder#configFile(java.nio.file.Path)}, if the option is
+	 * neither given on the command line nor in the environment.
+	 *
+	 * @param key the key within the properties-files
+	 * @return this option
+	 */
+	public Arg<T> property(final String key) {
+		propertyKey = key;
+		return this;
+	}
+
+	/**
+	 * Converts the values of this option using the given converter instead of
+	 * the one registered for its type.
+	 *
+	 * @param converter the converter
+	 * @return this option
+	 */
+	public Arg<T> converter(final Converter<T> converter) {
+		this.converter = converter;
+		return this;
+	}
+
+	/**
+	 * Expands the values of this path-option that are globs (like
+	 * 'data/**&#47;*.parquet', see
+	 * {@link java.nio.file.FileSystem#getPathMatcher(String)}) to the files they
+	 * match when reading them using {@link Cli#getPaths(Arg)}.
+	 * <p>
+	 * Globs are separated by '/' on every platform. '**&#47;' matches zero or
+	 * more directories, so the example matches the files directly in 'data' as
+	 * well.
+	 *
+	 * @return this option
+	 */
+	public Arg<T> glob() {
+		expandGlobs = true;
+		return this;
+	}
+
+	/**
+	 * Makes {@link Cli#getPaths(Arg)} fail for values of this path-option that
+	 * don't exist (or globs that don't match any file).
+	 *
+	 * @return this option
+	 */
+	public Arg<T> mustExist() {
+		mustExist = true;
+		return this;
+	}
+
+	/**
+	 * Makes {@link Cli#getPaths(Arg)} fail for values of this path-option that
+	 * can't be read.
+	 *
+	 * @return this option
+	 */
+	public Arg<T> mustBeReadable() {
+		mustBeReadable = true;
+		return this;
+	}
+
+	/**
+	 * Rejects values less than the given one. The type of the option has to be
+	 * {@link Comparable}.
+	 *
+	 * @param min the minimum (inclusive)
+	 * @return this option
+	 */
+	public Arg<T> min(final T min) {
+		this.min = min;
+		return this;
+	}
+
+	/**
+	 * Rejects values greater than the given one. The type of the option has to
+	 * be {@link Comparable}.
+	 *
+	 * @param max the maximum (inclusive)
+	 * @return this option
+	 */
+	public Arg<T> max(final T max) {
+		this.max = max;
+		return this;
+	}
+
+	/**
+	 * Rejects values (as given on the command line) that don't match the given
+	 * regular expression as a whole.
+	 *
+	 * @param regex the regular expression
+	 * @return this option
+	 */
+	public Arg<T> pattern(final String regex) {
+		pattern = regex;
+		return this;
+	}
+
+	/**
+	 * Rejects values that aren't one of the given ones.
+	 *
+	 * @param values the allowed values
+	 * @return this option
+	 */
+	@SafeVarargs
+	public final Arg<T> oneOf(final T... values) {
+		List<T> allowed = new ArrayList<>(values.length);
+		for (T value : values)
+			allowed.add(value);
+		allowedValues = allowed;
+		return this;
+	}
+
+	/**
+	 * Rejects values the given predicate doesn't accept. May be called more
+	 * than once.
+	 *
+	 * @param predicate the predicate
+	 * @param message   the reason reported for rejected values
+	 * @return this option
+	 */
+	public Arg<T> check(final Predicate<T> predicate, final String message) {
+		if (checks == null)
+			checks = new ArrayList<>();
+		checks.add(new Validator.Check(predicate, message));
+		return this;
+	}
+
+	public Arg<T> defaultValue(final T defaultValue) {
+		this.defaultValue = defaultValue;
+		hasDefault = true;
+		return this;
+	}
+}
@@ -0,0 +1,237 @@
+package info.unterrainer.commons.cliutils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A response-file ('@file') containing command line arguments.
+ * <p>
+ * The file is memory-mapped and tokenized lazily. Arguments are separated by
+ * whitespace and may be quoted using single- or double-quotes. Tokens starting
+ * with '#' start a comment that lasts until the end of the line. The file has
+ * to be UTF-8 encoded and mustn't be larger than 2GB.
+ * <p>
+ * Tokens are only turned into strings when they are needed. Runs of values of
+ * options accepting an unlimited number of arguments are kept as
+ * {@link Segment}s pointing into the mapped file.
+ */
+final class ArgFile {
+
+	private final Path path;
+	private final ByteBuffer buffer;
+
+	private ArgFile(final Path path, final ByteBuffer buffer) {
+		this.path = path;
+		this.buffer = buffer;
+	}
+
+	static ArgFile open(final Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("File is larger than 2GB.");
+			return new ArgFile(path, channel.map(MapMode.READ_ONLY, 0, size));
+		}
+	}
+
+	/**
+	 * Returns the path of the response-file named by an '@file'-argument.
+	 *
+	 * @param workingDirectory the directory relative names are resolved against
+	 *                         or null, to use the working directory of the
+	 *                         process
+	 * @param name             the name following the '@'
+	 * @return the path
+	 */
+	static Path path(final Path workingDirectory, final String name) {
+		return workingDirectory == null ? Path.of(name) : workingDirectory.resolve(name);
+	}
+
+	/**
+	 * Splits the given text into its arguments, following the rules of
+	 * response-files.
+	 *
+	 * @param text the text
+	 * @return the arguments
+	 */
+	static String[] split(final String text) {
+		ArgFile file = new ArgFile(null, ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+		List<String> result = new ArrayList<>();
+		Tokenizer tokenizer = file.tokenizer();
+		while (tokenizer.next())
+			result.add(tokenizer.token());
+		return result.toArray(new String[0]);
+	}
+
+	Path path() {
+		return path;
+	}
+
+	Tokenizer tokenizer() {
+		return new Tokenizer(0, buffer.limit());
+	}
+
+	Segment segment(final int from, final int to) {
+		return new Segment(from, to);
+	}
+
+	private static boolean isWhitespace(final byte b) {
+		return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f';
+	}
+
+	private String decode(final int from, final int to, final boolean quoted) {
+		byte[] bytes = new byte[to - from];
+		buffer.get(from, bytes);
+		if (!quoted)
+			return new String(bytes, StandardCharsets.UTF_8);
+
+		int length = 0;
+		byte quote = 0;
+		for (byte b : bytes)
+			if (quote != 0 && b == quote)
+				quote = 0;
+			else if (quote == 0 && (b == '"' || b == '\''))
+				quote = b;
+			else
+				bytes[length++] = b;
+		return new String(bytes, 0, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Walks over the tokens of a range of the file.
+	 * <p>
+	 * The current token is available as a reusable {@link CharSequence} view
+	 * (mapping every byte to a character, which is exact for ASCII) or as a
+	 * decoded string.
+	 */
+	final class Tokenizer {
+		private int position;
+		private final int end;
+		private int start;
+		private int stop;
+		private boolean quoted;
+		private final ByteSequence view = new ByteSequence(0, 0);
+
+		private Tokenizer(final int from, final int to) {
+			position = from;
+			end = to;
+		}
+
+		boolean next() {
+			while (position < end) {
+				byte b = buffer.get(position);
+				if (isWhitespace(b))
+					position++;
+				else if (b == '#')
+					while (position < end && buffer.get(position) != '\n')
+						position++;
+				else
+					break;
+			}
+			if (position >= end)
+				return false;
+
+			start = position;
+			quoted = false;
+			byte quote = 0;
+			for (; position < end; position++) {
+				byte b = buffer.get(position);
+				if (quote != 0) {
+					if (b == quote)
+						quote = 0;
+				} else if (b == '"' || b == '\'') {
+					quote = b;
+					quoted = true;
+				} else if (isWhitespace(b))
+					break;
+			}
+			stop = position;
+			view.from = start;
+			view.to = stop;
+			return true;
+		}
+
+		int start() {
+			return start;
+		}
+
+		int end() {
+			return stop;
+		}
+
+		boolean isQuoted() {
+			return quoted;
+		}
+
+		/**
+		 * Returns a view on the current token that is only valid until the next
+		 * call to {@link #next()}.
+		 *
+		 * @return the view
+		 */
+		CharSequence view() {
+			return view;
+		}
+
+		String token() {
+			return decode(start, stop, quoted);
+		}
+	}
+
+	/**
+	 * A run of consecutive tokens within the file.
+	 */
+	final class Segment {
+		private final int from;
+		private final int to;
+
+		private Segment(final int from, final int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		Tokenizer tokenizer() {
+			return new Tokenizer(from, to);
+		}
+	}
+
+	/**
+	 * A view on a range of the mapped file, mapping every byte to a character.
+	 */
+	private final class ByteSequence implements CharSequence {
+		private int from;
+		private int to;
+
+		private ByteSequence(final int from, final int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public int length() {
+			return to - from;
+		}
+
+		@Override
+		public char charAt(final int index) {
+			return (char) (buffer.get(from + index) & 0xFF);
+		}
+
+		@Override
+		public CharSequence subSequence(final int start, final int end) {
+			return new ByteSequence(from + start, from + end);
+		}
+
+		@Override
+		public String toString() {
+			return decode(from, to, false);
+		}
+	}
+}
@@ -0,0 +1,284 @@
+package info.unterrainer.commons.cliutils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binds the options of a parsed command line to the {@link Option}-annotated
+ * fields of a class or the components of a record.
+ * <p>
+ * Binders are created once per class and cached. Fields are written using
+ * {@link MethodHandle}s and records are created using their canonical
+ * constructor, so binding an instance doesn't involve any reflection. The
+ * slots of the options are resolved once per spec.
+ */
+final class Binder<T> {
+
+	private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private static final ClassValue<Binder<?>> BINDERS = new ClassValue<>() {
+		@Override
+		protected Binder<?> computeValue(final Class<?> type) {
+			return new Binder<>(type);
+		}
+	};
+
+	private enum Kind {
+		FLAG, VALUE, VALUES
+	}
+
+	private static final class Binding {
+		private final String fieldName;
+		private final Option option;
+		private final String longName;
+		private final Kind kind;
+		private final Class<?> type;
+		private final Object zero;
+		private final MethodHandle setter;
+
+		private Binding(final Field field, final Option option, final MethodHandle setter) {
+			fieldName = field.getName();
+			this.option = option;
+			longName = option == null || option.longName().isEmpty() ? field.getName() : option.longName();
+			Class<?> fieldType = field.getType();
+			if (fieldType == boolean.class || fieldType == Boolean.class) {
+				kind = Kind.FLAG;
+				type = null;
+			} else if (fieldType == List.class) {
+				kind = Kind.VALUES;
+				type = elementType(field);
+			} else {
+				kind = Kind.VALUE;
+				type = box(fieldType);
+			}
+			zero = fieldType.isPrimitive() ? Array.get(Array.newInstance(fieldType, 1), 0) : null;
+			this.setter = setter;
+		}
+	}
+
+	/**
+	 * The slots of the bindings resolved against a single spec.
+	 */
+	private static final class Resolved {
+		private final CliSpec spec;
+		private final int[] slots;
+
+		private Resolved(final CliSpec spec, final int[] slots) {
+			this.spec = spec;
+			this.slots = slots;
+		}
+	}
+
+	private final Class<T> type;
+	private final Binding[] bindings;
+	private final MethodHandle constructor;
+	private volatile Resolved resolved;
+
+	@SuppressWarnings("unchecked")
+	static <T> Binder<T> of(final Class<T> type) {
+		return (Binder<T>) BINDERS.get(type);
+	}
+
+	private Binder(final Class<T> type) {
+		this.type = type;
+		List<Binding> result = new ArrayList<>();
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+			if (type.isRecord()) {
+				RecordComponent[] components = type.getRecordComponents();
+				Class<?>[] types = new Class<?>[components.length];
+				for (int i = 0; i < components.length; i++) {
+					Field field = type.getDeclaredField(components[i].getName());
+					types[i] = field.getType();
+					result.add(new Binding(field, field.getAnnotation(Option.class), null));
+				}
+				constructor = lookup.findConstructor(type, MethodType.methodType(void.class, types))
+						.asSpreader(Object[].class, types.length)
+						.asType(MethodType.methodType(Object.class, Object[].class));
+			} else {
+				for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass())
+					for (Field field : c.getDeclaredFields()) {
+						Option option = field.getAnnotation(Option.class);
+						if (option == null)
+							continue;
+						if (Modifier.isFinal(field.getModifiers()) || Modifier.isStatic(field.getModifiers()))
+							throw new IllegalArgumentException(
+									String.format("Field '%s' of %s must neither be final nor static.",
+											field.getName(), type.getName()));
+						MethodHandle setter = MethodHandles.privateLookupIn(c, MethodHandles.lookup())
+								.unreflectSetter(field)
+								.asType(SETTER);
+						result.add(new Binding(field, option, setter));
+					}
+				constructor = type.isInterface() || Modifier.isAbstract(type.getModifiers()) ? null
+						: findNoArgsConstructor(lookup);
+			}
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalArgumentException(String.format("Cannot bind to %s: %s", type.getName(), e), e);
+		}
+		bindings = result.toArray(new Binding[0]);
+	}
+
+	private MethodHandle findNoArgsConstructor(final MethodHandles.Lookup lookup) {
+		try {
+			return lookup.findConstructor(type, MethodType.methodType(void.class))
+					.asType(MethodType.methodType(Object.class));
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	private static Class<?> elementType(final Field field) {
+		Type generic = field.getGenericType();
+		if (generic instanceof ParameterizedType) {
+			Type argument = ((ParameterizedType) generic).getActualTypeArguments()[0];
+			if (argument instanceof Class)
+				return (Class<?>) argument;
+		}
+		return Object.class;
+	}
+
+	private static Class<?> box(final Class<?> type) {
+		if (!type.isPrimitive())
+			return type;
+		return MethodType.methodType(type).wrap().returnType();
+	}
+
+	/**
+	 * Registers the options described by the annotated fields with the given
+	 * builder.
+	 *
+	 * @param builder the builder
+	 */
+	void register(final CliParserBuilder builder) {
+		for (Binding b : bindings) {
+			if (b.option == null)
+				continue;
+			String shortName = b.option.shortName().isEmpty() ? null : b.option.shortName();
+			String description = b.option.description().isEmpty() ? null : b.option.description();
+			if (b.kind == Kind.FLAG) {
+				Flag flag = Flag.builder(b.longName).shortName(shortName).description(description);
+				builder.addFlag(b.option.required() ? flag.isRequired() : flag);
+				continue;
+			}
+			add(builder, arg(builder, b).shortName(shortName).description(description), b);
+		}
+	}
+
+	private static <V> void add(final CliParserBuilder builder, final Arg<V> arg, final Binding binding) {
+		if (binding.kind == Kind.VALUES)
+			arg.unlimited();
+		if (binding.option.required())
+			arg.isRequired();
+		builder.addArg(arg);
+	}
+
+	private Arg<?> arg(final CliParserBuilder builder, final Binding binding) {
+		if (builder.converterFor(binding.type) != null)
+			return Arg.of(binding.longName, binding.type);
+		throw new IllegalArgumentException(String.format("Field '%s' of %s has an unsupported type: %s",
+				binding.fieldName, type.getName(), binding.type.getName()));
+	}
+
+	/**
+	 * Creates a new instance of the bound class holding the values of the given
+	 * command line.
+	 *
+	 * @param cli the command line
+	 * @return the instance
+	 */
+	@SuppressWarnings("unchecked")
+	T create(final Cli cli) {
+		if (constructor == null)
+			throw new IllegalArgumentException(type.getName() + " has no accessible no-args constructor.");
+		int[] slots = slots(cli.spec);
+		try {
+			if (!type.isRecord())
+				return bind(cli, (T) constructor.invokeExact(), slots);
+			Object[] arguments = new Object[bindings.length];
+			for (int i = 0; i < bindings.length; i++) {
+				Object value = bindings[i].option == null ? null : value(cli, bindings[i], slots[i]);
+				arguments[i] = value == null ? bindings[i].zero : value;
+			}
+			return (T) constructor.invokeExact(arguments);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Writes the values of the given command line to the annotated fields of the
+	 * given instance.
+	 *
+	 * @param cli      the command line
+	 * @param instance the instance
+	 * @return the instance
+	 */
+	T bind(final Cli cli, final T instance) {
+		if (type.isRecord())
+			throw new IllegalArgumentException("Records are immutable; use bind(Class) instead.");
+		return bind(cli, instance, slots(cli.spec));
+	}
+
+	private T bind(final Cli cli, final T instance, final int[] slots) {
+		for (int i = 0; i < bindings.length; i++) {
+			Object value = value(cli, bindings[i], slots[i]);
+			if (value == null && bindings[i].zero != null)
+				continue;
+			try {
+				bindings[i].setter.invokeExact((Object) instance, value);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return instance;
+	}
+
+	private static Object value(final Cli cli, final Binding binding, final int slot) {
+		switch (binding.kind) {
+		case FLAG:
+			return cli.line.isSet(slot);
+		case VALUES:
+			return cli.getValues(slot);
+		default:
+			return cli.getValue(slot);
+		}
+	}
+
+	private int[] slots(final CliSpec spec) {
+		Resolved r = resolved;
+		if (r != null && r.spec == spec)
+			return r.slots;
+
+		int[] slots = new int[bindings.length];
+		for (int i = 0; i < bindings.length; i++) {
+			Binding b = bindings[i];
+			if (b.option == null)
+				continue;
+			slots[i] = spec.slot(b.longName);
+			if (slots[i] == -1)
+				throw new IllegalArgumentException("Unknown option: " + b.longName);
+			Class<?> optionType = spec.slots[slots[i]].type();
+			boolean matches = b.kind == Kind.FLAG ? optionType == null
+					: optionType != null && b.type.isAssignableFrom(optionType);
+			if (!matches)
+				throw new IllegalArgumentException(String.format("Option '%s' can't be bound to field '%s' of %s.",
+						b.longName, b.fieldName, type.getName()));
+		}
+		resolved = new Resolved(spec, slots);
+		return slots;
+	}
+}
@@ -0,0 +1,62 @@
+package info.unterrainer.commons.cliutils;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Helpers for bit-sets of slot-indices stored in {@code long[]} words.
+ */
+final class Bits {
+
+	private Bits() {
+	}
+
+	static long[] create(final int size) {
+		return new long[(size + 63) >>> 6];
+	}
+
+	static void set(final long[] bits, final int index) {
+		bits[index >>> 6] |= 1L << index;
+	}
+
+	static boolean get(final long[] bits, final int index) {
+		return (bits[index >>> 6] & 1L << index) != 0;
+	}
+
+	static void or(final long[] bits, final long[] other) {
+		for (int i = 0; i < bits.length; i++)
+			bits[i] |= other[i];
+	}
+
+	/**
+	 * Counts the bits set in both of the given bit-sets.
+	 */
+	static int countAnd(final long[] a, final long[] b) {
+		int result = 0;
+		for (int i = 0; i < a.length; i++)
+			result += Long.bitCount(a[i] & b[i]);
+		return result;
+	}
+
+	/**
+	 * Checks if all bits set in the mask are set in the bit-set as well.
+	 */
+	static boolean containsAll(final long[] bits, final long[] mask) {
+		for (int i = 0; i < bits.length; i++)
+			if ((mask[i] & ~bits[i]) != 0)
+				return false;
+		return true;
+	}
+
+	/**
+	 * Calls the consumer with the index of every bit set.
+	 */
+	static void forEach(final long[] bits, final IntConsumer consumer) {
+		for (int i = 0; i < bits.length; i++) {
+			long word = bits[i];
+			while (word != 0) {
+				consumer.accept(i << 6 | Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+	}
+}
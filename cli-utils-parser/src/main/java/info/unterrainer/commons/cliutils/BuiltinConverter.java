@@ -0,0 +1,204 @@
+package info.unterrainer.commons.cliutils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * The converters for the types supported out of the box.
+ * <p>
+ * These are constants instead of lambdas, so that resolving them doesn't
+ * bootstrap any method-handles at startup.
+ */
+enum BuiltinConverter implements Converter<Object> {
+	STRING {
+		@Override
+		public Object convert(final String value) {
+			return value;
+		}
+	},
+	INTEGER {
+		@Override
+		public Object convert(final String value) {
+			return Integer.valueOf(value);
+		}
+	},
+	LONG {
+		@Override
+		public Object convert(final String value) {
+			return Long.valueOf(value);
+		}
+	},
+	FLOAT {
+		@Override
+		public Object convert(final String value) {
+			return Float.valueOf(value);
+		}
+	},
+	DOUBLE {
+		@Override
+		public Object convert(final String value) {
+			return Double.valueOf(value);
+		}
+	},
+	BOOLEAN {
+		@Override
+		public Object convert(final String value) {
+			switch (value.toLowerCase(Locale.ROOT)) {
+			case "true":
+			case "yes":
+			case "on":
+			case "1":
+				return Boolean.TRUE;
+			case "false":
+			case "no":
+			case "off":
+			case "0":
+				return Boolean.FALSE;
+			default:
+				throw new IllegalArgumentException("Expected one of: true, false, yes, no, on, off, 1, 0");
+			}
+		}
+	},
+	BIG_DECIMAL {
+		@Override
+		public Object convert(final String value) {
+			return new BigDecimal(value);
+		}
+	},
+	DURATION {
+		@Override
+		public Object convert(final String value) {
+			String s = value.trim();
+			if (s.startsWith("P") || s.startsWith("p") || s.startsWith("-P") || s.startsWith("-p"))
+				return Duration.parse(s);
+			int end = numberEnd(s);
+			String unit = s.substring(end).trim().toLowerCase(Locale.ROOT);
+			long nanos;
+			switch (unit) {
+			case "ns":
+				nanos = 1L;
+				break;
+			case "us":
+				nanos = 1_000L;
+				break;
+			case "ms":
+				nanos = 1_000_000L;
+				break;
+			case "s":
+				nanos = 1_000_000_000L;
+				break;
+			case "m":
+				nanos = 60_000_000_000L;
+				break;
+			case "h":
+				nanos = 3_600_000_000_000L;
+				break;
+			case "d":
+				nanos = 86_400_000_000_000L;
+				break;
+			default:
+				throw new IllegalArgumentException("Expected an ISO-8601 duration or one of the units: "
+						+ "ns, us, ms, s, m, h, d");
+			}
+			// Fractions like '1.5s' are allowed and rounded to whole nanoseconds.
+			BigDecimal[] seconds = new BigDecimal(s.substring(0, end)).multiply(BigDecimal.valueOf(nanos))
+					.setScale(0, RoundingMode.HALF_UP)
+					.divideAndRemainder(BigDecimal.valueOf(1_000_000_000L));
+			return Duration.ofSeconds(seconds[0].longValueExact(), seconds[1].longValue());
+		}
+	},
+	PATH {
+		@Override
+		public Object convert(final String value) {
+			return Path.of(value);
+		}
+	},
+	URI {
+		@Override
+		public Object convert(final String value) {
+			return java.net.URI.create(value);
+		}
+	},
+	INET_SOCKET_ADDRESS {
+		@Override
+		public Object convert(final String value) {
+			int colon = value.lastIndexOf(':');
+			if (colon == -1)
+				return new InetSocketAddress(Integer.parseInt(value));
+			int port = Integer.parseInt(value.substring(colon + 1));
+			String host = value.substring(0, colon);
+			if (host.startsWith("[") && host.endsWith("]"))
+				host = host.substring(1, host.length() - 1);
+			return host.isEmpty() ? new InetSocketAddress(port) : new InetSocketAddress(host, port);
+		}
+	},
+	/**
+	 * Converts sizes like '512M' or '1.5GiB' to a number of bytes (using binary
+	 * multiples).
+	 */
+	BYTE_SIZE {
+		@Override
+		public Object convert(final String value) {
+			String s = value.trim();
+			int end = numberEnd(s);
+			String unit = s.substring(end).trim().toUpperCase(Locale.ROOT);
+			if (unit.endsWith("IB"))
+				unit = unit.substring(0, unit.length() - 2);
+			else if (unit.length() > 1 && unit.endsWith("B"))
+				unit = unit.substring(0, unit.length() - 1);
+			int shift = "BKMGTPE".indexOf(unit.isEmpty() ? "B" : unit);
+			if (shift == -1 || unit.length() > 1)
+				throw new IllegalArgumentException("Expected a size like 512, 64K, 512M or 2G");
+			BigDecimal amount = new BigDecimal(s.substring(0, end));
+			if (amount.signum() < 0)
+				throw new IllegalArgumentException("Expected a size that isn't negative");
+			return amount.multiply(BigDecimal.valueOf(1L << (10 * shift)))
+					.setScale(0, RoundingMode.HALF_UP)
+					.longValueExact();
+		}
+	};
+
+	private static int numberEnd(final String s) {
+		int i = 0;
+		while (i < s.length()
+				&& (Character.isDigit(s.charAt(i)) || s.charAt(i) == '.' || i == 0 && s.charAt(i) == '-'))
+			i++;
+		return i;
+	}
+
+	/**
+	 * Returns the converter for the given type.
+	 *
+	 * @param type the type
+	 * @return the converter or null, if the type isn't supported out of the box
+	 */
+	static Converter<?> of(final Class<?> type) {
+		if (type == String.class)
+			return STRING;
+		if (type == Integer.class)
+			return INTEGER;
+		if (type == Long.class)
+			return LONG;
+		if (type == Float.class)
+			return FLOAT;
+		if (type == Double.class)
+			return DOUBLE;
+		if (type == Boolean.class)
+			return BOOLEAN;
+		if (type == BigDecimal.class)
+			return BIG_DECIMAL;
+		if (type == Duration.class)
+			return DURATION;
+		if (type == Path.class)
+			return PATH;
+		if (type == java.net.URI.class)
+			return URI;
+		if (type == InetSocketAddress.class)
+			return INET_SOCKET_ADDRESS;
+		return null;
+	}
+}
@@ -0,0 +1,655 @@
+package info.unterrainer.commons.cliutils;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The result of parsing a command line using a {@link CliSpec}.
+ * <p>
+ * All single values are converted when the command line is parsed and are
+ * stored in slots indexed by option. Passing the {@link Flag} or {@link Arg}
+ * instances you registered (the handles) instead of their long-names gives you
+ * type-safe access without any lookup. Use the primitive getters like
+ * {@link #getInt(Arg)} to read numbers without boxing them. Numbers converted
+ * by a converter of your own are stored boxed and unboxed by these getters.
+ * Values of options with checks are converted once, while validating them, and
+ * kept; only values streamed from a response-file are converted again when
+ * they are read, so they never have to be held in memory.
+ */
+public class Cli {
+	protected final ParsedLine line;
+	protected final CliSpec spec;
+	private final PrintStream out;
+	private final Map<String, String> env;
+	private final java.nio.file.Path workingDirectory;
+	private final String subcommand;
+	private final Cli subcommandCli;
+
+	private final boolean[] hasValue;
+	private final Object[] values;
+	private final long[] longs;
+	private final double[] doubles;
+	private final boolean[] pending;
+	/**
+	 * The values converted while validating them, so they aren't converted
+	 * again when they are read; null for options that aren't validated (or
+	 * whose values are streamed from a response-file).
+	 */
+	private final Object[][] validated;
+
+	Cli(final ParsedLine line, final CliSpec spec, final PrintStream out, final Map<String, String> env,
+			final java.nio.file.Path workingDirectory, final String subcommand, final Cli subcommandCli) {
+		this.line = line;
+		this.spec = spec;
+		this.out = out;
+		this.env = env;
+		this.workingDirectory = workingDirectory;
+		this.subcommand = subcommand;
+		this.subcommandCli = subcommandCli;
+
+		int length = spec.slots.length;
+		hasValue = new boolean[length];
+		values = new Object[length];
+		longs = spec.defaultLongs.clone();
+		doubles = spec.defaultDoubles.clone();
+		pending = spec.sources == null ? null : new boolean[length];
+		validated = spec.validators == null ? null : new Object[length][];
+		if (spec.validators != null && (!line.cached || spec.revalidated != null))
+			validate();
+		Phases.Measurement m = spec.phases.start();
+		try {
+			for (int i = 0; i < length; i++) {
+				String s = line.first(i);
+				if (s != null) {
+					storeFirst(i, s);
+					hasValue[i] = true;
+				} else if (pending != null && spec.sources.has(i))
+					pending[i] = true;
+				else
+					storeDefault(i);
+			}
+		} finally {
+			spec.phases.end(m, Phase.CONVERSION, null);
+		}
+	}
+
+	private void storeDefault(final int i) {
+		CliOption o = spec.slots[i];
+		if (o.hasDefaultValue() && o.defaultValue() != null) {
+			values[i] = o.defaultValue();
+			hasValue[i] = true;
+		}
+	}
+
+	/**
+	 * Looks up the value of an option that isn't given on the command line in
+	 * its other sources (the environment and the config-files), when it's read
+	 * for the first time.
+	 */
+	private int resolve(final int i) {
+		if (pending == null || !pending[i])
+			return i;
+		pending[i] = false;
+		String s = spec.sources.lookup(i, env);
+		if (s == null) {
+			storeDefault(i);
+			return i;
+		}
+		line.addSource(i, s);
+		if (spec.validators != null && spec.validators[i] != null) {
+			List<String> violations = new ArrayList<>();
+			validate(i, violations);
+			if (!violations.isEmpty())
+				throw new ValidationException(violations);
+		}
+		Phases.Measurement m = spec.phases.start();
+		try {
+			storeFirst(i, line.first(i));
+		} finally {
+			spec.phases.end(m, Phase.CONVERSION, spec.slots[i].longName());
+		}
+		hasValue[i] = true;
+		return i;
+	}
+
+	/**
+	 * Applies the validators to all values on the command line in one pass and
+	 * reports all violations together.
+	 * <p>
+	 * Lines read from the parse-cache have been validated when they were
+	 * stored. Only the options whose validation can't be captured by the key of
+	 * the entry (custom checks and converters, which may have changed since)
+	 * are validated again.
+	 */
+	private void validate() {
+		Phases.Measurement m = spec.phases.start();
+		List<String> violations = new ArrayList<>();
+		try {
+			for (int i = 0; i < spec.validators.length; i++)
+				if (spec.validators[i] != null && (!line.cached || spec.revalidated[i]))
+					validate(i, violations);
+		} finally {
+			spec.phases.end(m, Phase.VALIDATION, null);
+		}
+		if (!violations.isEmpty())
+			throw new ValidationException(violations);
+	}
+
+	private void validate(final int i, final List<String> violations) {
+		Validator validator = spec.validators[i];
+		boolean needsValue = validator.needsValue();
+		List<Object> kept = needsValue && !line.isStreamed(i) ? new ArrayList<>() : null;
+		Iterator<String> strings = line.iterator(i);
+		while (strings.hasNext()) {
+			String s = strings.next();
+			Object value = null;
+			if (needsValue)
+				try {
+					value = converted(i, s);
+				} catch (Exception e) {
+					violations.add(invalidValue(i, s, e).getMessage());
+					kept = null;
+					continue;
+				}
+			if (kept != null)
+				kept.add(value);
+			validator.validate(s, value, violations);
+		}
+		if (kept != null)
+			validated[i] = kept.toArray();
+	}
+
+	private Object[] convertedValues(final int i) {
+		return validated == null ? null : validated[i];
+	}
+
+	/**
+	 * Stores the first value of an option, reusing the value converted by its
+	 * validator if there is one.
+	 */
+	private void storeFirst(final int i, final String s) {
+		Object[] c = convertedValues(i);
+		if (c == null || c.length == 0) {
+			store(i, s);
+			return;
+		}
+		switch (spec.kinds[i]) {
+		case INT:
+		case LONG:
+			longs[i] = ((Number) c[0]).longValue();
+			break;
+		case FLOAT:
+		case DOUBLE:
+			doubles[i] = ((Number) c[0]).doubleValue();
+			break;
+		default:
+			values[i] = c[0];
+		}
+	}
+
+	/**
+	 * Stores the value of a single-valued option. Numbers converted by the
+	 * built-in converters are parsed straight into primitive slots.
+	 */
+	private void store(final int i, final String s) {
+		try {
+			switch (spec.kinds[i]) {
+			case INT:
+				longs[i] = Integer.parseInt(s);
+				break;
+			case LONG:
+				longs[i] = spec.valueConverters[i] == BuiltinConverter.LONG ? Long.parseLong(s)
+						: (Long) spec.valueConverters[i].convert(s);
+				break;
+			case FLOAT:
+				doubles[i] = Float.parseFloat(s);
+				break;
+			case DOUBLE:
+				doubles[i] = Double.parseDouble(s);
+				break;
+			default:
+				values[i] = converted(i, s);
+			}
+		} catch (Exception e) {
+			throw invalidValue(i, s, e);
+		}
+	}
+
+	public boolean isFlagSet(final String longName) {
+		int i = spec.slot(longName);
+		return i != -1 && line.isSet(i);
+	}
+
+	public boolean isFlagSet(final Flag flag) {
+		return line.isSet(spec.slot(flag));
+	}
+
+	public boolean isArgSet(final String longName) {
+		return isFlagSet(longName);
+	}
+
+	public boolean isArgSet(final Arg<?> arg) {
+		return isFlagSet(arg);
+	}
+
+	public <T> T getArgValue(final String longName) {
+		return getValue(slot(longName));
+	}
+
+	public <T> T getArgValue(final Arg<T> arg) {
+		return getValue(spec.slot(arg));
+	}
+
+	public <T> List<T> getArgValues(final String longName) {
+		return getValues(slot(longName));
+	}
+
+	public <T> List<T> getArgValues(final Arg<T> arg) {
+		return getValues(spec.slot(arg));
+	}
+
+	/**
+	 * Returns a lazy iterator over all values of the given option.
+	 * <p>
+	 * Values are split, decoded and converted one at a time. Values read from a
+	 * response-file are never materialized all at once, which makes this the
+	 * preferred way of reading options with millions of values.
+	 *
+	 * @param <T> the type of the values
+	 * @param arg the option
+	 * @return the iterator
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Iterator<T> iterateArgValues(final Arg<T> arg) {
+		int i = resolve(spec.slot(arg));
+		CliOption o = spec.slots[i];
+		if (line.valueCount(i) == 0 && o.hasDefaultValue() && o.defaultValue() != null)
+			return Collections.singletonList((T) o.defaultValue()).iterator();
+		Object[] c = convertedValues(i);
+		if (c != null)
+			return (Iterator<T>) Arrays.asList(c).iterator();
+		Iterator<String> strings = line.iterator(i);
+		return new Iterator<>() {
+			@Override
+			public boolean hasNext() {
+				return strings.hasNext();
+			}
+
+			@Override
+			public T next() {
+				return (T) convert(i, strings.next());
+			}
+		};
+	}
+
+	/**
+	 * Returns a lazy, sequential stream over all values of the given option.
+	 *
+	 * @param <T> the type of the values
+	 * @param arg the option
+	 * @return the stream
+	 * @see #iterateArgValues(Arg)
+	 */
+	public <T> Stream<T> streamArgValues(final Arg<T> arg) {
+		return StreamSupport.stream(
+				Spliterators.spliteratorUnknownSize(iterateArgValues(arg), Spliterator.ORDERED | Spliterator.NONNULL),
+				false);
+	}
+
+	/**
+	 * Returns a stream over the paths given to a path-option.
+	 * <p>
+	 * If the option expands globs ({@link Arg#glob()}), they are expanded by
+	 * walking the directories in parallel. The existence and readability of the
+	 * paths ({@link Arg#mustExist()}, {@link Arg#mustBeReadable()}) are checked
+	 * concurrently as well. Paths are handed to the stream as soon as they are
+	 * found, in no particular order, so processing may start before the
+	 * expansion is complete. Close the stream to cancel the expansion when not
+	 * consuming all of it.
+	 *
+	 * @param arg the option
+	 * @return the stream
+	 * @throws IllegalStateException when the stream reaches a path that doesn't
+	 *                               exist or can't be read
+	 */
+	public Stream<java.nio.file.Path> getPaths(final Arg<java.nio.file.Path> arg) {
+		int i = resolve(spec.slot(arg));
+		CliOption o = spec.slots[i];
+		Iterator<String> strings;
+		if (line.valueCount(i) == 0 && o.hasDefaultValue() && o.defaultValue() != null)
+			strings = Collections.singletonList(o.defaultValue().toString()).iterator();
+		else
+			strings = line.iterator(i);
+		return PathExpansion.stream(o, strings, workingDirectory);
+	}
+
+	/**
+	 * Gets the value of an integer-option without boxing it.
+	 *
+	 * @param arg the option
+	 * @return the value or the default-value, if it isn't set
+	 * @throws IllegalStateException if the option is neither set nor has a
+	 *                               default-value
+	 */
+	public int getInt(final Arg<Integer> arg) {
+		int i = checkedSlot(arg);
+		if (spec.kinds[i] != ValueKind.INT)
+			return this.<Integer>getValue(i).intValue();
+		return (int) longs[i];
+	}
+
+	/**
+	 * Gets the value of a long-option without boxing it.
+	 *
+	 * @param arg the option
+	 * @return the value or the default-value, if it isn't set
+	 * @throws IllegalStateException if the option is neither set nor has a
+	 *                               default-value
+	 */
+	public long getLong(final Arg<Long> arg) {
+		int i = checkedSlot(arg);
+		if (spec.kinds[i] != ValueKind.LONG)
+			return this.<Long>getValue(i).longValue();
+		return longs[i];
+	}
+
+	/**
+	 * Gets the value of a float-option without boxing it.
+	 *
+	 * @param arg the option
+	 * @return the value or the default-value, if it isn't set
+	 * @throws IllegalStateException if the option is neither set nor has a
+	 *                               default-value
+	 */
+	public float getFloat(final Arg<Float> arg) {
+		int i = checkedSlot(arg);
+		if (spec.kinds[i] != ValueKind.FLOAT)
+			return this.<Float>getValue(i).floatValue();
+		return (float) doubles[i];
+	}
+
+	/**
+	 * Gets the value of a double-option without boxing it.
+	 *
+	 * @param arg the option
+	 * @return the value or the default-value, if it isn't set
+	 * @throws IllegalStateException if the option is neither set nor has a
+	 *                               default-value
+	 */
+	public double getDouble(final Arg<Double> arg) {
+		int i = checkedSlot(arg);
+		if (spec.kinds[i] != ValueKind.DOUBLE)
+			return this.<Double>getValue(i).doubleValue();
+		return doubles[i];
+	}
+
+	/**
+	 * Gets all values of an integer-option as a primitive array.
+	 * <p>
+	 * The values are parsed directly from the raw command line argument; no
+	 * intermediate strings are created.
+	 *
+	 * @param arg the option
+	 * @return the values, the default-value if the option isn't set or an empty
+	 *         array if there is no default-value either
+	 */
+	public int[] getInts(final Arg<Integer> arg) {
+		int i = resolve(spec.slot(arg));
+		if (spec.kinds[i] != ValueKind.INT || convertedValues(i) != null) {
+			List<Integer> converted = getValues(i);
+			int[] result = new int[converted.size()];
+			for (int j = 0; j < result.length; j++)
+				result[j] = converted.get(j).intValue();
+			return result;
+		}
+		int n = line.count(i);
+		if (n == 0)
+			return hasValue[i] ? new int[] { (int) longs[i] } : new int[0];
+		int[] result = new int[n];
+		Phases.Measurement m = spec.phases.start();
+		try {
+			line.forEachValue(i, (index, raw, from, to) -> result[index] = Numbers.parseInt(raw, from, to));
+		} catch (NumberFormatException e) {
+			throw invalidNumber(i, e);
+		} finally {
+			spec.phases.end(m, Phase.CONVERSION, spec.slots[i].longName());
+		}
+		return result;
+	}
+
+	/**
+	 * Gets all values of a float-option as a primitive array.
+	 * <p>
+	 * The values are parsed directly from the raw command line argument; no
+	 * intermediate strings are created.
+	 *
+	 * @param arg the option
+	 * @return the values, the default-value if the option isn't set or an empty
+	 *         array if there is no default-value either
+	 */
+	public float[] getFloats(final Arg<Float> arg) {
+		int i = resolve(spec.slot(arg));
+		if (spec.kinds[i] != ValueKind.FLOAT || convertedValues(i) != null) {
+			List<Float> converted = getValues(i);
+			float[] result = new float[converted.size()];
+			for (int j = 0; j < result.length; j++)
+				result[j] = converted.get(j).floatValue();
+			return result;
+		}
+		int n = line.count(i);
+		if (n == 0)
+			return hasValue[i] ? new float[] { (float) doubles[i] } : new float[0];
+		float[] result = new float[n];
+		Phases.Measurement m = spec.phases.start();
+		try {
+			line.forEachValue(i, (index, raw, from, to) -> result[index] = Numbers.parseFloat(raw, from, to));
+		} catch (NumberFormatException e) {
+			throw invalidNumber(i, e);
+		} finally {
+			spec.phases.end(m, Phase.CONVERSION, spec.slots[i].longName());
+		}
+		return result;
+	}
+
+	/**
+	 * Gets all values of a double-option as a primitive array.
+	 * <p>
+	 * The values are parsed directly from the raw command line argument; no
+	 * intermediate strings are created.
+	 *
+	 * @param arg the option
+	 * @return the values, the default-value if the option isn't set or an empty
+	 *         array if there is no default-value either
+	 */
+	public double[] getDoubles(final Arg<Double> arg) {
+		int i = resolve(spec.slot(arg));
+		if (spec.kinds[i] != ValueKind.DOUBLE || convertedValues(i) != null) {
+			List<Double> converted = getValues(i);
+			double[] result = new double[converted.size()];
+			for (int j = 0; j < result.length; j++)
+				result[j] = converted.get(j).doubleValue();
+			return result;
+		}
+		int n = line.count(i);
+		if (n == 0)
+			return hasValue[i] ? new double[] { doubles[i] } : new double[0];
+		double[] result = new double[n];
+		Phases.Measurement m = spec.phases.start();
+		try {
+			line.forEachValue(i, (index, raw, from, to) -> result[index] = Numbers.parseDouble(raw, from, to));
+		} catch (NumberFormatException e) {
+			throw invalidNumber(i, e);
+		} finally {
+			spec.phases.end(m, Phase.CONVERSION, spec.slots[i].longName());
+		}
+		return result;
+	}
+
+	/**
+	 * Returns all arguments that are not the value of any option.
+	 *
+	 * @return the list of arguments
+	 */
+	public List<String> getArgs() {
+		return Collections.unmodifiableList(line.args);
+	}
+
+	/**
+	 * Creates a new instance of the given class (or record) holding the values
+	 * of the options bound to its {@link Option}-annotated fields.
+	 * <p>
+	 * Classes need a no-args constructor; records are created using their
+	 * canonical constructor. Options that aren't set leave the fields at their
+	 * default.
+	 *
+	 * @param <T>  the type to bind to
+	 * @param type the class to bind to
+	 * @return the new instance
+	 */
+	public <T> T bind(final Class<T> type) {
+		return Binder.of(type).create(this);
+	}
+
+	/**
+	 * Writes the values of the options bound to the {@link Option}-annotated
+	 * fields of the given instance to these fields.
+	 *
+	 * @param <T>      the type to bind to
+	 * @param instance the instance to bind to
+	 * @return the instance
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T bindInto(final T instance) {
+		return Binder.of((Class<T>) instance.getClass()).bind(this, instance);
+	}
+
+	/**
+	 * Returns the name of the subcommand selected by the first argument of the
+	 * command line.
+	 *
+	 * @return the name or null, if no subcommand has been selected
+	 */
+	public String getSubcommand() {
+		return subcommand;
+	}
+
+	/**
+	 * Returns the command line of the selected subcommand, holding the values of
+	 * the options declared by that subcommand.
+	 *
+	 * @return the command line or null, if no subcommand has been selected
+	 */
+	public Cli getSubcommandCli() {
+		return subcommandCli;
+	}
+
+	public boolean isHelpSet() {
+		return isFlagSet("help");
+	}
+
+	public void printHelp() {
+		spec.printHelp(out);
+	}
+
+	private int slot(final String longName) {
+		int i = spec.slot(longName);
+		if (i == -1)
+			throw new IllegalArgumentException("Unknown option: " + longName);
+		return i;
+	}
+
+	private int checkedSlot(final Arg<?> arg) {
+		int i = resolve(spec.slot(arg));
+		if (!hasValue[i])
+			throw new IllegalStateException(String.format("Option '%s' has no value.", arg.longName));
+		return i;
+	}
+
+	@SuppressWarnings("unchecked")
+	<T> T getValue(final int i) {
+		resolve(i);
+		if (!hasValue[i])
+			return null;
+		if (line.valueCount(i) == 0)
+			return (T) values[i];
+		switch (spec.kinds[i]) {
+		case INT:
+			return (T) Integer.valueOf((int) longs[i]);
+		case LONG:
+			return (T) Long.valueOf(longs[i]);
+		case FLOAT:
+			return (T) Float.valueOf((float) doubles[i]);
+		case DOUBLE:
+			return (T) Double.valueOf(doubles[i]);
+		default:
+			return (T) values[i];
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	<T> List<T> getValues(final int i) {
+		resolve(i);
+		CliOption o = spec.slots[i];
+		List<T> results;
+		Object[] c = convertedValues(i);
+		if (c != null)
+			results = new ArrayList<>((List<T>) Arrays.asList(c));
+		else {
+			Phases.Measurement m = spec.phases.start();
+			try {
+				String[] strings = line.values(i);
+				results = new ArrayList<>(strings.length);
+				for (String s : strings)
+					results.add((T) convert(i, s));
+			} finally {
+				spec.phases.end(m, Phase.CONVERSION, o.longName());
+			}
+		}
+		if (results.isEmpty() && o.hasDefaultValue())
+			results.add((T) o.defaultValue());
+		return results;
+	}
+
+	private IllegalStateException invalidNumber(final int i, final NumberFormatException e) {
+		spec.printHelp(out);
+		return new IllegalStateException(
+				String.format("Option '%s' contains an invalid number: %s", spec.slots[i].longName(), e.getMessage()));
+	}
+
+	private Object convert(final int i, final String s) {
+		try {
+			return converted(i, s);
+		} catch (Exception e) {
+			spec.printHelp(out);
+			throw invalidValue(i, s, e);
+		}
+	}
+
+	/**
+	 * Converts a value, resolving relative paths against the working directory
+	 * the command line was given in.
+	 */
+	private Object converted(final int i, final String s) throws Exception {
+		Object value = spec.valueConverters[i].convert(s);
+		if (workingDirectory != null && value instanceof java.nio.file.Path)
+			return workingDirectory.resolve((java.nio.file.Path) value);
+		return value;
+	}
+
+	private IllegalStateException invalidValue(final int i, final String s, final Exception e) {
+		if (e instanceof NumberFormatException)
+			return new IllegalStateException(
+					String.format("Value '%s' of option '%s' is not a valid number.", s, spec.slots[i].longName()));
+		return new IllegalStateException(String.format("Value '%s' of option '%s' is invalid: %s", s,
+				spec.slots[i].longName(), e.getMessage()));
+	}
+}
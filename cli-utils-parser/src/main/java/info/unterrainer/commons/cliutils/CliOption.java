@@ -0,0 +1,81 @@
+package info.unterrainer.commons.cliutils;
+
+import java.util.List;
+
+import org.apache.commons.cli.Option;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+
+@Data
+@Accessors(fluent = true)
+public class CliOption {
+	public static final int UNLIMITED = Option.UNLIMITED_VALUES;
+
+	private Flag handle;
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
+	private Option option;
+	private Class<?> type;
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
+	private Converter<?> converter;
+	private Object defaultValue;
+	private boolean hasDefaultValue;
+
+	private String longName;
+	private String shortName;
+	private String description;
+	private boolean required;
+	private int numberOfArgs;
+	private boolean optionalArg;
+	private char valueSeparator;
+	private String argName;
+	private String envVariable;
+	private String propertyKey;
+	private boolean expandGlobs;
+	private boolean mustExist;
+	private boolean mustBeReadable;
+	private Object min;
+	private Object max;
+	private String pattern;
+	private List<?> allowedValues;
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
+	private List<Validator.Check> checks;
+
+	/**
+	 * Returns true, if the value of this option may also be given by an
+	 * environment-variable or a config-file.
+	 *
+	 * @return true, if there are other sources than the command line
+	 */
+	public boolean hasSources() {
+		return envVariable != null || propertyKey != null;
+	}
+
+	/**
+	 * Returns true, if the values of this option are validated.
+	 *
+	 * @return true, if there are any validators
+	 */
+	public boolean hasValidators() {
+		return min != null || max != null || pattern != null || allowedValues != null || checks != null;
+	}
+
+	/**
+	 * Returns the Apache Commons CLI representation of this option.
+	 * <p>
+	 * It is built (and commons-cli is loaded) the first time it's needed, which
+	 * is only the case when using {@link ParserEngine#COMMONS}.
+	 *
+	 * @return the option
+	 */
+	public Option option() {
+		if (option == null)
+			option = CommonsEngine.option(this);
+		return option;
+	}
+}
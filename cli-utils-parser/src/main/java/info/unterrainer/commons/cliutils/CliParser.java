@@ -0,0 +1,24 @@
+package info.unterrainer.commons.cliutils;
+
+public class CliParser {
+
+	public static CliParserBuilder cliFor(String[] args, String jarName, String description) {
+		return new CliParserBuilder(args, jarName, description);
+	}
+
+	public static CliParserBuilder specFor(String jarName, String description) {
+		return new CliParserBuilder(null, jarName, description);
+	}
+
+	/**
+	 * Splits a line into arguments like the lines of a response-file: arguments
+	 * are separated by whitespace and may be quoted using single- or
+	 * double-quotes, and a '#' at the start of an argument starts a comment.
+	 *
+	 * @param line the line
+	 * @return the arguments
+	 */
+	public static String[] splitArguments(final String line) {
+		return ArgFile.split(line);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,310 @@
+package info.unterrainer.commons.cliutils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public class CliParserBuilder {
+
+	protected String[] args;
+	protected String jarName;
+	protected String description;
+	protected ParserEngine engine = ParserEngine.NATIVE;
+	protected boolean argFiles;
+	protected String command;
+	protected List<Path> configFiles = new ArrayList<>();
+	protected Path parseCache;
+	protected int parseCacheSize = ParseCache.DEFAULT_SIZE;
+	final Map<String, CliOption> options = new HashMap<>();
+	protected Set<Occurrences> minNRequired = new HashSet<>();
+	protected Set<Occurrences> exactlyNRequired = new HashSet<>();
+	protected Set<Occurrences> maxNRequired = new HashSet<>();
+	final Map<String, Set<String>> dependencies = new HashMap<>();
+	final Map<String, Set<String>> exclusions = new HashMap<>();
+	final Map<String, Subcommand> subcommands = new LinkedHashMap<>();
+	final Map<Class<?>, Converter<?>> converters = new HashMap<>();
+	final List<PhaseListener> listeners = new ArrayList<>();
+	final List<Plugin> plugins = new ArrayList<>();
+
+	public CliParserBuilder(final String[] args, final String jarName, final String description) {
+		this.args = args;
+		this.jarName = jarName;
+		this.description = description;
+	}
+
+	/**
+	 * Selects the engine used to parse the command line.
+	 * <p>
+	 * Defaults to {@link ParserEngine#NATIVE}. Use {@link ParserEngine#COMMONS}
+	 * to fall back to the Apache Commons CLI {@code DefaultParser}.
+	 *
+	 * @param engine the engine to use
+	 * @return this builder
+	 */
+	public CliParserBuilder engine(final ParserEngine engine) {
+		this.engine = engine;
+		return this;
+	}
+
+	/**
+	 * Enables the expansion of response-files.
+	 * <p>
+	 * Every argument of the form '@&lt;file&gt;' is replaced by the
+	 * whitespace-separated (and optionally quoted) arguments contained in that
+	 * file. The file is memory-mapped and tokenized lazily; values of options
+	 * accepting an unlimited number of arguments are only decoded when they are
+	 * read (see {@link Cli#streamArgValues(Arg)}).
+	 *
+	 * @return this builder
+	 */
+	public CliParserBuilder expandArgFiles() {
+		argFiles = true;
+		return this;
+	}
+
+	/**
+	 * Adds a properties-file to look up the values of options declaring a
+	 * {@link Arg#property(String)}-key that aren't given on the command line or
+	 * in the environment.
+	 * <p>
+	 * Files are consulted in the order they were added; missing files are
+	 * skipped. They are read only once and only when the first such value is
+	 * actually read.
+	 *
+	 * @param file the properties-file
+	 * @return this builder
+	 */
+	public CliParserBuilder configFile(final Path file) {
+		configFiles.add(file);
+		return this;
+	}
+
+	/**
+	 * Caches the parsed form of command lines in the given directory, keeping
+	 * at most {@value ParseCache#DEFAULT_SIZE} entries.
+	 *
+	 * @param directory the directory to store the entries in
+	 * @return this builder
+	 * @see #parseCache(Path, int)
+	 */
+	public CliParserBuilder parseCache(final Path directory) {
+		return parseCache(directory, ParseCache.DEFAULT_SIZE);
+	}
+
+	/**
+	 * Caches the parsed form of command lines in the given directory.
+	 * <p>
+	 * Running the same tool with the same arguments and response-files again
+	 * maps the cached entry instead of tokenizing the response-files and checking
+	 * the constraints and validators (except custom checks and validators of
+	 * options with custom converters, which are checked again). The values are
+	 * still converted when they are read. Entries are keyed by a hash of the
+	 * options and constraints of the spec, the arguments and the contents of the
+	 * response-files, so changing any of them misses the cache. Values from the
+	 * environment and config-files aren't cached.
+	 * <p>
+	 * When a new entry would exceed the given number of entries, the entries
+	 * written longest ago are deleted.
+	 *
+	 * @param directory  the directory to store the entries in
+	 * @param maxEntries the maximum number of entries to keep
+	 * @return this builder
+	 */
+	public CliParserBuilder parseCache(final Path directory, final int maxEntries) {
+		if (maxEntries < 1)
+			throw new IllegalArgumentException("The parse-cache has to keep at least one entry.");
+		parseCache = directory;
+		parseCacheSize = maxEntries;
+		return this;
+	}
+
+	/**
+	 * Registers a converter for all options of the given type of this builder
+	 * (and its subcommands) that don't have a converter of their own.
+	 *
+	 * @param <T>       the type
+	 * @param type      the type
+	 * @param converter the converter
+	 * @return this builder
+	 * @see Converters#register(Class, Converter)
+	 */
+	public <T> CliParserBuilder registerConverter(final Class<T> type, final Converter<T> converter) {
+		converters.put(type, converter);
+		return this;
+	}
+
+	Converter<?> converterFor(final Class<?> type) {
+		Converter<?> converter = converters.get(type);
+		return converter != null ? converter : Converters.find(type);
+	}
+
+	/**
+	 * Adds a listener receiving the duration of every {@link Phase} of
+	 * compiling and using the spec (and the specs of its subcommands).
+	 * <p>
+	 * The same phases are committed as JDK Flight Recorder events named
+	 * {@code info.unterrainer.commons.cliutils.Phase}, if the flight recorder is
+	 * running.
+	 *
+	 * @param listener the listener
+	 * @return this builder
+	 */
+	public CliParserBuilder addListener(final PhaseListener listener) {
+		listeners.add(listener);
+		return this;
+	}
+
+	public CliParserBuilder addFlag(final Flag flagBuilder) {
+		flagBuilder.addToOptions(this);
+		return this;
+	}
+
+	public <T> CliParserBuilder addArg(final Arg<T> argBuilder) {
+		argBuilder.addToOptions(this);
+		return this;
+	}
+
+	/**
+	 * Adds an option for every {@link Option}-annotated field of the given class
+	 * (or record), so that the parsed command line may be bound to it using
+	 * {@link Cli#bind(Class)}.
+	 *
+	 * @param type the class
+	 * @return this builder
+	 */
+	public CliParserBuilder addOptions(final Class<?> type) {
+		Binder.of(type).register(this);
+		return this;
+	}
+
+	/**
+	 * Adds the options of all {@link CliPlugin}s declared in the descriptors
+	 * visible to the context class-loader of the current thread.
+	 *
+	 * @return this builder
+	 * @see #loadPlugins(ClassLoader)
+	 */
+	public CliParserBuilder loadPlugins() {
+		return loadPlugins(Thread.currentThread().getContextClassLoader());
+	}
+
+	/**
+	 * Adds the options of all {@link CliPlugin}s declared by the
+	 * {@link CliPluginDescriptor}s the {@link java.util.ServiceLoader} finds
+	 * using the given class-loader.
+	 * <p>
+	 * Only the descriptors are loaded; a plugin's class is loaded after parsing
+	 * a command line that sets one of its options.
+	 *
+	 * @param loader the class-loader to find the descriptors with
+	 * @return this builder
+	 */
+	public CliParserBuilder loadPlugins(final ClassLoader loader) {
+		Plugin.load(this, loader);
+		return this;
+	}
+
+	public CliParserBuilder addMinRequired(final int numberOfOccurrences, final String... longNames) {
+		minNRequired.add(new Occurrences(numberOfOccurrences, longNames));
+		return this;
+	}
+
+	public CliParserBuilder addExactlyRequired(final int numberOfOccurrences, final String... longNames) {
+		exactlyNRequired.add(new Occurrences(numberOfOccurrences, longNames));
+		return this;
+	}
+
+	public CliParserBuilder addMaxRequired(final int numberOfOccurrences, final String... longNames) {
+		maxNRequired.add(new Occurrences(numberOfOccurrences, longNames));
+		return this;
+	}
+
+	/**
+	 * Adds a 'requires'-edge to the dependency graph: if the parent option is
+	 * set, all child options have to be set as well.
+	 * <p>
+	 * Dependencies are transitive; calling this more than once for the same
+	 * parent adds to its children. Cycles are detected when the spec is
+	 * compiled.
+	 *
+	 * @param parentOption the long-name of the parent option
+	 * @param childOptions the long-names of the options required by the parent
+	 * @return this builder
+	 */
+	public CliParserBuilder addDependency(final String parentOption, final String... childOptions) {
+		dependencies.computeIfAbsent(parentOption, k -> new HashSet<>()).addAll(Arrays.asList(childOptions));
+		return this;
+	}
+
+	/**
+	 * Adds an 'excludes'-edge to the dependency graph: the option can't be used
+	 * together with any of the excluded options (and vice versa).
+	 * <p>
+	 * Options requiring (directly or transitively) two options that exclude each
+	 * other are detected when the spec is compiled.
+	 *
+	 * @param option          the long-name of the option
+	 * @param excludedOptions the long-names of the options excluded by it
+	 * @return this builder
+	 */
+	public CliParserBuilder addExclusion(final String option, final String... excludedOptions) {
+		exclusions.computeIfAbsent(option, k -> new HashSet<>()).addAll(Arrays.asList(excludedOptions));
+		return this;
+	}
+
+	public CliParserBuilder subcommand(final String name, final Consumer<CliParserBuilder> spec) {
+		return subcommand(name, null, spec);
+	}
+
+	/**
+	 * Adds a git-style subcommand, which is selected by the first argument of the
+	 * command line (e.g. {@code tool import --file x}).
+	 * <p>
+	 * The given consumer declares the options of the subcommand on a builder of
+	 * its own. It isn't called until a command line selects the subcommand, so
+	 * the options, constraints and help of all other subcommands are never built.
+	 * Subcommands may have subcommands of their own.
+	 * <p>
+	 * The options of this builder are only parsed when no subcommand is selected;
+	 * they can't precede the name of a subcommand ({@code tool -v import} is
+	 * rejected). That's why they may neither be required nor constrained in a
+	 * spec with subcommands: {@link #compile()} throws an
+	 * {@link IllegalArgumentException} if they are. Declare options shared by
+	 * the subcommands in each of them instead.
+	 *
+	 * @param name        the name of the subcommand
+	 * @param description the description shown in the help
+	 * @param spec        declares the options of the subcommand
+	 * @return this builder
+	 * @see Cli#getSubcommandCli()
+	 */
+	public CliParserBuilder subcommand(final String name, final String description,
+			final Consumer<CliParserBuilder> spec) {
+		subcommands.put(name, new Subcommand(name, description, spec));
+		return this;
+	}
+
+	/**
+	 * Compiles the options, constraints and dependencies registered so far into
+	 * an immutable {@link CliSpec} that may be used to parse any number of
+	 * command lines.
+	 *
+	 * @return the compiled spec
+	 */
+	public CliSpec compile() {
+		if (!options.containsKey("help"))
+			addFlag(Flag.builder("help").shortName("h").description("show this message"));
+		return new CliSpec(this);
+	}
+
+	public Cli create() {
+		return compile().parse(args);
+	}
+}
@@ -0,0 +1,24 @@
+package info.unterrainer.commons.cliutils;
+
+/**
+ * A plugin contributing options to a command line.
+ * <p>
+ * A plugin doesn't declare its options itself, but using a
+ * {@link CliPluginDescriptor} naming it, so that declaring them (and printing
+ * the help) doesn't load any class of the plugin. The plugin is loaded and
+ * instantiated (once per spec, using its no-args constructor) only when a
+ * command line sets one of its options.
+ *
+ * @see CliParserBuilder#loadPlugins()
+ */
+public interface CliPlugin {
+
+	/**
+	 * Called after parsing a command line that sets at least one of the options
+	 * declared for this plugin. Isn't called for command lines requesting the
+	 * help.
+	 *
+	 * @param cli the parsed command line
+	 */
+	void activate(Cli cli);
+}
@@ -0,0 +1,49 @@
+package info.unterrainer.commons.cliutils;
+
+/**
+ * Declares the options of a {@link CliPlugin} without loading the plugin
+ * itself.
+ * <p>
+ * Descriptors are found using the {@link java.util.ServiceLoader}, so a
+ * plugin-jar lists its descriptor in
+ * {@code META-INF/services/info.unterrainer.commons.cliutils.CliPluginDescriptor}
+ * (or {@code provides} it in its {@code module-info}). Keep descriptors
+ * small: they are loaded and instantiated whenever plugins are loaded, while
+ * the class of the plugin is only loaded when a command line sets one of its
+ * options.
+ *
+ * <pre>
+ * public class ExportDescriptor implements CliPluginDescriptor {
+ *
+ * 	public void declare(final CliParserBuilder builder) {
+ * 		builder.addArg(Arg.Enum("export-format", Format.class).shortName("f"))
+ * 				.addFlag(Flag.builder("export-all"));
+ * 	}
+ *
+ * 	public String pluginClassName() {
+ * 		return "com.example.ExportPlugin";
+ * 	}
+ * }
+ * </pre>
+ *
+ * @see CliParserBuilder#loadPlugins()
+ */
+public interface CliPluginDescriptor {
+
+	/**
+	 * Adds the options of the plugin (and any constraints or dependencies
+	 * between them) to the given builder.
+	 *
+	 * @param builder the builder of the spec the plugin is added to
+	 */
+	void declare(CliParserBuilder builder);
+
+	/**
+	 * Returns the fully qualified name of the {@link CliPlugin} to activate if
+	 * one of the declared options is set. The class is loaded using the
+	 * class-loader of the descriptor and needs a no-args constructor.
+	 *
+	 * @return the name of the plugin's class
+	 */
+	String pluginClassName();
+}
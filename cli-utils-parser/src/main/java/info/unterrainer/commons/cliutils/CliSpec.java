@@ -0,0 +1,476 @@
+package info.unterrainer.commons.cliutils;
+
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+
+/**
+ * The compiled, immutable form of a {@link CliParserBuilder}.
+ * <p>
+ * All structures that don't depend on the actual command line (the options,
+ * the constraints and the dependencies) are built exactly once when the spec
+ * is compiled. A spec is thread-safe and may be used to parse any number of
+ * command lines by calling {@link #parse(String[])}.
+ * <p>
+ * Everything that isn't needed by every run (the help, the validation of
+ * constraints and the commons-cli engine) is built (and its classes are loaded)
+ * only when it's used for the first time.
+ */
+public final class CliSpec {
+
+	final String jarName;
+	private final String description;
+	final ParserEngine engine;
+	final boolean argFiles;
+	final String command;
+	final List<Path> configFiles;
+	final Path cacheDirectory;
+	final int cacheSize;
+	private final ParseCache parseCache;
+	final Map<Class<?>, Converter<?>> converters;
+	final Map<String, CliOption> options;
+	final CliOption[] slots;
+	private final Map<String, Integer> slotsByName = new HashMap<>();
+	// The handles may be shared by many specs, so they don't know their slots.
+	private final Map<Flag, Integer> slotsByHandle = new IdentityHashMap<>();
+	final ValueKind[] kinds;
+	final Converter<?>[] valueConverters;
+	final Validator[] validators;
+	final boolean[] revalidated;
+	final long[] defaultLongs;
+	final double[] defaultDoubles;
+	final int[] requiredSlots;
+	private final int[] sourcedRequiredSlots;
+	final Sources sources;
+	private final int helpSlot;
+	final OptionTrie longNames = new OptionTrie();
+	final OptionTrie shortNames = new OptionTrie();
+	private final Constraints constraints;
+	final Phases phases;
+	final List<PhaseListener> listeners;
+	final Map<String, Subcommand> subcommands;
+	private final Plugin[] plugins;
+	private final int[][] pluginSlots;
+	private final Map<String, CliSpec> subcommandSpecs = new ConcurrentHashMap<>();
+	private volatile CommonsEngine commons;
+	private volatile HelpRenderer help;
+
+	CliSpec(final CliParserBuilder builder) {
+		jarName = builder.jarName;
+		description = builder.description;
+		engine = builder.engine;
+		argFiles = builder.argFiles;
+		command = builder.command;
+		configFiles = List.copyOf(builder.configFiles);
+		converters = Map.copyOf(builder.converters);
+		options = Collections.unmodifiableMap(new LinkedHashMap<>(builder.options));
+		slots = options.values().toArray(new CliOption[0]);
+		kinds = new ValueKind[slots.length];
+		valueConverters = new Converter<?>[slots.length];
+		defaultLongs = new long[slots.length];
+		defaultDoubles = new double[slots.length];
+		int[] required = new int[slots.length];
+		int requiredCount = 0;
+		int[] sourcedRequired = new int[slots.length];
+		int sourcedRequiredCount = 0;
+		Validator[] compiledValidators = null;
+		boolean[] opaque = null;
+		for (int i = 0; i < slots.length; i++) {
+			CliOption o = slots[i];
+			if (o.type() != null) {
+				valueConverters[i] = o.converter() != null ? o.converter() : builder.converterFor(o.type());
+				if (valueConverters[i] == null)
+					throw new IllegalArgumentException(String.format(
+							"There is no converter for type %s of option '%s'.", o.type().getName(), o.longName()));
+			}
+			if ((o.expandGlobs() || o.mustExist() || o.mustBeReadable()) && o.type() != Path.class)
+				throw new IllegalArgumentException(String.format("Option '%s' isn't a path-option.", o.longName()));
+			kinds[i] = ValueKind.of(valueConverters[i]);
+			if (o.hasValidators()) {
+				if (compiledValidators == null)
+					compiledValidators = new Validator[slots.length];
+				compiledValidators[i] = Validator.of(o);
+				if (o.checks() != null || !Converters.isBuiltin(valueConverters[i])) {
+					if (opaque == null)
+						opaque = new boolean[slots.length];
+					opaque[i] = true;
+				}
+			}
+			if (o.defaultValue() instanceof Number) {
+				defaultLongs[i] = ((Number) o.defaultValue()).longValue();
+				defaultDoubles[i] = ((Number) o.defaultValue()).doubleValue();
+			}
+			slotsByName.put(o.longName(), i);
+			if (o.handle() != null)
+				slotsByHandle.put(o.handle(), i);
+			longNames.put(o.longName(), i);
+			if (o.shortName() != null)
+				shortNames.put(o.shortName(), i);
+			if (o.required() && o.hasSources())
+				sourcedRequired[sourcedRequiredCount++] = i;
+			else if (o.required())
+				required[requiredCount++] = i;
+		}
+		validators = compiledValidators;
+		revalidated = opaque;
+		requiredSlots = Arrays.copyOf(required, requiredCount);
+		sourcedRequiredSlots = Arrays.copyOf(sourcedRequired, sourcedRequiredCount);
+		sources = Sources.of(slots, configFiles);
+		helpSlot = slot("help");
+		listeners = List.copyOf(builder.listeners);
+		phases = new Phases(listeners);
+		boolean constrained = !builder.minNRequired.isEmpty() || !builder.exactlyNRequired.isEmpty()
+				|| !builder.maxNRequired.isEmpty() || !builder.dependencies.isEmpty() || !builder.exclusions.isEmpty();
+		if (!builder.subcommands.isEmpty() && (requiredCount > 0 || sourcedRequiredCount > 0 || constrained))
+			throw new IllegalArgumentException(
+					"The options of a spec with subcommands can't be required or constrained, since they aren't "
+							+ "parsed when a subcommand is selected.");
+		constraints = constrained ? compileConstraints(builder) : null;
+		subcommands = Collections.unmodifiableMap(new LinkedHashMap<>(builder.subcommands));
+		plugins = builder.plugins.toArray(new Plugin[0]);
+		pluginSlots = new int[plugins.length][];
+		for (int i = 0; i < plugins.length; i++) {
+			pluginSlots[i] = new int[plugins[i].longNames.length];
+			for (int j = 0; j < pluginSlots[i].length; j++)
+				pluginSlots[i][j] = slot(plugins[i].longNames[j]);
+		}
+		cacheDirectory = builder.parseCache;
+		cacheSize = builder.parseCacheSize;
+		parseCache = cacheDirectory == null ? null
+				: new ParseCache(cacheDirectory, cacheSize, slots, argFiles, builder.dependencies, builder.exclusions,
+						List.of(builder.minNRequired, builder.exactlyNRequired, builder.maxNRequired));
+	}
+
+	/**
+	 * Parses the given command line using the precompiled structures of this
+	 * spec.
+	 * <p>
+	 * If the help-flag is set, the help is printed and validation is skipped.
+	 * <p>
+	 * If the first argument names a subcommand, the spec of that subcommand is
+	 * compiled (once) and parses the remaining arguments. The options of this
+	 * spec aren't parsed then, so none of them is set.
+	 * <p>
+	 * Afterwards the {@link CliPlugin}s declaring an option that is set on the
+	 * command line are activated (unless the help-flag is set).
+	 *
+	 * @param args the command line arguments
+	 * @return the parsed command line
+	 */
+	public Cli parse(final String[] args) {
+		return parse(args, System.out);
+	}
+
+	/**
+	 * Parses the given command line like {@link #parse(String[])}, but prints
+	 * the help (if requested or on errors) to the given stream.
+	 *
+	 * @param args the command line arguments
+	 * @param out  the stream to print the help to
+	 * @return the parsed command line
+	 */
+	public Cli parse(final String[] args, final PrintStream out) {
+		return parse(args, out, null);
+	}
+
+	/**
+	 * Parses the given command line like {@link #parse(String[], PrintStream)},
+	 * but looks up the values of options declaring an {@link Arg#env(String)}
+	 * variable in the given environment instead of the one of this process.
+	 *
+	 * @param args the command line arguments
+	 * @param out  the stream to print the help to
+	 * @param env  the environment
+	 * @return the parsed command line
+	 */
+	public Cli parse(final String[] args, final PrintStream out, final Map<String, String> env) {
+		return parse(args, out, env, null);
+	}
+
+	/**
+	 * Parses the given command line like
+	 * {@link #parse(String[], PrintStream, Map)}, but as if it had been given in
+	 * the given working directory.
+	 * <p>
+	 * Relative response-files are read from that directory and relative values
+	 * of path-options (and globs) are resolved against it, which makes the
+	 * result independent of the working directory of this process.
+	 *
+	 * @param args             the command line arguments
+	 * @param out              the stream to print the help to
+	 * @param env              the environment
+	 * @param workingDirectory the working directory or null, to use the one of
+	 *                         this process
+	 * @return the parsed command line
+	 */
+	public Cli parse(final String[] args, final PrintStream out, final Map<String, String> env,
+			final Path workingDirectory) {
+		if (!subcommands.isEmpty() && args != null && args.length > 0 && args[0] != null) {
+			Subcommand subcommand = subcommands.get(args[0]);
+			if (subcommand != null)
+				return new Cli(new ParsedLine(slots, false), this, out, env, workingDirectory, subcommand.name,
+						subcommand(subcommand).parse(Arrays.copyOfRange(args, 1, args.length), out, env,
+								workingDirectory));
+			if (!args[0].startsWith("-") && !args[0].startsWith("@")) {
+				printHelp(out);
+				throw new RuntimeException(String.format("Unknown command: '%s'", args[0]));
+			}
+		}
+		String key = parseCache == null || args == null ? null : parseCache.key(args, workingDirectory);
+		ParsedLine line = key == null ? null : parseCache.load(key);
+		if (line == null)
+			line = startParser(args, out, workingDirectory);
+		Cli cli;
+		try {
+			if (line.isSet(helpSlot))
+				printHelp(out);
+			else {
+				if (!subcommands.isEmpty() && !line.args.isEmpty() && subcommands.containsKey(line.args.get(0)))
+					throw new RuntimeException(
+							String.format("Command '%s' must be the first argument.", line.args.get(0)));
+				checkSourcedRequired(line, env);
+				if (constraints != null && !line.cached)
+					validate(line.present);
+			}
+			cli = new Cli(line, this, out, env, workingDirectory, null, null);
+			if (key != null && !line.cached && !line.isSet(helpSlot))
+				parseCache.store(key, line);
+		} catch (Exception e) {
+			printHelp(out);
+			throw e;
+		}
+		if (plugins.length > 0 && !line.isSet(helpSlot))
+			activatePlugins(line, cli);
+		return cli;
+	}
+
+	/**
+	 * Returns the slot-index of the option with the given long-name.
+	 *
+	 * @param longName the long-name of the option
+	 * @return the index or -1, if there is no such option
+	 */
+	int slot(final String longName) {
+		Integer i = slotsByName.get(longName);
+		return i == null ? -1 : i;
+	}
+
+	/**
+	 * Returns the slot-index of the given option.
+	 * <p>
+	 * The option is looked up by identity; options that haven't been compiled
+	 * into this spec are looked up by their long-name.
+	 *
+	 * @param handle the option
+	 * @return the index
+	 */
+	int slot(final Flag handle) {
+		Integer slot = slotsByHandle.get(handle);
+		if (slot != null)
+			return slot;
+		int i = slot(handle.longName);
+		if (i == -1)
+			throw new IllegalArgumentException("Unknown option: " + handle.longName);
+		return i;
+	}
+
+	String ambiguityMessage(final String name) {
+		String candidates = options.keySet()
+				.stream()
+				.filter(n -> n.startsWith(name))
+				.sorted()
+				.collect(Collectors.joining("', '"));
+		return String.format("Ambiguous option: '--%s'  (could be: '%s')", name, candidates);
+	}
+
+	/**
+	 * Activates the plugins declaring an option that is set on the command line.
+	 */
+	private void activatePlugins(final ParsedLine line, final Cli cli) {
+		for (int i = 0; i < plugins.length; i++) {
+			boolean present = false;
+			for (int j = 0; !present && j < pluginSlots[i].length; j++)
+				present = line.isSet(pluginSlots[i][j]);
+			if (present)
+				plugins[i].activate(cli);
+		}
+	}
+
+	private Constraints compileConstraints(final CliParserBuilder builder) {
+		Phases.Measurement m = phases.start();
+		try {
+			Constraints.checkAvailability(this::slot, builder.minNRequired, builder.exactlyNRequired,
+					builder.maxNRequired, builder.dependencies, builder.exclusions);
+		} finally {
+			phases.end(m, Phase.AVAILABILITY_CHECK, null);
+		}
+		m = phases.start();
+		try {
+			return new Constraints(slots, this::slot, builder.minNRequired, builder.exactlyNRequired,
+					builder.maxNRequired, builder.dependencies, builder.exclusions);
+		} finally {
+			phases.end(m, Phase.CONSTRAINT_COMPILATION, null);
+		}
+	}
+
+	private void validate(final long[] present) {
+		Phases.Measurement m = phases.start();
+		try {
+			constraints.validateNRequired(present);
+		} finally {
+			phases.end(m, Phase.N_REQUIRED, null);
+		}
+		m = phases.start();
+		try {
+			constraints.validateDependencies(present);
+		} finally {
+			phases.end(m, Phase.DEPENDENCIES, null);
+		}
+	}
+
+	private ParsedLine startParser(final String[] args, final PrintStream out, final Path workingDirectory) {
+		Phases.Measurement m = phases.start();
+		ParsedLine line;
+		try {
+			if (engine == ParserEngine.COMMONS)
+				line = commons().parse(args, workingDirectory);
+			else
+				line = NativeParser.parse(this, args, workingDirectory);
+		} finally {
+			phases.end(m, Phase.PARSE, null);
+		}
+		if (line.error != null) {
+			printHelp(out);
+			throw new RuntimeException(line.error);
+		}
+		return line;
+	}
+
+	/**
+	 * Checks the required options that may also be given by another source than
+	 * the command line. Only these are looked up eagerly.
+	 */
+	private void checkSourcedRequired(final ParsedLine line, final Map<String, String> env) {
+		List<String> missing = null;
+		for (int i : sourcedRequiredSlots)
+			if (!line.isSet(i) && sources.lookup(i, env) == null) {
+				if (missing == null)
+					missing = new ArrayList<>();
+				CliOption o = slots[i];
+				missing.add(o.shortName() == null ? o.longName() : o.shortName());
+			}
+		if (missing != null)
+			throw new RuntimeException(String.format("Missing required option%s: %s",
+					missing.size() == 1 ? "" : "s", String.join(", ", missing)));
+	}
+
+	CliSpec subcommand(final Subcommand subcommand) {
+		return subcommandSpecs.computeIfAbsent(subcommand.name, k -> subcommand.compile(this));
+	}
+
+	private CommonsEngine commons() {
+		CommonsEngine c = commons;
+		if (c == null)
+			commons = c = new CommonsEngine(this);
+		return c;
+	}
+
+	private HelpRenderer help() {
+		HelpRenderer h = help;
+		if (h == null)
+			help = h = new HelpRenderer(syntax(), description, slots, commands());
+		return h;
+	}
+
+	private String syntax() {
+		String syntax = String.format("java -jar %s.jar", Optional.ofNullable(jarName).orElse("<JAR-NAME>"));
+		return command == null ? syntax : syntax + " " + command;
+	}
+
+	private Map<String, String> commands() {
+		Map<String, String> result = new LinkedHashMap<>();
+		for (Subcommand s : subcommands.values())
+			result.put(s.name, s.description);
+		return result;
+	}
+
+	/**
+	 * Prints the help for this spec to standard-out.
+	 */
+	public void printHelp() {
+		printHelp(System.out);
+	}
+
+	/**
+	 * Prints the help for this spec to the given stream.
+	 *
+	 * @param out the stream to print to
+	 */
+	public void printHelp(final PrintStream out) {
+		Phases.Measurement m = phases.start();
+		try {
+			out.print(help().render(HelpRenderer.DEFAULT_WIDTH));
+			out.flush();
+		} finally {
+			phases.end(m, Phase.HELP, null);
+		}
+	}
+
+	/**
+	 * Writes the help for this spec, wrapped at the given width, to the given
+	 * writer.
+	 * <p>
+	 * The help is laid out once per width and cached.
+	 *
+	 * @param out   the writer to write to
+	 * @param width the number of characters per line
+	 */
+	public void printHelp(final Writer out, final int width) {
+		Phases.Measurement m = phases.start();
+		try {
+			help().print(out, width);
+		} finally {
+			phases.end(m, Phase.HELP, null);
+		}
+	}
+
+	/**
+	 * Generates a static completion-script for the given shell, using the
+	 * jar-name as the name of the command.
+	 *
+	 * @param shell the shell
+	 * @return the script
+	 * @see #completion(Shell, String)
+	 */
+	public String completion(final Shell shell) {
+		return completion(shell, jarName);
+	}
+
+	/**
+	 * Generates a static completion-script for the given shell.
+	 * <p>
+	 * The script completes the names of all options and subcommands and the
+	 * choices of enum- and boolean-options, and shows the names of the
+	 * arguments, without ever calling back into the JVM. Generating it compiles
+	 * the specs of all subcommands.
+	 *
+	 * @param shell   the shell
+	 * @param command the name of the command to complete
+	 * @return the script
+	 */
+	public String completion(final Shell shell, final String command) {
+		return new Completion(this, command).script(shell);
+	}
+}
@@ -0,0 +1,106 @@
+package info.unterrainer.commons.cliutils;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Option.Builder;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+/**
+ * Parses command lines of a {@link CliSpec} using the Apache Commons CLI
+ * {@code DefaultParser} ({@link ParserEngine#COMMONS}).
+ * <p>
+ * This is the only class referencing commons-cli, so its classes are only
+ * loaded if this engine is used.
+ */
+final class CommonsEngine {
+
+	private final CliSpec spec;
+	private final Options options = new Options();
+
+	CommonsEngine(final CliSpec spec) {
+		this.spec = spec;
+		for (CliOption o : spec.slots)
+			options.addOption(o.option());
+	}
+
+	static Option option(final CliOption o) {
+		Builder builder = Option.builder(o.shortName())
+				.required(o.required() && !o.hasSources())
+				.longOpt(o.longName())
+				.desc(o.description());
+		if (o.numberOfArgs() == 0)
+			return builder.build();
+
+		builder.valueSeparator(o.valueSeparator());
+		if (o.optionalArg())
+			builder.optionalArg(true);
+		else
+			builder.hasArg();
+		if (o.numberOfArgs() == CliOption.UNLIMITED)
+			builder.hasArgs();
+		else
+			builder.numberOfArgs(o.numberOfArgs());
+		return builder.argName(o.argName()).build();
+	}
+
+	ParsedLine parse(final String[] args, final Path workingDirectory) {
+		ParsedLine line = new ParsedLine(spec.slots, true);
+		try {
+			CommandLine cmdLine = new DefaultParser().parse(options,
+					spec.argFiles ? expandArgFiles(args, workingDirectory) : args);
+			for (Option o : cmdLine.getOptions()) {
+				int i = spec.slot(o.getLongOpt());
+				line.set(i);
+				String[] values = o.getValues();
+				if (values != null)
+					for (String value : values)
+						line.add(i, value);
+			}
+			line.args.addAll(cmdLine.getArgList());
+		} catch (ParseException | IOException e) {
+			line.error = e.getMessage();
+		}
+		return line;
+	}
+
+	/**
+	 * Replaces all response-files with their contents, since the
+	 * {@code DefaultParser} can only work on an in-memory array.
+	 */
+	private static String[] expandArgFiles(final String[] args, final Path workingDirectory) throws IOException {
+		if (args == null)
+			return null;
+		List<String> result = new ArrayList<>(args.length);
+		boolean skipParsing = false;
+		for (String arg : args) {
+			if ("--".equals(arg))
+				skipParsing = true;
+			if (skipParsing || arg == null || arg.length() < 2 || arg.charAt(0) != '@') {
+				result.add(arg);
+				continue;
+			}
+			ArgFile.Tokenizer tokenizer;
+			try {
+				tokenizer = ArgFile.open(ArgFile.path(workingDirectory, arg.substring(1))).tokenizer();
+			} catch (IOException | InvalidPathException e) {
+				throw new IOException(
+						String.format("Cannot read argument file '%s': %s", arg.substring(1), e.getMessage()), e);
+			}
+			while (tokenizer.next()) {
+				String token = tokenizer.token();
+				result.add(token);
+				if ("--".equals(token))
+					skipParsing = true;
+			}
+		}
+		return result.toArray(new String[0]);
+	}
+}
@@ -0,0 +1,273 @@
+package info.unterrainer.commons.cliutils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates static completion-scripts for a {@link CliSpec} and all of its
+ * subcommands.
+ * <p>
+ * The scripts contain everything needed to complete a command line (the names
+ * of the options and subcommands, the names of the arguments and the choices of
+ * enum-options), so pressing TAB never starts a JVM.
+ */
+final class Completion {
+
+	private static final class Node {
+		private final String path;
+		private final CliSpec spec;
+		private final List<Subcommand> subcommands;
+
+		private Node(final String path, final CliSpec spec) {
+			this.path = path;
+			this.spec = spec;
+			subcommands = new ArrayList<>(spec.subcommands.values());
+		}
+	}
+
+	private final String command;
+	private final String identifier;
+	private final List<Node> nodes = new ArrayList<>();
+
+	Completion(final CliSpec spec, final String command) {
+		this.command = command;
+		identifier = command.replaceAll("[^A-Za-z0-9_]", "_");
+		collect("", spec);
+	}
+
+	private void collect(final String path, final CliSpec spec) {
+		Node node = new Node(path, spec);
+		nodes.add(node);
+		for (Subcommand s : node.subcommands)
+			collect(path.isEmpty() ? s.name : path + " " + s.name, spec.subcommand(s));
+	}
+
+	String script(final Shell shell) {
+		switch (shell) {
+		case ZSH:
+			return zsh();
+		case FISH:
+			return fish();
+		default:
+			return bash();
+		}
+	}
+
+	private static String[] choices(final CliOption option) {
+		if (option.allowedValues() != null) {
+			String[] result = new String[option.allowedValues().size()];
+			for (int i = 0; i < result.length; i++)
+				result[i] = String.valueOf(option.allowedValues().get(i));
+			return result;
+		}
+		Class<?> type = option.type();
+		if (type != null && type.isEnum()) {
+			Object[] constants = type.getEnumConstants();
+			String[] result = new String[constants.length];
+			for (int i = 0; i < constants.length; i++)
+				result[i] = ((Enum<?>) constants[i]).name();
+			return result;
+		}
+		if (type == Boolean.class)
+			return new String[] { "true", "false" };
+		return null;
+	}
+
+	private static boolean completesFiles(final CliOption option) {
+		return option.type() == Path.class;
+	}
+
+	private static String[] argNames(final CliOption option) {
+		if (option.numberOfArgs() == CliOption.UNLIMITED)
+			return new String[] { "ARG..." };
+		if (option.argName() == null || option.argName().isEmpty())
+			return new String[] { "ARG" };
+		return option.argName().split("> <");
+	}
+
+	private List<String> paths() {
+		List<String> result = new ArrayList<>();
+		for (Node node : nodes)
+			if (!node.path.isEmpty())
+				result.add(node.path);
+		return result;
+	}
+
+	private String bash() {
+		String function = "_" + identifier + "_complete";
+		StringBuilder sb = new StringBuilder();
+		sb.append("# bash completion for ").append(command).append(", generated by cli-utils\n");
+		sb.append(function).append("() {\n");
+		sb.append("\tlocal cur=\"${COMP_WORDS[COMP_CWORD]}\" prev=\"${COMP_WORDS[COMP_CWORD-1]}\" cmd=\"\" next i\n");
+		if (nodes.size() > 1) {
+			sb.append("\tfor ((i = 1; i < COMP_CWORD; i++)); do\n");
+			sb.append("\t\tnext=\"${cmd:+$cmd }${COMP_WORDS[i]}\"\n");
+			sb.append("\t\tcase \"$next\" in\n");
+			sb.append("\t\t").append(String.join("|", quoted(paths(), '\''))).append(") cmd=\"$next\" ;;\n");
+			sb.append("\t\tesac\n");
+			sb.append("\tdone\n");
+		}
+		sb.append("\tcase \"$cmd\" in\n");
+		for (Node node : nodes) {
+			sb.append("\t'").append(node.path).append("')\n");
+			List<String> words = new ArrayList<>();
+			StringBuilder values = new StringBuilder();
+			for (CliOption o : node.spec.slots) {
+				List<String> names = new ArrayList<>();
+				names.add("--" + o.longName());
+				if (o.shortName() != null)
+					names.add("-" + o.shortName());
+				words.addAll(names);
+				if (o.numberOfArgs() == 0)
+					continue;
+				values.append("\t\t").append(String.join("|", names)).append(") ");
+				String[] choices = choices(o);
+				if (choices != null)
+					values.append("COMPREPLY=($(compgen -W \"").append(String.join(" ", choices))
+							.append("\" -- \"$cur\")); return ;;\n");
+				else if (completesFiles(o))
+					values.append("COMPREPLY=($(compgen -f -- \"$cur\")); return ;;\n");
+				else
+					values.append("return ;;\n");
+			}
+			for (Subcommand s : node.subcommands)
+				words.add(s.name);
+			if (values.length() > 0)
+				sb.append("\t\tcase \"$prev\" in\n").append(values).append("\t\tesac\n");
+			sb.append("\t\tCOMPREPLY=($(compgen -W \"").append(String.join(" ", words)).append("\" -- \"$cur\"))\n");
+			sb.append("\t\t;;\n");
+		}
+		sb.append("\tesac\n");
+		sb.append("}\n");
+		sb.append("complete -o default -F ").append(function).append(' ').append(command).append('\n');
+		return sb.toString();
+	}
+
+	private String zsh() {
+		String root = "_" + identifier;
+		StringBuilder sb = new StringBuilder();
+		sb.append("#compdef ").append(command).append("\n");
+		sb.append("# zsh completion for ").append(command).append(", generated by cli-utils\n");
+		for (Node node : nodes) {
+			String function = node.path.isEmpty() ? root : root + "_" + node.path.replace(' ', '_');
+			sb.append('\n').append(function).append("() {\n");
+			sb.append("\tlocal state line\n");
+			sb.append("\t_arguments -s -C");
+			for (CliOption o : node.spec.slots) {
+				sb.append(" \\\n\t\t");
+				String description = "[" + zshEscape(o.description() == null ? "" : o.description()) + "]";
+				if (o.shortName() == null)
+					sb.append("'--").append(o.longName()).append(description);
+				else
+					sb.append("'(-").append(o.shortName()).append(" --").append(o.longName()).append(")'{-")
+							.append(o.shortName()).append(",--").append(o.longName()).append("}'").append(description);
+				if (o.numberOfArgs() != 0) {
+					String[] choices = choices(o);
+					String action = choices != null ? "(" + String.join(" ", choices) + ")"
+							: completesFiles(o) ? "_files" : "";
+					for (String name : argNames(o))
+						sb.append(':').append(zshEscape(name)).append(':').append(action);
+				}
+				sb.append('\'');
+			}
+			if (node.subcommands.isEmpty())
+				sb.append(" \\\n\t\t'*:argument:_files'\n");
+			else {
+				sb.append(" \\\n\t\t'1:command:((");
+				for (int i = 0; i < node.subcommands.size(); i++) {
+					Subcommand s = node.subcommands.get(i);
+					if (i > 0)
+						sb.append(' ');
+					sb.append(s.name).append("\\:\"")
+							.append(s.description == null ? "" : s.description.replace("'", "'\\''").replace("\"", "\\\""))
+							.append('"');
+				}
+				sb.append("))' \\\n\t\t'*::arg:->args'\n");
+				sb.append("\tcase $state in\n");
+				sb.append("\targs)\n");
+				sb.append("\t\tcase $words[1] in\n");
+				for (Subcommand s : node.subcommands)
+					sb.append("\t\t").append(s.name).append(") ").append(function).append('_').append(s.name)
+							.append(" ;;\n");
+				sb.append("\t\tesac\n");
+				sb.append("\t\t;;\n");
+				sb.append("\tesac\n");
+			}
+			sb.append("}\n");
+		}
+		sb.append("\nif [ \"$funcstack[1]\" = \"").append(root).append("\" ]; then\n");
+		sb.append("\t").append(root).append(" \"$@\"\n");
+		sb.append("else\n");
+		sb.append("\tcompdef ").append(root).append(' ').append(command).append('\n');
+		sb.append("fi\n");
+		return sb.toString();
+	}
+
+	private static String zshEscape(final String s) {
+		return s.replace("\\", "\\\\")
+				.replace("'", "'\\''")
+				.replace("[", "\\[")
+				.replace("]", "\\]")
+				.replace(":", "\\:");
+	}
+
+	private String fish() {
+		String function = "__" + identifier + "_command";
+		StringBuilder sb = new StringBuilder();
+		sb.append("# fish completion for ").append(command).append(", generated by cli-utils\n");
+		sb.append("function ").append(function).append('\n');
+		sb.append("    set -l cmd\n");
+		if (nodes.size() > 1) {
+			sb.append("    for token in (commandline -opc)[2..-1]\n");
+			sb.append("        switch (string join ' ' $cmd $token)\n");
+			sb.append("            case ").append(String.join(" ", quoted(paths(), '\''))).append('\n');
+			sb.append("                set cmd $cmd $token\n");
+			sb.append("        end\n");
+			sb.append("    end\n");
+		}
+		sb.append("    test \"$cmd\" = \"$argv[1]\"\n");
+		sb.append("end\n\n");
+		sb.append("complete -c ").append(command).append(" -f\n");
+		for (Node node : nodes) {
+			String condition = " -n '" + function + " \"" + node.path + "\"'";
+			for (Subcommand s : node.subcommands) {
+				sb.append("complete -c ").append(command).append(condition).append(" -a ").append(fishQuote(s.name));
+				if (s.description != null)
+					sb.append(" -d ").append(fishQuote(s.description));
+				sb.append('\n');
+			}
+			for (CliOption o : node.spec.slots) {
+				sb.append("complete -c ").append(command).append(condition).append(" -l ").append(o.longName());
+				if (o.shortName() != null)
+					sb.append(" -s ").append(o.shortName());
+				String description = o.description() == null ? "" : o.description();
+				if (o.numberOfArgs() != 0) {
+					description = (description.isEmpty() ? "" : description + " ") + "<"
+							+ String.join("> <", argNames(o)) + ">";
+					sb.append(" -r");
+					String[] choices = choices(o);
+					if (choices != null)
+						sb.append(" -a ").append(fishQuote(String.join(" ", choices)));
+					else if (completesFiles(o))
+						sb.append(" -F");
+				}
+				if (!description.isEmpty())
+					sb.append(" -d ").append(fishQuote(description));
+				sb.append('\n');
+			}
+		}
+		return sb.toString();
+	}
+
+	private static String fishQuote(final String s) {
+		return "'" + s.replace("\\", "\\\\").replace("'", "\\'") + "'";
+	}
+
+	private static List<String> quoted(final List<String> values, final char quote) {
+		List<String> result = new ArrayList<>(values.size());
+		for (String v : values)
+			result.add(quote + v + quote);
+		return result;
+	}
+}
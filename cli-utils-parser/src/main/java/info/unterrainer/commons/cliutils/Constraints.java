@@ -0,0 +1,242 @@
+package info.unterrainer.commons.cliutils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * The constraints of a {@link CliSpec} compiled into bit-masks over its slots.
+ * <p>
+ * Validating a parsed command line is a number of popcount- and mask-checks
+ * over the bit-set of the options present. Error messages are only formatted
+ * if a check fails.
+ */
+final class Constraints {
+
+	private enum CalculationType {
+		MIN, EXACTLY, MAX
+	}
+
+	private static final class NRequired {
+		private final CalculationType calculationType;
+		private final Occurrences occurrences;
+		private final long[] mask;
+
+		private NRequired(final CalculationType calculationType, final Occurrences occurrences, final long[] mask) {
+			this.calculationType = calculationType;
+			this.occurrences = occurrences;
+			this.mask = mask;
+		}
+	}
+
+	private final CliOption[] slots;
+	private final NRequired[] nRequired;
+	// Indexed by slot; null if the option doesn't require or exclude anything.
+	private final long[][] requires;
+	private final long[][] excludes;
+	private final long[] constrained;
+
+	Constraints(final CliOption[] slots, final ToIntFunction<String> slotOf, final Set<Occurrences> minNRequired,
+			final Set<Occurrences> exactlyNRequired, final Set<Occurrences> maxNRequired,
+			final Map<String, Set<String>> dependencies, final Map<String, Set<String>> exclusions) {
+		this.slots = slots;
+		List<NRequired> n = new ArrayList<>();
+		compile(CalculationType.MIN, minNRequired, slotOf, n);
+		compile(CalculationType.EXACTLY, exactlyNRequired, slotOf, n);
+		compile(CalculationType.MAX, maxNRequired, slotOf, n);
+		nRequired = n.toArray(new NRequired[0]);
+
+		long[][] direct = edges(dependencies, slotOf);
+		excludes = edges(exclusions, slotOf);
+
+		// Exclusions are symmetric.
+		for (int i = 0; i < slots.length; i++)
+			if (excludes[i] != null) {
+				int option = i;
+				Bits.forEach(excludes[i], j -> {
+					if (excludes[j] == null)
+						excludes[j] = Bits.create(slots.length);
+					Bits.set(excludes[j], option);
+				});
+			}
+
+		requires = new long[slots.length][];
+		int[] state = new int[slots.length];
+		for (int i = 0; i < slots.length; i++)
+			close(i, direct, state, new ArrayList<>());
+		checkSatisfiable();
+
+		constrained = Bits.create(slots.length);
+		for (int i = 0; i < slots.length; i++)
+			if (requires[i] != null || excludes[i] != null)
+				Bits.set(constrained, i);
+	}
+
+	/**
+	 * Makes sure that all options used by the given constraints exist.
+	 *
+	 * @throws IllegalStateException if they don't
+	 */
+	static void checkAvailability(final ToIntFunction<String> slotOf, final Set<Occurrences> minNRequired,
+			final Set<Occurrences> exactlyNRequired, final Set<Occurrences> maxNRequired,
+			final Map<String, Set<String>> dependencies, final Map<String, Set<String>> exclusions) {
+		Set<String> names = new LinkedHashSet<>();
+		for (Set<Occurrences> occurrences : List.of(minNRequired, exactlyNRequired, maxNRequired))
+			for (Occurrences o : occurrences)
+				names.addAll(o.names());
+		for (Map<String, Set<String>> map : List.of(dependencies, exclusions))
+			for (Map.Entry<String, Set<String>> e : map.entrySet()) {
+				names.add(e.getKey());
+				names.addAll(e.getValue());
+			}
+		Set<String> unknownOptions = new LinkedHashSet<>();
+		for (String name : names)
+			if (slotOf.applyAsInt(name) == -1)
+				unknownOptions.add(name);
+		if (!unknownOptions.isEmpty())
+			throw new IllegalStateException("Unknown option: " + unknownOptions);
+	}
+
+	private long[][] edges(final Map<String, Set<String>> map, final ToIntFunction<String> slotOf) {
+		long[][] result = new long[slots.length][];
+		for (Map.Entry<String, Set<String>> e : map.entrySet())
+			result[slotOf.applyAsInt(e.getKey())] = mask(e.getValue(), slotOf);
+		return result;
+	}
+
+	/**
+	 * Computes the transitive closure of the requirements of the given option
+	 * using a depth-first search, detecting cycles on the way.
+	 */
+	private void close(final int option, final long[][] direct, final int[] state, final List<Integer> path) {
+		if (state[option] == 2 || direct[option] == null) {
+			state[option] = 2;
+			return;
+		}
+		if (state[option] == 1) {
+			StringBuilder cycle = new StringBuilder();
+			for (int i = path.indexOf(option); i < path.size(); i++)
+				cycle.append(slots[path.get(i)].longName()).append(" -> ");
+			throw new IllegalStateException("Cyclic dependency: " + cycle + slots[option].longName());
+		}
+		state[option] = 1;
+		path.add(option);
+		long[] closure = direct[option].clone();
+		Bits.forEach(direct[option], child -> {
+			close(child, direct, state, path);
+			if (requires[child] != null)
+				Bits.or(closure, requires[child]);
+		});
+		path.remove(path.size() - 1);
+		requires[option] = closure;
+		state[option] = 2;
+	}
+
+	/**
+	 * Makes sure that no option requires (directly or transitively) two options
+	 * that exclude each other.
+	 */
+	private void checkSatisfiable() {
+		for (int i = 0; i < slots.length; i++) {
+			if (requires[i] == null)
+				continue;
+			long[] all = requires[i].clone();
+			Bits.set(all, i);
+			int option = i;
+			Bits.forEach(all, j -> {
+				if (excludes[j] != null && Bits.countAnd(excludes[j], all) > 0)
+					throw new IllegalStateException(String.format(
+							"Option '%s' can never be used, since it requires '%s' which excludes one of: %s",
+							slots[option].longName(), slots[j].longName(), names(excludes[j], all, true)));
+			});
+		}
+	}
+
+	private void compile(final CalculationType calculationType, final Set<Occurrences> occurrences,
+			final ToIntFunction<String> slotOf, final List<NRequired> result) {
+		for (Occurrences o : occurrences)
+			result.add(new NRequired(calculationType,
+					new Occurrences(o.numberOfOccurrences(), o.names().toArray(new String[0])),
+					mask(o.names(), slotOf)));
+	}
+
+	private long[] mask(final Collection<String> names, final ToIntFunction<String> slotOf) {
+		long[] result = Bits.create(slots.length);
+		for (String name : names)
+			Bits.set(result, slotOf.applyAsInt(name));
+		return result;
+	}
+
+	/**
+	 * Validates the given bit-set of the options present on the command line.
+	 *
+	 * @param present the options present
+	 * @throws IllegalStateException if a constraint is violated
+	 */
+	void validate(final long[] present) {
+		validateNRequired(present);
+		validateDependencies(present);
+	}
+
+	void validateNRequired(final long[] present) {
+		for (NRequired required : nRequired) {
+			int sum = Bits.countAnd(present, required.mask);
+			int n = required.occurrences.numberOfOccurrences();
+			switch (required.calculationType) {
+			case MIN:
+				if (sum < n)
+					throw new IllegalStateException(
+							String.format("You should use at least %s of these options: '%s'", n, names(required)));
+				break;
+			case EXACTLY:
+				if (sum != n)
+					throw new IllegalStateException(
+							String.format("You should use exactly %s of these options: '%s'", n, names(required)));
+				break;
+			case MAX:
+				if (sum > n)
+					throw new IllegalStateException(
+							String.format("You should use at most %s of these options: '%s'", n, names(required)));
+				break;
+			}
+		}
+	}
+
+	void validateDependencies(final long[] present) {
+		for (int w = 0; w < present.length; w++) {
+			long word = present[w] & constrained[w];
+			while (word != 0) {
+				int i = w << 6 | Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+				if (requires[i] != null && !Bits.containsAll(present, requires[i]))
+					throw new IllegalStateException(String.format("With '%s' option you must also specify these: %s",
+							slots[i].longName(), names(requires[i], present, false)));
+				if (excludes[i] != null && Bits.countAnd(excludes[i], present) > 0)
+					throw new IllegalStateException(String.format("Option '%s' can't be used together with: %s",
+							slots[i].longName(), names(excludes[i], present, true)));
+			}
+		}
+	}
+
+	/**
+	 * Returns the names of all options in the mask that are (or are not) set in
+	 * the given bit-set.
+	 */
+	private Set<String> names(final long[] mask, final long[] bits, final boolean set) {
+		Set<String> result = new LinkedHashSet<>();
+		Bits.forEach(mask, i -> {
+			if (Bits.get(bits, i) == set)
+				result.add(slots[i].longName());
+		});
+		return result;
+	}
+
+	private static String names(final NRequired required) {
+		return required.occurrences.names().stream().sorted().collect(Collectors.joining("', '"));
+	}
+}
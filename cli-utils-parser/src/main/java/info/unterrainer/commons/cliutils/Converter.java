@@ -0,0 +1,21 @@
+package info.unterrainer.commons.cliutils;
+
+/**
+ * Converts the textual value of an option to its type.
+ *
+ * @param <T> the type of the converted value
+ * @see Converters#register(Class, Converter)
+ */
+@FunctionalInterface
+public interface Converter<T> {
+
+	/**
+	 * Converts the given value.
+	 *
+	 * @param value the value as given on the command line
+	 * @return the converted value
+	 * @throws Exception if the value is invalid; the exception's message is
+	 *                   reported to the user
+	 */
+	T convert(String value) throws Exception;
+}
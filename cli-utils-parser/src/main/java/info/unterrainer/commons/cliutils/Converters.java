@@ -0,0 +1,96 @@
+package info.unterrainer.commons.cliutils;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * The registry of the {@link Converter}s used to convert the values of options
+ * by their type.
+ * <p>
+ * Supported out of the box are String, Integer, Long, Float, Double, Boolean,
+ * BigDecimal, Duration (ISO-8601 or like '500ms', '1.5s'), Path, URI,
+ * InetSocketAddress ('host:port') and all enums. Sizes like '512M' are
+ * supported by {@link Arg#ByteSize(String)}.
+ * <p>
+ * The converter of an option is resolved once when its spec is compiled,
+ * looking at the option itself ({@link Arg#converter(Converter)}), its builder
+ * ({@link CliParserBuilder#registerConverter(Class, Converter)}) and this
+ * registry, in that order.
+ */
+public final class Converters {
+
+	private static final Map<Class<?>, Converter<?>> REGISTRY = new ConcurrentHashMap<>();
+
+	private Converters() {
+	}
+
+	/**
+	 * Registers a converter for all options of the given type that don't have a
+	 * converter of their own. Replaces the built-in converter of that type, if
+	 * any.
+	 *
+	 * @param <T>       the type
+	 * @param type      the type
+	 * @param converter the converter
+	 */
+	public static <T> void register(final Class<T> type, final Converter<T> converter) {
+		REGISTRY.put(type, converter);
+	}
+
+	/**
+	 * Returns the converter for the given type.
+	 *
+	 * @param <T>  the type
+	 * @param type the type
+	 * @return the converter or null, if there is none
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static <T> Converter<T> find(final Class<T> type) {
+		Converter<?> converter = REGISTRY.get(type);
+		if (converter == null)
+			converter = BuiltinConverter.of(type);
+		if (converter == null && type.isEnum())
+			converter = REGISTRY.computeIfAbsent(type, t -> new EnumConverter(t));
+		return (Converter<T>) converter;
+	}
+
+	/**
+	 * Returns true, if the given converter is one of the converters supported
+	 * out of the box, whose behavior only depends on the type it converts to.
+	 *
+	 * @param converter the converter
+	 * @return true, if it's built-in
+	 */
+	static boolean isBuiltin(final Converter<?> converter) {
+		return converter instanceof BuiltinConverter || converter instanceof EnumConverter;
+	}
+
+	/**
+	 * Converts the names of the constants of an enum, ignoring their case if
+	 * there's no exact match.
+	 */
+	private static final class EnumConverter<E extends Enum<E>> implements Converter<E> {
+
+		private final Class<E> type;
+
+		private EnumConverter(final Class<E> type) {
+			this.type = type;
+		}
+
+		@Override
+		public E convert(final String value) {
+			E[] constants = type.getEnumConstants();
+			for (E e : constants)
+				if (e.name().equals(value))
+					return e;
+			for (E e : constants)
+				if (e.name().toLowerCase(Locale.ROOT).equals(value.toLowerCase(Locale.ROOT)))
+					return e;
+			throw new IllegalArgumentException("Expected one of: "
+					+ Arrays.stream(constants).map(Enum::name).collect(Collectors.joining(", ")));
+		}
+	}
+}
@@ -1,7 +1,5 @@
 package info.unterrainer.commons.cliutils;
 
-import org.apache.commons.cli.Option;
-
 public class Flag {
 
 	protected String shortName;
@@ -18,8 +16,12 @@ public class Flag {
 	}
 
 	void addToOptions(final CliParserBuilder parent) {
-		parent.options.put(longName, new CliOption()
-				.option(Option.builder(shortName).required(isRequired).longOpt(longName).desc(description).build()));
+		parent.options.put(longName, describe(new CliOption()));
+	}
+
+	CliOption describe(final CliOption option) {
+		return option.handle(this)
+				.longName(longName).shortName(shortName).description(description).required(isRequired);
 	}
 
 	public Flag shortName(final String shortName) {
@@ -0,0 +1,215 @@
+package info.unterrainer.commons.cliutils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders the help of a {@link CliSpec} in the layout of the Apache Commons CLI
+ * {@code HelpFormatter}.
+ * <p>
+ * The text is laid out once per terminal-width and cached, so printing the help
+ * (which happens on every parse-error) is a single write of a precomputed
+ * string.
+ */
+final class HelpRenderer {
+
+	static final int DEFAULT_WIDTH = 74;
+	private static final int LEFT_PAD = 1;
+	private static final int DESC_PAD = 3;
+	private static final String NEW_LINE = System.lineSeparator();
+
+	private final String syntax;
+	private final String header;
+	private final CliOption[] options;
+	private final Map<String, String> commands;
+	private final Map<Integer, String> cache = new ConcurrentHashMap<>();
+
+	HelpRenderer(final String syntax, final String header, final CliOption[] options) {
+		this(syntax, header, options, Map.of());
+	}
+
+	HelpRenderer(final String syntax, final String header, final CliOption[] options,
+			final Map<String, String> commands) {
+		this.syntax = syntax;
+		this.header = header;
+		this.options = options.clone();
+		this.commands = commands;
+		Arrays.sort(this.options, Comparator.comparing(HelpRenderer::key, String::compareToIgnoreCase));
+	}
+
+	private static String key(final CliOption option) {
+		return option.shortName() == null ? option.longName() : option.shortName();
+	}
+
+	void print(final Writer out, final int width) {
+		try {
+			out.write(render(width));
+			out.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	String render(final int width) {
+		return cache.computeIfAbsent(width, this::layout);
+	}
+
+	private String layout(final int width) {
+		StringBuilder sb = new StringBuilder();
+		wrapped(sb, width, usage().indexOf(' ') + 1, usage());
+		sb.append(NEW_LINE);
+		if (header != null && !header.isEmpty()) {
+			wrapped(sb, width, 0, header);
+			sb.append(NEW_LINE);
+		}
+		options(sb, width);
+		sb.append(NEW_LINE);
+		if (!commands.isEmpty()) {
+			sb.append(NEW_LINE).append("commands:").append(NEW_LINE);
+			commands(sb, width);
+			sb.append(NEW_LINE);
+		}
+		return sb.toString();
+	}
+
+	private String usage() {
+		StringBuilder sb = new StringBuilder("usage: ").append(syntax).append(' ');
+		for (int i = 0; i < options.length; i++) {
+			CliOption o = options[i];
+			if (!o.required())
+				sb.append('[');
+			if (o.shortName() != null)
+				sb.append('-').append(o.shortName());
+			else
+				sb.append("--").append(o.longName());
+			if (o.numberOfArgs() != 0 && (o.argName() == null || !o.argName().isEmpty()))
+				sb.append(" <").append(argName(o)).append('>');
+			if (!o.required())
+				sb.append(']');
+			if (i < options.length - 1)
+				sb.append(' ');
+		}
+		if (!commands.isEmpty())
+			sb.append(" <command> [<args>]");
+		return sb.toString();
+	}
+
+	private static String argName(final CliOption option) {
+		return option.argName() == null ? "arg" : option.argName();
+	}
+
+	private void options(final StringBuilder sb, final int width) {
+		String[] prefixes = new String[options.length];
+		int max = 0;
+		for (int i = 0; i < options.length; i++) {
+			CliOption o = options[i];
+			StringBuilder prefix = new StringBuilder(" ".repeat(LEFT_PAD));
+			if (o.shortName() == null)
+				prefix.append("   --").append(o.longName());
+			else {
+				prefix.append('-').append(o.shortName());
+				if (o.longName() != null)
+					prefix.append(",--").append(o.longName());
+			}
+			if (o.numberOfArgs() != 0) {
+				if (o.argName() != null && o.argName().isEmpty())
+					prefix.append(' ');
+				else
+					prefix.append(" <").append(argName(o)).append('>');
+			}
+			prefixes[i] = prefix.toString();
+			max = Math.max(max, prefixes[i].length());
+		}
+
+		for (int i = 0; i < options.length; i++) {
+			StringBuilder line = new StringBuilder(prefixes[i]);
+			line.append(" ".repeat(max - line.length())).append(" ".repeat(DESC_PAD));
+			if (options[i].description() != null)
+				line.append(options[i].description());
+			wrap(sb, width, max + DESC_PAD, line.toString());
+			if (i < options.length - 1)
+				sb.append(NEW_LINE);
+		}
+	}
+
+	private void commands(final StringBuilder sb, final int width) {
+		int max = 0;
+		for (String name : commands.keySet())
+			max = Math.max(max, name.length());
+		int i = 0;
+		for (Map.Entry<String, String> e : commands.entrySet()) {
+			StringBuilder line = new StringBuilder(" ".repeat(LEFT_PAD)).append(e.getKey());
+			line.append(" ".repeat(LEFT_PAD + max - line.length())).append(" ".repeat(DESC_PAD));
+			if (e.getValue() != null)
+				line.append(e.getValue());
+			wrap(sb, width, LEFT_PAD + max + DESC_PAD, line.toString());
+			if (++i < commands.size())
+				sb.append(NEW_LINE);
+		}
+	}
+
+	private static void wrapped(final StringBuilder sb, final int width, final int nextLineTabStop,
+			final String text) {
+		String[] lines = text.split("\\r?\\n", -1);
+		for (int i = 0; i < lines.length; i++) {
+			if (i > 0)
+				sb.append(NEW_LINE);
+			wrap(sb, width, nextLineTabStop, lines[i]);
+		}
+	}
+
+	private static void wrap(final StringBuilder sb, final int width, final int tabStop, final String line) {
+		String text = line;
+		int pos = wrapPosition(text, width);
+		if (pos == -1) {
+			sb.append(trimEnd(text));
+			return;
+		}
+		sb.append(trimEnd(text.substring(0, pos))).append(NEW_LINE);
+
+		int nextLineTabStop = tabStop >= width ? 1 : tabStop;
+		String padding = " ".repeat(nextLineTabStop);
+		while (true) {
+			text = padding + text.substring(pos).trim();
+			pos = wrapPosition(text, width);
+			if (pos == -1) {
+				sb.append(text);
+				return;
+			}
+			if (text.length() > width && pos == nextLineTabStop - 1)
+				pos = width;
+			sb.append(trimEnd(text.substring(0, pos))).append(NEW_LINE);
+		}
+	}
+
+	private static int wrapPosition(final String text, final int width) {
+		int pos = text.indexOf('\n');
+		if (pos != -1 && pos <= width)
+			return pos + 1;
+		pos = text.indexOf('\t');
+		if (pos != -1 && pos <= width)
+			return pos + 1;
+		if (width >= text.length())
+			return -1;
+		for (pos = width; pos >= 0; --pos) {
+			char c = text.charAt(pos);
+			if (c == ' ' || c == '\n' || c == '\r')
+				break;
+		}
+		if (pos > 0)
+			return pos;
+		return width == text.length() ? -1 : width;
+	}
+
+	private static String trimEnd(final String s) {
+		int end = s.length();
+		while (end > 0 && Character.isWhitespace(s.charAt(end - 1)))
+			end--;
+		return s.substring(0, end);
+	}
+}
@@ -0,0 +1,383 @@
+package info.unterrainer.commons.cliutils;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single-pass parser working directly on the slots of a {@link CliSpec}.
+ * <p>
+ * It follows the rules of the commons-cli {@code DefaultParser} (long options
+ * with and without '=', abbreviated long options, short options with attached
+ * values, concatenated short flags, '--' to stop option parsing and quoted
+ * values), but resolves names using the precomputed {@link OptionTrie}s of
+ * the spec and doesn't throw exceptions. Errors are reported using
+ * {@link ParsedLine#error}.
+ */
+final class NativeParser {
+
+	private final CliSpec spec;
+	private final ParsedLine line;
+	private final Path workingDirectory;
+	private boolean skipParsing;
+	private int current = -1;
+	private int currentValues;
+
+	private NativeParser(final CliSpec spec, final Path workingDirectory) {
+		this.spec = spec;
+		this.workingDirectory = workingDirectory;
+		line = new ParsedLine(spec.slots, false);
+	}
+
+	static ParsedLine parse(final CliSpec spec, final String[] args, final Path workingDirectory) {
+		NativeParser parser = new NativeParser(spec, workingDirectory);
+		if (args != null)
+			for (String token : args) {
+				if (token == null)
+					continue;
+				if (spec.argFiles && !parser.skipParsing && token.length() > 1 && token.charAt(0) == '@')
+					parser.handleArgFile(token.substring(1));
+				else
+					parser.handleToken(token);
+				if (parser.line.error != null)
+					return parser.line;
+			}
+		parser.finish();
+		return parser.line;
+	}
+
+	/**
+	 * Parses the tokens of a response-file.
+	 * <p>
+	 * Runs of values of an option accepting an unlimited number of arguments are
+	 * not decoded, but stored as a segment of the file that is tokenized again
+	 * when the values are read.
+	 */
+	private void handleArgFile(final String fileName) {
+		ArgFile file;
+		try {
+			file = ArgFile.open(ArgFile.path(workingDirectory, fileName));
+		} catch (IOException | InvalidPathException e) {
+			line.error = String.format("Cannot read argument file '%s': %s", fileName, e.getMessage());
+			return;
+		}
+		ArgFile.Tokenizer tokenizer = file.tokenizer();
+		boolean hasToken = tokenizer.next();
+		while (hasToken) {
+			if (!skipParsing && current != -1 && spec.slots[current].numberOfArgs() == CliOption.UNLIMITED
+					&& isValue(tokenizer.view())) {
+				int from = tokenizer.start();
+				int to;
+				do {
+					to = tokenizer.end();
+					hasToken = tokenizer.next();
+				} while (hasToken && isValue(tokenizer.view()));
+				line.add(current, file.segment(from, to));
+				currentValues++;
+				continue;
+			}
+			handleToken(tokenizer.token());
+			if (line.error != null)
+				return;
+			hasToken = tokenizer.next();
+		}
+	}
+
+	private void handleToken(final String token) {
+		if (skipParsing)
+			line.args.add(token);
+		else if ("--".equals(token))
+			skipParsing = true;
+		else if (current != -1 && acceptsArg() && isArgument(token))
+			addValue(stripQuotes(token));
+		else if (token.startsWith("--"))
+			handleLongOption(token, 2);
+		else if (token.length() > 1 && token.charAt(0) == '-')
+			handleShortAndLongOption(token);
+		else
+			handleUnknownToken(token);
+
+		if (current != -1 && !acceptsArg())
+			current = -1;
+	}
+
+	private void finish() {
+		if (line.error != null)
+			return;
+		checkRequiredArgs();
+		if (line.error != null)
+			return;
+		List<String> missing = null;
+		for (int i : spec.requiredSlots)
+			if (!line.isSet(i)) {
+				if (missing == null)
+					missing = new ArrayList<>();
+				missing.add(key(spec.slots[i]));
+			}
+		if (missing != null)
+			line.error = String.format("Missing required option%s: %s", missing.size() == 1 ? "" : "s",
+					String.join(", ", missing));
+	}
+
+	private void handleLongOption(final String token, final int from) {
+		int pos = token.indexOf('=', from);
+		int to = pos == -1 ? token.length() : pos;
+		int slot = spec.longNames.abbreviated(token, from, to);
+		if (slot == OptionTrie.NONE) {
+			handleUnknownToken(token);
+			return;
+		}
+		if (slot == OptionTrie.AMBIGUOUS) {
+			line.error = spec.ambiguityMessage(token.substring(from, to));
+			return;
+		}
+		if (pos == -1) {
+			handleOption(slot);
+			return;
+		}
+		if (!takesArgs(slot)) {
+			handleUnknownToken(token);
+			return;
+		}
+		handleOption(slot);
+		addValue(token.substring(pos + 1));
+		current = -1;
+	}
+
+	private void handleShortAndLongOption(final String token) {
+		int length = token.length();
+		int pos = token.indexOf('=', 1);
+
+		if (length == 2) {
+			int slot = spec.shortNames.exact(token, 1, 2);
+			if (slot == OptionTrie.NONE)
+				handleUnknownToken(token);
+			else
+				handleOption(slot);
+			return;
+		}
+
+		if (pos == -1) {
+			int slot = spec.shortNames.exact(token, 1, length);
+			if (slot != OptionTrie.NONE) {
+				handleOption(slot);
+				return;
+			}
+			slot = spec.longNames.abbreviated(token, 1, length);
+			if (slot != OptionTrie.NONE) {
+				handleLongOption(token, 1);
+				return;
+			}
+			int prefix = Math.max(spec.shortNames.longestPrefix(token, 1, length),
+					spec.longNames.longestPrefix(token, 1, length));
+			if (prefix > 0) {
+				slot = anyName(token, 1, 1 + prefix);
+				if (takesArgs(slot)) {
+					handleOption(slot);
+					addValue(token.substring(1 + prefix));
+					current = -1;
+					return;
+				}
+			}
+			slot = anyName(token, 1, 2);
+			if (isJavaProperty(slot)) {
+				handleOption(slot);
+				addValue(token.substring(2));
+				current = -1;
+				return;
+			}
+			handleConcatenatedOptions(token);
+			return;
+		}
+
+		if (pos == 2) {
+			int slot = anyName(token, 1, 2);
+			if (takesArgs(slot)) {
+				handleOption(slot);
+				addValue(token.substring(pos + 1));
+				current = -1;
+			} else
+				handleUnknownToken(token);
+			return;
+		}
+
+		int slot = anyName(token, 1, 2);
+		if (isJavaProperty(slot)) {
+			handleOption(slot);
+			addValue(token.substring(2, pos));
+			addValue(token.substring(pos + 1));
+			current = -1;
+			return;
+		}
+		handleLongOption(token, 1);
+	}
+
+	private void handleConcatenatedOptions(final String token) {
+		for (int i = 1; i < token.length(); i++) {
+			int slot = anyName(token, i, i + 1);
+			if (slot == OptionTrie.NONE) {
+				handleUnknownToken(token);
+				return;
+			}
+			handleOption(slot);
+			if (line.error != null)
+				return;
+			if (current != -1 && token.length() != i + 1) {
+				addValue(token.substring(i + 1));
+				return;
+			}
+		}
+	}
+
+	private void handleUnknownToken(final String token) {
+		if (token.length() > 1 && token.charAt(0) == '-') {
+			line.error = "Unrecognized option: " + token;
+			return;
+		}
+		line.args.add(token);
+	}
+
+	private void handleOption(final int slot) {
+		checkRequiredArgs();
+		if (line.error != null)
+			return;
+		line.set(slot);
+		if (takesArgs(slot)) {
+			current = slot;
+			currentValues = 0;
+		} else
+			current = -1;
+	}
+
+	private void checkRequiredArgs() {
+		if (current == -1)
+			return;
+		CliOption o = spec.slots[current];
+		if (o.optionalArg())
+			return;
+		if (o.numberOfArgs() == CliOption.UNLIMITED ? currentValues == 0 : acceptsArg())
+			line.error = "Missing argument for option: " + key(o);
+	}
+
+	private void addValue(final String value) {
+		CliOption o = spec.slots[current];
+		int max = o.numberOfArgs();
+		if (max == CliOption.UNLIMITED || max == 1) {
+			line.add(current, value);
+			currentValues++;
+			return;
+		}
+		// A fixed number of arguments greater than one; split until that number is
+		// reached.
+		char separator = o.valueSeparator();
+		String v = value;
+		int index;
+		while ((index = v.indexOf(separator)) != -1 && currentValues < max - 1) {
+			line.add(current, v.substring(0, index));
+			currentValues++;
+			v = v.substring(index + 1);
+		}
+		line.add(current, v);
+		currentValues++;
+	}
+
+	private boolean acceptsArg() {
+		int max = spec.slots[current].numberOfArgs();
+		return max == CliOption.UNLIMITED || currentValues < max;
+	}
+
+	private boolean takesArgs(final int slot) {
+		return slot >= 0 && spec.slots[slot].numberOfArgs() != 0;
+	}
+
+	private boolean isJavaProperty(final int slot) {
+		if (slot < 0)
+			return false;
+		int max = spec.slots[slot].numberOfArgs();
+		return max >= 2 || max == CliOption.UNLIMITED;
+	}
+
+	private static String key(final CliOption o) {
+		return o.shortName() == null ? o.longName() : o.shortName();
+	}
+
+	private int anyName(final String token, final int from, final int to) {
+		int slot = spec.shortNames.exact(token, from, to);
+		return slot != OptionTrie.NONE ? slot : spec.longNames.exact(token, from, to);
+	}
+
+	/**
+	 * Returns true, if the given token of a response-file continues a run of
+	 * values. '--' ends the run (and option parsing), like on the command line.
+	 */
+	private boolean isValue(final CharSequence token) {
+		return !(token.length() == 2 && token.charAt(0) == '-' && token.charAt(1) == '-') && isArgument(token);
+	}
+
+	private boolean isArgument(final CharSequence token) {
+		return !isOption(token) || isNumber(token);
+	}
+
+	private boolean isOption(final CharSequence token) {
+		int length = token.length();
+		if (length < 2 || token.charAt(0) != '-')
+			return false;
+		int from = token.charAt(1) == '-' ? 2 : 1;
+		int to = from;
+		while (to < length && token.charAt(to) != '=')
+			to++;
+		if (spec.longNames.abbreviated(token, from, to) != OptionTrie.NONE)
+			return true;
+		if (from == 2)
+			return false;
+		if (spec.shortNames.exact(token, 1, to) != OptionTrie.NONE || spec.longNames.longestPrefix(token, 1, length) > 0
+				|| spec.shortNames.longestPrefix(token, 1, length) > 0)
+			return true;
+		return to > 1 && spec.shortNames.exact(token, 1, 2) != OptionTrie.NONE;
+	}
+
+	/**
+	 * A cheap check if the given token is a (negative) decimal number.
+	 */
+	static boolean isNumber(final CharSequence token) {
+		int length = token.length();
+		int i = 0;
+		if (i < length && (token.charAt(i) == '-' || token.charAt(i) == '+'))
+			i++;
+		boolean digits = false;
+		while (i < length && Character.isDigit(token.charAt(i))) {
+			i++;
+			digits = true;
+		}
+		if (i < length && token.charAt(i) == '.') {
+			i++;
+			while (i < length && Character.isDigit(token.charAt(i))) {
+				i++;
+				digits = true;
+			}
+		}
+		if (!digits)
+			return false;
+		if (i < length && (token.charAt(i) == 'e' || token.charAt(i) == 'E')) {
+			i++;
+			if (i < length && (token.charAt(i) == '-' || token.charAt(i) == '+'))
+				i++;
+			int start = i;
+			while (i < length && Character.isDigit(token.charAt(i)))
+				i++;
+			if (i == start)
+				return false;
+		}
+		return i == length;
+	}
+
+	static String stripQuotes(final String token) {
+		int length = token.length();
+		if (length > 1 && token.charAt(0) == '"' && token.charAt(length - 1) == '"'
+				&& token.indexOf('"', 1) == length - 1)
+			return token.substring(1, length - 1);
+		return token;
+	}
+}
@@ -0,0 +1,106 @@
+package info.unterrainer.commons.cliutils;
+
+/**
+ * Parses numbers directly from a range of a {@link CharSequence} without
+ * creating a sub-string first.
+ * <p>
+ * Decimal numbers that can be represented exactly (a mantissa of up to 53
+ * bits (24 bits for floats) and a small exponent) are converted using a
+ * single, correctly rounded multiplication or division. Everything else (like
+ * 'NaN', hexadecimal notation or very long mantissas) falls back to the JDK
+ * implementation.
+ */
+final class Numbers {
+
+	private static final double[] DOUBLE_POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+			1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+	private static final float[] FLOAT_POWERS_OF_TEN = { 1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f,
+			1e10f };
+	private static final long MAX_EXACT_DOUBLE_MANTISSA = 1L << 53;
+	private static final long MAX_EXACT_FLOAT_MANTISSA = 1L << 24;
+
+	// A decimal is packed into a long: the mantissa (up to 53 bits) in the upper
+	// bits, the exponent (offset by 32) in bits 1 to 6 and the sign in bit 0.
+	private static final long NO_FAST_PATH = -1L;
+	private static final int EXPONENT_OFFSET = 32;
+
+	private Numbers() {
+	}
+
+	static int parseInt(final CharSequence s, final int from, final int to) {
+		return Integer.parseInt(s, from, to, 10);
+	}
+
+	static double parseDouble(final CharSequence s, final int from, final int to) {
+		long d = decimal(s, from, to, MAX_EXACT_DOUBLE_MANTISSA, DOUBLE_POWERS_OF_TEN.length - 1);
+		if (d == NO_FAST_PATH)
+			return Double.parseDouble(s.subSequence(from, to).toString());
+		double value = d >>> 7;
+		int exponent = (int) ((d >>> 1) & 0x3F) - EXPONENT_OFFSET;
+		value = exponent < 0 ? value / DOUBLE_POWERS_OF_TEN[-exponent] : value * DOUBLE_POWERS_OF_TEN[exponent];
+		return (d & 1) == 1 ? -value : value;
+	}
+
+	static float parseFloat(final CharSequence s, final int from, final int to) {
+		long d = decimal(s, from, to, MAX_EXACT_FLOAT_MANTISSA, FLOAT_POWERS_OF_TEN.length - 1);
+		if (d == NO_FAST_PATH)
+			return Float.parseFloat(s.subSequence(from, to).toString());
+		float value = d >>> 7;
+		int exponent = (int) ((d >>> 1) & 0x3F) - EXPONENT_OFFSET;
+		value = exponent < 0 ? value / FLOAT_POWERS_OF_TEN[-exponent] : value * FLOAT_POWERS_OF_TEN[exponent];
+		return (d & 1) == 1 ? -value : value;
+	}
+
+	private static long decimal(final CharSequence s, final int from, final int to, final long maxMantissa,
+			final int maxExponent) {
+		int i = from;
+		boolean negative = false;
+		if (i < to && (s.charAt(i) == '-' || s.charAt(i) == '+'))
+			negative = s.charAt(i++) == '-';
+
+		long mantissa = 0;
+		int exponent = 0;
+		int digits = 0;
+		for (; i < to; i++) {
+			char c = s.charAt(i);
+			if (c < '0' || c > '9')
+				break;
+			mantissa = mantissa * 10 + (c - '0');
+			if (++digits > 15)
+				return NO_FAST_PATH;
+		}
+		if (i < to && s.charAt(i) == '.')
+			for (i++; i < to; i++) {
+				char c = s.charAt(i);
+				if (c < '0' || c > '9')
+					break;
+				mantissa = mantissa * 10 + (c - '0');
+				exponent--;
+				if (++digits > 15)
+					return NO_FAST_PATH;
+			}
+		if (digits == 0)
+			return NO_FAST_PATH;
+
+		if (i < to && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+			i++;
+			boolean negativeExponent = false;
+			if (i < to && (s.charAt(i) == '-' || s.charAt(i) == '+'))
+				negativeExponent = s.charAt(i++) == '-';
+			int e = 0;
+			int start = i;
+			for (; i < to; i++) {
+				char c = s.charAt(i);
+				if (c < '0' || c > '9' || e > 1000)
+					return NO_FAST_PATH;
+				e = e * 10 + (c - '0');
+			}
+			if (i == start)
+				return NO_FAST_PATH;
+			exponent += negativeExponent ? -e : e;
+		}
+		if (i != to || mantissa >= maxMantissa || exponent < -maxExponent || exponent > maxExponent)
+			return NO_FAST_PATH;
+		return mantissa << 7 | (long) (exponent + EXPONENT_OFFSET) << 1 | (negative ? 1 : 0);
+	}
+}
@@ -0,0 +1,34 @@
+package info.unterrainer.commons.cliutils;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field (or a record-component) to be bound to an option of the
+ * command line by {@link Cli#bind(Class)}.
+ * <p>
+ * Fields of type {@code boolean} are bound to flags, fields of type
+ * {@link java.util.List} to all values of an option and all other fields to
+ * the (first) value of an option. Use
+ * {@link CliParserBuilder#addOptions(Class)} to register the options described
+ * by the annotated fields of a class.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Option {
+
+	/**
+	 * The long-name of the option. Defaults to the name of the field.
+	 */
+	String longName() default "";
+
+	String shortName() default "";
+
+	String description() default "";
+
+	boolean required() default false;
+}
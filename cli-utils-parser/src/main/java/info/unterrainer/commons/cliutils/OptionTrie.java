@@ -0,0 +1,130 @@
+package info.unterrainer.commons.cliutils;
+
+import java.util.Arrays;
+
+/**
+ * A character-trie mapping option-names to their slot-index.
+ * <p>
+ * Every node knows the index of the only name in its sub-tree (or
+ * {@link #AMBIGUOUS} if there are more than one), so that exact- and
+ * abbreviated lookups take a single walk along the characters of the token
+ * without creating any sub-strings.
+ */
+final class OptionTrie {
+
+	static final int NONE = -1;
+	static final int AMBIGUOUS = -2;
+
+	private static final class Node {
+		private char[] keys = new char[0];
+		private Node[] children = new Node[0];
+		private int exact = NONE;
+		private int unique = NONE;
+
+		private Node child(final char c) {
+			int i = Arrays.binarySearch(keys, c);
+			return i < 0 ? null : children[i];
+		}
+
+		private Node getOrAdd(final char c) {
+			int i = Arrays.binarySearch(keys, c);
+			if (i >= 0)
+				return children[i];
+			i = -i - 1;
+			char[] k = new char[keys.length + 1];
+			Node[] n = new Node[children.length + 1];
+			System.arraycopy(keys, 0, k, 0, i);
+			System.arraycopy(children, 0, n, 0, i);
+			System.arraycopy(keys, i, k, i + 1, keys.length - i);
+			System.arraycopy(children, i, n, i + 1, children.length - i);
+			k[i] = c;
+			n[i] = new Node();
+			keys = k;
+			children = n;
+			return n[i];
+		}
+
+		private void addUnique(final int index) {
+			if (unique == NONE)
+				unique = index;
+			else if (unique != index)
+				unique = AMBIGUOUS;
+		}
+	}
+
+	private final Node root = new Node();
+
+	void put(final String name, final int index) {
+		Node node = root;
+		node.addUnique(index);
+		for (int i = 0; i < name.length(); i++) {
+			node = node.getOrAdd(name.charAt(i));
+			node.addUnique(index);
+		}
+		node.exact = index;
+	}
+
+	private Node find(final CharSequence s, final int from, final int to) {
+		Node node = root;
+		for (int i = from; i < to && node != null; i++)
+			node = node.child(s.charAt(i));
+		return node;
+	}
+
+	/**
+	 * Looks up a name that has to match exactly.
+	 *
+	 * @param s    the sequence containing the name
+	 * @param from the index of the first character of the name (inclusive)
+	 * @param to   the index of the last character of the name (exclusive)
+	 * @return the slot-index or {@link #NONE}
+	 */
+	int exact(final CharSequence s, final int from, final int to) {
+		if (from >= to)
+			return NONE;
+		Node node = find(s, from, to);
+		return node == null ? NONE : node.exact;
+	}
+
+	/**
+	 * Looks up a name that may be abbreviated.
+	 * <p>
+	 * An exact match always wins. Otherwise the name has to be the prefix of
+	 * exactly one registered name.
+	 *
+	 * @param s    the sequence containing the name
+	 * @param from the index of the first character of the name (inclusive)
+	 * @param to   the index of the last character of the name (exclusive)
+	 * @return the slot-index, {@link #NONE} or {@link #AMBIGUOUS}
+	 */
+	int abbreviated(final CharSequence s, final int from, final int to) {
+		if (from >= to)
+			return NONE;
+		Node node = find(s, from, to);
+		if (node == null)
+			return NONE;
+		return node.exact != NONE ? node.exact : node.unique;
+	}
+
+	/**
+	 * Returns the length of the longest registered name that is a prefix of the
+	 * given range.
+	 *
+	 * @param s    the sequence to search in
+	 * @param from the index of the first character (inclusive)
+	 * @param to   the index of the last character (exclusive)
+	 * @return the length of the name or 0 if there is none
+	 */
+	int longestPrefix(final CharSequence s, final int from, final int to) {
+		int result = 0;
+		Node node = root;
+		for (int i = from; i < to; i++) {
+			node = node.child(s.charAt(i));
+			if (node == null)
+				break;
+			if (node.exact != NONE)
+				result = i - from + 1;
+		}
+		return result;
+	}
+}
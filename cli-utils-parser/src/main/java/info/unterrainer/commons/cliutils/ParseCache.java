@@ -0,0 +1,357 @@
+package info.unterrainer.commons.cliutils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Caches the parsed form of command lines on disk, so running the same tool
+ * with the same (huge) response-files again skips tokenizing them and checking
+ * their constraints.
+ * <p>
+ * The raw values are cached, not the converted ones: they are still converted
+ * when they are read. Validators that only depend on the schema (minimum,
+ * maximum, pattern, allowed values of options using built-in converters) are
+ * skipped for cached lines; custom checks and validators of options with
+ * custom converters can't be part of the key and are applied again.
+ * <p>
+ * An entry is keyed by the SHA-256 hash of the schema of the spec, the
+ * arguments and the contents of all response-files they reference. It's
+ * stored in a compact binary form that is memory-mapped when it's read; the
+ * values are only decoded when they are read:
+ *
+ * <pre>
+ * int    magic, version, number of slots, number of words of the present-bits
+ * long[] present-bits
+ * per slot:  int count, count * (int length, UTF-8 bytes)
+ * int    number of positional arguments, each as (int length, UTF-8 bytes)
+ * </pre>
+ */
+final class ParseCache {
+
+	private static final int MAGIC = 0x434C4943;
+	private static final int VERSION = 1;
+	static final int DEFAULT_SIZE = 64;
+
+	private final Path directory;
+	private final int maxEntries;
+	private final CliOption[] slots;
+	private final byte[] schema;
+	private final boolean argFiles;
+
+	/**
+	 * A run of length-prefixed values within a mapped cache-file.
+	 */
+	static final class Run implements Iterable<String> {
+		private final ByteBuffer buffer;
+		private final int offset;
+		private final int count;
+
+		private Run(final ByteBuffer buffer, final int offset, final int count) {
+			this.buffer = buffer;
+			this.offset = offset;
+			this.count = count;
+		}
+
+		@Override
+		public Iterator<String> iterator() {
+			return new Iterator<>() {
+				private int position = offset;
+				private int index;
+
+				@Override
+				public boolean hasNext() {
+					return index < count;
+				}
+
+				@Override
+				public String next() {
+					if (!hasNext())
+						throw new NoSuchElementException();
+					index++;
+					int length = buffer.getInt(position);
+					String result = decode(buffer, position + 4, length);
+					position += 4 + length;
+					return result;
+				}
+			};
+		}
+	}
+
+	ParseCache(final Path directory, final int maxEntries, final CliOption[] slots, final boolean argFiles,
+			final Map<String, Set<String>> dependencies, final Map<String, Set<String>> exclusions,
+			final List<Set<Occurrences>> occurrences) {
+		this.directory = directory;
+		this.maxEntries = maxEntries;
+		this.slots = slots;
+		this.argFiles = argFiles;
+		StringBuilder sb = new StringBuilder();
+		sb.append(argFiles).append('\n');
+		for (CliOption o : slots)
+			sb.append(o.longName())
+					.append(' ')
+					.append(o.shortName())
+					.append(' ')
+					.append(o.type() == null ? null : o.type().getName())
+					.append(' ')
+					.append(o.numberOfArgs())
+					.append(' ')
+					.append(o.optionalArg())
+					.append(' ')
+					.append(o.valueSeparator())
+					.append(' ')
+					.append(o.required())
+					.append(' ')
+					.append(o.min())
+					.append(' ')
+					.append(o.max())
+					.append(' ')
+					.append(o.pattern())
+					.append(' ')
+					.append(o.allowedValues())
+					.append(' ')
+					.append(o.checks() == null ? 0 : o.checks().size())
+					.append('\n');
+		List<String> constraints = new ArrayList<>();
+		for (Set<Occurrences> set : occurrences) {
+			List<String> entries = new ArrayList<>();
+			for (Occurrences o : set)
+				entries.add(o.toString());
+			entries.sort(null);
+			constraints.add(entries.toString());
+		}
+		constraints.add(sorted(dependencies));
+		constraints.add(sorted(exclusions));
+		sb.append(constraints);
+		schema = sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String sorted(final Map<String, Set<String>> map) {
+		List<String> entries = new ArrayList<>();
+		for (Map.Entry<String, Set<String>> e : map.entrySet()) {
+			List<String> values = new ArrayList<>(e.getValue());
+			values.sort(null);
+			entries.add(e.getKey() + "=" + values);
+		}
+		entries.sort(null);
+		return entries.toString();
+	}
+
+	private static String decode(final ByteBuffer buffer, final int from, final int length) {
+		byte[] bytes = new byte[length];
+		buffer.get(from, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Computes the key of the given command line.
+	 *
+	 * @param args             the arguments
+	 * @param workingDirectory the directory response-files are resolved against
+	 *                         or null
+	 * @return the key or null, if a response-file can't be read (the parser
+	 *         reports that)
+	 */
+	String key(final String[] args, final Path workingDirectory) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+		digest.update(schema);
+		for (String arg : args) {
+			if (arg == null)
+				continue;
+			digest.update((byte) 0);
+			digest.update(arg.getBytes(StandardCharsets.UTF_8));
+			if (argFiles && arg.length() > 1 && arg.charAt(0) == '@')
+				try (FileChannel channel = FileChannel.open(ArgFile.path(workingDirectory, arg.substring(1)),
+						StandardOpenOption.READ)) {
+					digest.update(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+				} catch (IOException | InvalidPathException e) {
+					return null;
+				}
+		}
+		StringBuilder sb = new StringBuilder();
+		for (byte b : digest.digest())
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		return sb.toString();
+	}
+
+	private Path file(final String key) {
+		return directory.resolve(key + ".bin");
+	}
+
+	/**
+	 * Maps the entry with the given key. Entries that can't be read are deleted,
+	 * so they are replaced when the line has been parsed again.
+	 *
+	 * @param key the key
+	 * @return the parsed line or null, if there is no (valid) entry
+	 */
+	ParsedLine load(final String key) {
+		Path file = file(key);
+		if (!Files.isRegularFile(file))
+			return null;
+		ParsedLine line = read(file);
+		if (line == null)
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				// It's replaced when the line is stored.
+			}
+		return line;
+	}
+
+	/**
+	 * Reads the given file, checking every count and length against the bytes
+	 * left, so the runs of values may be decoded later on without any further
+	 * checks.
+	 */
+	private ParsedLine read(final Path file) {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != slots.length)
+				return null;
+			ParsedLine line = new ParsedLine(slots, true);
+			int words = buffer.getInt();
+			if (words != line.present.length)
+				return null;
+			for (int w = 0; w < words; w++)
+				line.present[w] = buffer.getLong();
+			for (int i = 0; i < slots.length; i++) {
+				int count = count(buffer);
+				if (count == 0)
+					continue;
+				line.add(i, new Run(buffer, buffer.position(), count));
+				for (int v = 0; v < count; v++) {
+					int length = length(buffer);
+					buffer.position(buffer.position() + length);
+				}
+			}
+			int args = count(buffer);
+			for (int a = 0; a < args; a++) {
+				int length = length(buffer);
+				line.args.add(decode(buffer, buffer.position(), length));
+				buffer.position(buffer.position() + length);
+			}
+			if (buffer.hasRemaining())
+				return null;
+			line.cached = true;
+			return line;
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the number of values of a run; every one of them takes at least the
+	 * four bytes of its length.
+	 */
+	private static int count(final ByteBuffer buffer) throws IOException {
+		int count = buffer.getInt();
+		if (count < 0 || count > buffer.remaining() / 4)
+			throw new IOException("Invalid count in cache-entry: " + count);
+		return count;
+	}
+
+	private static int length(final ByteBuffer buffer) throws IOException {
+		int length = buffer.getInt();
+		if (length < 0 || length > buffer.remaining())
+			throw new IOException("Invalid length in cache-entry: " + length);
+		return length;
+	}
+
+	/**
+	 * Stores the given (valid) line. Failing to do so is ignored, since the
+	 * cache is an optimization only.
+	 *
+	 * @param key  the key
+	 * @param line the parsed line
+	 */
+	void store(final String key, final ParsedLine line) {
+		Path temp = null;
+		try {
+			Files.createDirectories(directory);
+			temp = Files.createTempFile(directory, key, ".tmp");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(slots.length);
+				out.writeInt(line.present.length);
+				for (long word : line.present)
+					out.writeLong(word);
+				for (int i = 0; i < slots.length; i++) {
+					out.writeInt(line.valueCount(i) == 0 ? 0 : line.count(i));
+					if (line.valueCount(i) == 0)
+						continue;
+					Iterator<String> values = line.iterator(i);
+					while (values.hasNext())
+						write(out, values.next());
+				}
+				out.writeInt(line.args.size());
+				for (String arg : line.args)
+					write(out, arg);
+			}
+			Files.move(temp, file(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			evict();
+		} catch (IOException | RuntimeException e) {
+			try {
+				if (temp != null)
+					Files.deleteIfExists(temp);
+			} catch (IOException ignored) {
+				// There's nothing left to do.
+			}
+		}
+	}
+
+	/**
+	 * Deletes the entries written longest ago, until there are no more than the
+	 * maximum number of entries left. Entries are only ever added on a miss, so
+	 * this runs at most once per parsed command line.
+	 */
+	private void evict() throws IOException {
+		List<Path> entries = new ArrayList<>();
+		List<FileTime> times = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.bin")) {
+			for (Path entry : stream) {
+				entries.add(entry);
+				times.add(Files.getLastModifiedTime(entry));
+			}
+		}
+		while (entries.size() > maxEntries) {
+			int oldest = 0;
+			for (int i = 1; i < times.size(); i++)
+				if (times.get(i).compareTo(times.get(oldest)) < 0)
+					oldest = i;
+			Files.deleteIfExists(entries.remove(oldest));
+			times.remove(oldest);
+		}
+	}
+
+	private static void write(final DataOutputStream out, final String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+}
@@ -0,0 +1,286 @@
+package info.unterrainer.commons.cliutils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The result of a single parser-run, indexed by the slots of a
+ * {@link CliSpec}.
+ * <p>
+ * Values of options accepting an unlimited number of arguments are stored as
+ * they were given on the command line and are split at their value-separator
+ * when they are read. Values read from a response-file are kept as
+ * {@link ArgFile.Segment}s and are tokenized when they are read, values read
+ * from the {@link ParseCache} as {@link ParseCache.Run}s that are decoded when
+ * they are read.
+ */
+final class ParsedLine {
+
+	/**
+	 * Receives the position of a single value within the raw argument it is part
+	 * of.
+	 */
+	@FunctionalInterface
+	interface ValueRange {
+		void accept(int index, CharSequence raw, int from, int to);
+	}
+
+	private static final String[] EMPTY = new String[0];
+
+	private final CliOption[] slots;
+	final long[] present;
+	private final Object[][] values;
+	private final int[] valueCounts;
+	private final boolean split;
+	final List<String> args = new ArrayList<>();
+	String error;
+	/**
+	 * True, if this line has been read from the {@link ParseCache}, which only
+	 * contains lines that have passed validation.
+	 */
+	boolean cached;
+
+	ParsedLine(final CliOption[] slots, final boolean split) {
+		this.slots = slots;
+		this.split = split;
+		present = Bits.create(slots.length);
+		values = new Object[slots.length][];
+		valueCounts = new int[slots.length];
+	}
+
+	void set(final int slot) {
+		Bits.set(present, slot);
+	}
+
+	void add(final int slot, final String value) {
+		addRaw(slot, value);
+	}
+
+	/**
+	 * Adds a value that hasn't been given on the command line (but in the
+	 * environment, for example) without marking the option as set.
+	 * <p>
+	 * Values of options with more than one argument are split at their
+	 * value-separator.
+	 *
+	 * @param slot  the slot
+	 * @param value the value
+	 */
+	void addSource(final int slot, final String value) {
+		CliOption o = slots[slot];
+		if (o.numberOfArgs() == 1 || splitsOnRead(slot)) {
+			addRaw(slot, value);
+			return;
+		}
+		int start = 0;
+		for (int i = 0; i < value.length(); i++)
+			if (value.charAt(i) == o.valueSeparator()) {
+				addRaw(slot, value.substring(start, i));
+				start = i + 1;
+			}
+		addRaw(slot, value.substring(start));
+	}
+
+	void add(final int slot, final ArgFile.Segment segment) {
+		addRaw(slot, segment);
+	}
+
+	void add(final int slot, final ParseCache.Run run) {
+		addRaw(slot, run);
+	}
+
+	private void addRaw(final int slot, final Object value) {
+		Object[] v = values[slot];
+		int count = valueCounts[slot];
+		if (v == null)
+			v = values[slot] = new Object[1];
+		else if (count == v.length)
+			v = values[slot] = Arrays.copyOf(v, count * 2);
+		v[count] = value;
+		valueCounts[slot] = count + 1;
+	}
+
+	/**
+	 * Returns true, if any value of the given slot is read lazily from a
+	 * response-file or the parse-cache.
+	 *
+	 * @param slot the slot
+	 * @return true, if the values aren't held in memory
+	 */
+	boolean isStreamed(final int slot) {
+		Object[] v = values[slot];
+		for (int i = 0; i < valueCounts[slot]; i++)
+			if (!(v[i] instanceof String))
+				return true;
+		return false;
+	}
+
+	boolean isSet(final int slot) {
+		return Bits.get(present, slot);
+	}
+
+	int valueCount(final int slot) {
+		return valueCounts[slot];
+	}
+
+	private boolean splitsOnRead(final int slot) {
+		return !split && slots[slot].numberOfArgs() == CliOption.UNLIMITED;
+	}
+
+	String first(final int slot) {
+		if (valueCounts[slot] == 0)
+			return null;
+		Iterator<String> i = iterator(slot);
+		return i.hasNext() ? i.next() : null;
+	}
+
+	/**
+	 * Counts the values of the given slot without creating any sub-strings.
+	 *
+	 * @param slot the slot
+	 * @return the number of values
+	 */
+	int count(final int slot) {
+		int[] result = new int[1];
+		forEachValue(slot, (index, raw, from, to) -> result[0]++);
+		return result[0];
+	}
+
+	/**
+	 * Passes the position of every value of the given slot within its raw
+	 * argument to the consumer, without creating any sub-strings.
+	 *
+	 * @param slot     the slot
+	 * @param consumer the consumer
+	 */
+	void forEachValue(final int slot, final ValueRange consumer) {
+		int count = valueCounts[slot];
+		boolean splitsOnRead = splitsOnRead(slot);
+		char separator = slots[slot].valueSeparator();
+		int index = 0;
+		for (int i = 0; i < count; i++) {
+			Object value = values[slot][i];
+			if (value instanceof String) {
+				index = forEachPart((String) value, splitsOnRead, separator, consumer, index);
+				continue;
+			}
+			if (value instanceof ParseCache.Run) {
+				for (String s : (ParseCache.Run) value)
+					consumer.accept(index++, s, 0, s.length());
+				continue;
+			}
+			ArgFile.Tokenizer tokenizer = ((ArgFile.Segment) value).tokenizer();
+			while (tokenizer.next())
+				index = forEachPart(tokenizer.isQuoted() ? tokenizer.token() : tokenizer.view(), splitsOnRead,
+						separator, consumer, index);
+		}
+	}
+
+	private static int forEachPart(final CharSequence raw, final boolean splitsOnRead, final char separator,
+			final ValueRange consumer, final int startIndex) {
+		int index = startIndex;
+		int start = 0;
+		int length = raw.length();
+		if (splitsOnRead)
+			for (int i = 0; i < length; i++)
+				if (raw.charAt(i) == separator) {
+					consumer.accept(index++, raw, start, i);
+					start = i + 1;
+				}
+		consumer.accept(index++, raw, start, length);
+		return index;
+	}
+
+	String[] values(final int slot) {
+		if (valueCounts[slot] == 0)
+			return EMPTY;
+		List<String> result = new ArrayList<>(valueCounts[slot]);
+		iterator(slot).forEachRemaining(result::add);
+		return result.toArray(EMPTY);
+	}
+
+	/**
+	 * Returns a lazy iterator over the values of the given slot.
+	 * <p>
+	 * Values stored in a response-file are tokenized and decoded one at a time,
+	 * so they are never materialized all at once.
+	 *
+	 * @param slot the slot
+	 * @return the iterator
+	 */
+	Iterator<String> iterator(final int slot) {
+		return new ValueIterator(slot);
+	}
+
+	private final class ValueIterator implements Iterator<String> {
+		private final int slot;
+		private final boolean splitsOnRead;
+		private final char separator;
+		private int entry;
+		private ArgFile.Tokenizer tokenizer;
+		private Iterator<String> run;
+		private String current;
+		private int position = -1;
+
+		private ValueIterator(final int slot) {
+			this.slot = slot;
+			splitsOnRead = splitsOnRead(slot);
+			separator = slots[slot].valueSeparator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (position != -1)
+				return true;
+			while (true) {
+				if (tokenizer != null) {
+					if (tokenizer.next()) {
+						current = tokenizer.token();
+						position = 0;
+						return true;
+					}
+					tokenizer = null;
+				}
+				if (run != null) {
+					if (run.hasNext()) {
+						current = run.next();
+						position = 0;
+						return true;
+					}
+					run = null;
+				}
+				if (entry >= valueCounts[slot])
+					return false;
+				Object value = values[slot][entry++];
+				if (value instanceof String) {
+					current = (String) value;
+					position = 0;
+					return true;
+				}
+				if (value instanceof ParseCache.Run)
+					run = ((ParseCache.Run) value).iterator();
+				else
+					tokenizer = ((ArgFile.Segment) value).tokenizer();
+			}
+		}
+
+		@Override
+		public String next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			int end = splitsOnRead ? current.indexOf(separator, position) : -1;
+			String result;
+			if (end == -1) {
+				result = position == 0 ? current : current.substring(position);
+				position = -1;
+			} else {
+				result = current.substring(position, end);
+				position = end + 1;
+			}
+			return result;
+		}
+	}
+}
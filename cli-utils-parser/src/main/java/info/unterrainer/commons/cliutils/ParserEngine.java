@@ -0,0 +1,16 @@
+package info.unterrainer.commons.cliutils;
+
+/**
+ * The engine used by a {@link CliSpec} to parse the command line.
+ */
+public enum ParserEngine {
+	/**
+	 * The built-in single-pass parser. Names are resolved using precomputed
+	 * tries. This is the default.
+	 */
+	NATIVE,
+	/**
+	 * The {@code DefaultParser} of Apache Commons CLI.
+	 */
+	COMMONS
+}
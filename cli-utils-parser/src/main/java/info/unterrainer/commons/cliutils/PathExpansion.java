@@ -0,0 +1,356 @@
+package info.unterrainer.commons.cliutils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Expands the values of a path-option to a stream of paths.
+ * <p>
+ * Globs are expanded by walking the directories below their static prefix in
+ * parallel, one fork-join task per directory. Literal paths are checked for
+ * existence and readability concurrently as well. Every path is handed to the
+ * stream as soon as it's found, so the consumer may start working before the
+ * expansion is complete. The order of the paths is undefined.
+ * <p>
+ * At most {@value #CAPACITY} paths are buffered; the walkers wait for a slow
+ * consumer instead of holding all paths of a large glob in memory. They stop
+ * when the stream is closed, fails or becomes unreachable (a consumer
+ * short-circuiting it without closing it), so they never wait for a consumer
+ * that is gone. Waiting is announced to the pool as a managed block.
+ * <p>
+ * Globs use '/' as the separator on every platform; on Windows, '\\' is
+ * accepted as well (and can't be used to escape special characters then).
+ * Like in shells supporting 'globstar', '**&#47;' matches zero or more
+ * directories, so 'data/**&#47;*.parquet' matches the files directly in 'data'
+ * as well.
+ */
+final class PathExpansion {
+
+	/**
+	 * Walking directories is bound by I/O (think network filesystems), so
+	 * there are more threads than processors.
+	 */
+	private static final ForkJoinPool POOL = new ForkJoinPool(
+			Math.max(8, Runtime.getRuntime().availableProcessors() * 2));
+
+	static final int CAPACITY = 1024;
+
+	private static final Cleaner CLEANER = Cleaner.create();
+	private static final AtomicInteger RUNNING = new AtomicInteger();
+
+	private static final Object END = new Object();
+
+	private static final class Failure {
+		private final String message;
+
+		private Failure(final String message) {
+			this.message = message;
+		}
+	}
+
+	private final CliOption option;
+	private final Path workingDirectory;
+	private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>(CAPACITY);
+	private volatile boolean cancelled;
+
+	private PathExpansion(final CliOption option, final Path workingDirectory) {
+		this.option = option;
+		this.workingDirectory = workingDirectory;
+	}
+
+	/**
+	 * Starts expanding the given values in the background.
+	 *
+	 * @param option           the option
+	 * @param values           the raw values of the option
+	 * @param workingDirectory the directory relative paths and globs are
+	 *                         resolved against or null, to leave them relative
+	 *                         to the working directory of the process
+	 * @return the stream of the paths; closing it cancels the expansion
+	 */
+	static Stream<Path> stream(final CliOption option, final Iterator<String> values, final Path workingDirectory) {
+		PathExpansion expansion = new PathExpansion(option, workingDirectory);
+		Results results = expansion.new Results();
+		// The cleaning action mustn't reference the results, or they'd never
+		// become unreachable.
+		CLEANER.register(results, expansion::cancel);
+		RUNNING.incrementAndGet();
+		POOL.execute(expansion.new Root(values));
+		return StreamSupport.stream(results, false).onClose(expansion::cancel);
+	}
+
+	/**
+	 * Returns the number of expansions whose walkers haven't finished yet.
+	 */
+	static int running() {
+		return RUNNING.get();
+	}
+
+	static boolean isGlob(final String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '*' || c == '?' || c == '[' || c == '{')
+				return true;
+		}
+		return false;
+	}
+
+	private Path path(final String value) {
+		return workingDirectory == null ? Path.of(value) : workingDirectory.resolve(value);
+	}
+
+	private void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Hands the given element to the consumer, waiting while the queue is full.
+	 * Gives up when the expansion has been cancelled, since no one will take it
+	 * then.
+	 */
+	private void put(final Object element) {
+		try {
+			ForkJoinPool.managedBlock(new Offer(element));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancel();
+		}
+	}
+
+	/**
+	 * Offers an element to the queue, letting the pool compensate for the
+	 * blocked worker.
+	 */
+	private final class Offer implements ForkJoinPool.ManagedBlocker {
+		private final Object element;
+		private boolean done;
+
+		private Offer(final Object element) {
+			this.element = element;
+		}
+
+		@Override
+		public boolean block() throws InterruptedException {
+			done = queue.offer(element, 50, TimeUnit.MILLISECONDS) || cancelled;
+			return done;
+		}
+
+		@Override
+		public boolean isReleasable() {
+			return done || cancelled || (done = queue.offer(element));
+		}
+	}
+
+	private void emit(final Path path) {
+		if (option.mustBeReadable() && !Files.isReadable(path))
+			fail("Path '%s' of option '%s' isn't readable.", path);
+		else
+			put(path);
+	}
+
+	private void fail(final String format, final Object value) {
+		put(new Failure(String.format(format, value, option.longName())));
+	}
+
+	// Tasks are never serialized.
+	@SuppressWarnings("serial")
+	private final class Root extends RecursiveAction {
+		private final Iterator<String> values;
+
+		private Root(final Iterator<String> values) {
+			this.values = values;
+		}
+
+		/**
+		 * Runs the tasks of the values in batches of at most {@value PathExpansion#CAPACITY},
+		 * so there are never more tasks than that, however many values there are.
+		 */
+		@Override
+		protected void compute() {
+			try {
+				List<RecursiveAction> tasks = new ArrayList<>();
+				while (values.hasNext() && !cancelled) {
+					String value = values.next();
+					if (option.expandGlobs() && isGlob(value))
+						tasks.add(new Glob(value));
+					else if (option.mustExist() || option.mustBeReadable())
+						tasks.add(new Check(value));
+					else
+						put(path(value));
+					if (tasks.size() == CAPACITY) {
+						invokeAll(tasks);
+						tasks.clear();
+					}
+				}
+				invokeAll(tasks);
+			} catch (RuntimeException e) {
+				put(new Failure(e.getMessage()));
+			} finally {
+				put(END);
+				RUNNING.decrementAndGet();
+			}
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private final class Check extends RecursiveAction {
+		private final String value;
+
+		private Check(final String value) {
+			this.value = value;
+		}
+
+		@Override
+		protected void compute() {
+			Path path = path(value);
+			if (option.mustExist() && !Files.exists(path))
+				fail("Path '%s' of option '%s' doesn't exist.", value);
+			else
+				emit(path);
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private final class Glob extends RecursiveAction {
+		private final String pattern;
+		private final List<PathMatcher> matchers = new ArrayList<>();
+		private Path root;
+		private int maxDepth;
+		private final AtomicInteger matches = new AtomicInteger();
+
+		private Glob(final String pattern) {
+			this.pattern = File.separatorChar == '\\' ? pattern.replace('\\', '/') : pattern;
+		}
+
+		@Override
+		protected void compute() {
+			String[] segments = pattern.split("/", -1);
+			int first = 0;
+			while (first < segments.length - 1 && !isGlob(segments[first]))
+				first++;
+			// Keep the trailing separator of the prefix, so '/' and 'C:/' stay absolute.
+			Path base = Path.of(first == 0 ? "" : String.join("/", Arrays.copyOf(segments, first)) + "/");
+			maxDepth = segments.length - first;
+			for (int i = first; i < segments.length; i++)
+				if (segments[i].contains("**"))
+					maxDepth = Integer.MAX_VALUE;
+			addMatchers(base, pattern, 0);
+			if (workingDirectory != null && !base.isAbsolute()) {
+				root = workingDirectory;
+				base = workingDirectory.resolve(base);
+			}
+			if (Files.isDirectory(base))
+				new Walk(this, base, 1).invoke();
+			if (option.mustExist() && matches.get() == 0 && !cancelled)
+				fail("Pattern '%s' of option '%s' doesn't match any file.", pattern);
+		}
+
+		/**
+		 * Adds a matcher for every variant of the pattern with any of its '**&#47;'
+		 * removed, since a glob-'**' needs at least one directory to cross.
+		 */
+		private void addMatchers(final Path base, final String variant, final int from) {
+			int i = variant.indexOf("**/", from);
+			if (i == -1) {
+				matchers.add(base.getFileSystem().getPathMatcher("glob:" + variant));
+				return;
+			}
+			addMatchers(base, variant, i + 3);
+			addMatchers(base, variant.substring(0, i) + variant.substring(i + 3), i);
+		}
+
+		private boolean matches(final Path path) {
+			for (PathMatcher matcher : matchers)
+				if (matcher.matches(path))
+					return true;
+			return false;
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private final class Walk extends RecursiveAction {
+		private final Glob glob;
+		private final Path directory;
+		private final int depth;
+
+		private Walk(final Glob glob, final Path directory, final int depth) {
+			this.glob = glob;
+			this.directory = directory;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute() {
+			List<Walk> children = new ArrayList<>();
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+				for (Path entry : entries) {
+					if (cancelled)
+						return;
+					if (glob.matches(glob.root == null ? entry : glob.root.relativize(entry))) {
+						glob.matches.incrementAndGet();
+						emit(entry);
+					}
+					if (depth < glob.maxDepth && Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS))
+						children.add(new Walk(glob, entry, depth + 1));
+				}
+			} catch (IOException e) {
+				// Directories that can't be listed are skipped, like a shell does.
+			}
+			invokeAll(children);
+		}
+	}
+
+	private final class Results extends Spliterators.AbstractSpliterator<Path> {
+
+		private boolean done;
+
+		private Results() {
+			super(Long.MAX_VALUE, Spliterator.NONNULL);
+		}
+
+		@Override
+		public boolean tryAdvance(final Consumer<? super Path> action) {
+			if (done)
+				return false;
+			Object next;
+			try {
+				next = queue.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				cancel();
+				throw new IllegalStateException("Interrupted while expanding option '" + option.longName() + "'.", e);
+			}
+			if (next == END) {
+				done = true;
+				return false;
+			}
+			if (next instanceof Failure) {
+				cancel();
+				throw new IllegalStateException(((Failure) next).message);
+			}
+			action.accept((Path) next);
+			return true;
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package info.unterrainer.commons.cliutils;
+
+/**
+ * The phases of compiling a spec and parsing a command line that are reported
+ * to {@link PhaseListener}s and as JDK Flight Recorder events.
+ */
+public enum Phase {
+	/**
+	 * Tokenizing the command line and assigning the values to their options.
+	 */
+	PARSE,
+	/**
+	 * Checking that all options used by constraints and dependencies exist,
+	 * when the spec is compiled.
+	 */
+	AVAILABILITY_CHECK,
+	/**
+	 * Compiling the constraints and dependencies into bit-masks (and checking
+	 * that they can be satisfied), when the spec is compiled.
+	 */
+	CONSTRAINT_COMPILATION,
+	/**
+	 * Validating the minimum-, exactly- and maximum-N-required constraints.
+	 */
+	N_REQUIRED,
+	/**
+	 * Validating the dependencies and exclusions.
+	 */
+	DEPENDENCIES,
+	/**
+	 * Printing the help.
+	 */
+	HELP,
+	/**
+	 * Converting values to the types of their options.
+	 */
+	CONVERSION,
+	/**
+	 * Applying the validators of the options to all of their values.
+	 */
+	VALIDATION
+}
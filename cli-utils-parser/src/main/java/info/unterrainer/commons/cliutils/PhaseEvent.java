@@ -0,0 +1,26 @@
+package info.unterrainer.commons.cliutils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The JDK Flight Recorder event committed for every {@link Phase}.
+ */
+@Name("info.unterrainer.commons.cliutils.Phase")
+@Label("CLI Phase")
+@Description("A phase of compiling a spec or parsing a command line")
+@Category("CLI")
+@StackTrace(false)
+final class PhaseEvent extends Event {
+
+	@Label("Phase")
+	String phase;
+
+	@Label("Option")
+	@Description("The option whose values were converted")
+	String option;
+}
@@ -0,0 +1,21 @@
+package info.unterrainer.commons.cliutils;
+
+/**
+ * Receives the duration of every {@link Phase} of compiling a spec and parsing
+ * a command line, to send them to your metrics, for example.
+ *
+ * @see CliParserBuilder#addListener(PhaseListener)
+ */
+@FunctionalInterface
+public interface PhaseListener {
+
+	/**
+	 * Called on the thread that completed the phase.
+	 *
+	 * @param phase  the phase
+	 * @param option the long-name of the option whose values were converted or
+	 *               null, if the phase doesn't concern a single option
+	 * @param nanos  the duration of the phase in nanoseconds
+	 */
+	void phaseCompleted(Phase phase, String option, long nanos);
+}
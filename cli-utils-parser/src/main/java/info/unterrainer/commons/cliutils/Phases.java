@@ -0,0 +1,81 @@
+package info.unterrainer.commons.cliutils;
+
+import java.util.List;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Times the {@link Phase}s of a spec and reports them to its listeners and to
+ * the JDK Flight Recorder.
+ * <p>
+ * Nothing is measured unless there are listeners or the flight recorder is
+ * running. Finding out whether it is running loads {@link FlightRecorder} on
+ * the first measurement; the event class is only loaded while it is.
+ */
+final class Phases {
+
+	private static final boolean JFR_AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+	/**
+	 * A phase that is being measured.
+	 */
+	static final class Measurement {
+		private final long start;
+		private final PhaseEvent event;
+
+		private Measurement(final long start, final PhaseEvent event) {
+			this.start = start;
+			this.event = event;
+		}
+	}
+
+	private final PhaseListener[] listeners;
+
+	Phases(final List<PhaseListener> listeners) {
+		this.listeners = listeners.toArray(new PhaseListener[0]);
+	}
+
+	private static boolean recording() {
+		return JFR_AVAILABLE && FlightRecorder.isInitialized();
+	}
+
+	/**
+	 * Starts measuring a phase.
+	 *
+	 * @return the measurement or null, if no one is interested in it
+	 */
+	Measurement start() {
+		boolean recording = recording();
+		if (listeners.length == 0 && !recording)
+			return null;
+		PhaseEvent event = null;
+		if (recording) {
+			event = new PhaseEvent();
+			event.begin();
+		}
+		return new Measurement(System.nanoTime(), event);
+	}
+
+	/**
+	 * Completes measuring a phase.
+	 *
+	 * @param measurement the measurement returned by {@link #start()}
+	 * @param phase       the phase
+	 * @param option      the option concerned or null
+	 */
+	void end(final Measurement measurement, final Phase phase, final String option) {
+		if (measurement == null)
+			return;
+		long nanos = System.nanoTime() - measurement.start;
+		if (measurement.event != null) {
+			measurement.event.end();
+			if (measurement.event.shouldCommit()) {
+				measurement.event.phase = phase.name();
+				measurement.event.option = option;
+				measurement.event.commit();
+			}
+		}
+		for (PhaseListener listener : listeners)
+			listener.phaseCompleted(phase, option, nanos);
+	}
+}
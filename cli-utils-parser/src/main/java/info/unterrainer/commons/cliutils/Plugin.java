@@ -0,0 +1,84 @@
+package info.unterrainer.commons.cliutils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * A {@link CliPlugin} declared by a {@link CliPluginDescriptor} and the
+ * long-names of the options it declares.
+ * <p>
+ * Only the descriptor is loaded, so the class of the plugin isn't loaded until
+ * {@link #activate(Cli)} is called.
+ */
+final class Plugin {
+
+	final String className;
+	final String[] longNames;
+	private final ClassLoader loader;
+	private volatile CliPlugin instance;
+
+	private Plugin(final String className, final String[] longNames, final ClassLoader loader) {
+		this.className = className;
+		this.longNames = longNames;
+		this.loader = loader;
+	}
+
+	/**
+	 * Lets all descriptors visible to the given class-loader declare their
+	 * options on the given builder.
+	 *
+	 * @param builder the builder
+	 * @param loader  the class-loader to find the descriptors with
+	 */
+	static void load(final CliParserBuilder builder, final ClassLoader loader) {
+		for (CliPluginDescriptor descriptor : ServiceLoader.load(CliPluginDescriptor.class, loader)) {
+			Map<String, CliOption> before = new HashMap<>(builder.options);
+			descriptor.declare(builder);
+			List<String> longNames = new ArrayList<>();
+			for (Map.Entry<String, CliOption> e : builder.options.entrySet()) {
+				CliOption previous = before.get(e.getKey());
+				if (previous == e.getValue())
+					continue;
+				if (previous != null)
+					throw new IllegalArgumentException(String.format("Option '%s' of plugin '%s' is already declared.",
+							e.getKey(), descriptor.pluginClassName()));
+				longNames.add(e.getKey());
+			}
+			ClassLoader pluginLoader = descriptor.getClass().getClassLoader();
+			builder.plugins.add(new Plugin(descriptor.pluginClassName(), longNames.toArray(new String[0]),
+					pluginLoader != null ? pluginLoader : loader));
+		}
+	}
+
+	/**
+	 * Loads, instantiates (once) and activates the plugin.
+	 *
+	 * @param cli the parsed command line
+	 */
+	void activate(final Cli cli) {
+		CliPlugin p = instance;
+		if (p == null)
+			synchronized (this) {
+				p = instance;
+				if (p == null)
+					instance = p = instantiate();
+			}
+		p.activate(cli);
+	}
+
+	private CliPlugin instantiate() {
+		try {
+			Class<?> type = Class.forName(className, true, loader);
+			if (!CliPlugin.class.isAssignableFrom(type))
+				throw new IllegalStateException(
+						String.format("Plugin '%s' doesn't implement %s.", className, CliPlugin.class.getName()));
+			return (CliPlugin) type.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			throw new IllegalStateException(
+					String.format("Plugin '%s' can't be instantiated: %s", className, e), e);
+		}
+	}
+}
@@ -0,0 +1,9 @@
+package info.unterrainer.commons.cliutils;
+
+/**
+ * The shells {@link CliSpec#completion(Shell)} generates completion-scripts
+ * for.
+ */
+public enum Shell {
+	BASH, ZSH, FISH
+}
@@ -0,0 +1,103 @@
+package info.unterrainer.commons.cliutils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Looks up the values of options that aren't given on the command line in
+ * environment-variables and properties-files (in that order).
+ * <p>
+ * The files are read when the first value is looked up and only once per
+ * spec. Only the values of keys that belong to an option are kept, in a table
+ * indexed by slot.
+ */
+final class Sources {
+
+	private final String[] variables;
+	private final String[] keys;
+	private final List<Path> files;
+	private volatile String[] table;
+
+	private Sources(final String[] variables, final String[] keys, final List<Path> files) {
+		this.variables = variables;
+		this.keys = keys;
+		this.files = files;
+	}
+
+	/**
+	 * Collects the sources of the given options.
+	 *
+	 * @param slots the options
+	 * @param files the properties-files
+	 * @return the sources or null, if no option has any
+	 */
+	static Sources of(final CliOption[] slots, final List<Path> files) {
+		String[] variables = new String[slots.length];
+		String[] keys = new String[slots.length];
+		boolean any = false;
+		for (int i = 0; i < slots.length; i++) {
+			variables[i] = slots[i].envVariable();
+			keys[i] = slots[i].propertyKey();
+			any |= slots[i].hasSources();
+		}
+		return any ? new Sources(variables, keys, files) : null;
+	}
+
+	boolean has(final int slot) {
+		return variables[slot] != null || keys[slot] != null;
+	}
+
+	/**
+	 * Looks up the value of the given option.
+	 *
+	 * @param slot the slot of the option
+	 * @param env  the environment or null, to use the one of this process
+	 * @return the value or null, if none of the sources contains one
+	 */
+	String lookup(final int slot, final Map<String, String> env) {
+		String variable = variables[slot];
+		if (variable != null) {
+			String value = env == null ? System.getenv(variable) : env.get(variable);
+			if (value != null)
+				return value;
+		}
+		return keys[slot] == null ? null : table()[slot];
+	}
+
+	private String[] table() {
+		String[] t = table;
+		if (t == null)
+			synchronized (this) {
+				t = table;
+				if (t == null)
+					table = t = load();
+			}
+		return t;
+	}
+
+	private String[] load() {
+		String[] result = new String[keys.length];
+		for (Path file : files) {
+			if (!Files.isRegularFile(file))
+				continue;
+			Properties properties = new Properties();
+			try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				properties.load(reader);
+			} catch (IOException e) {
+				throw new UncheckedIOException(
+						String.format("Cannot read config file '%s': %s", file, e.getMessage()), e);
+			}
+			for (int i = 0; i < keys.length; i++)
+				if (result[i] == null && keys[i] != null)
+					result[i] = properties.getProperty(keys[i]);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,47 @@
+package info.unterrainer.commons.cliutils;
+
+import java.util.function.Consumer;
+
+/**
+ * A subcommand registered with a {@link CliParserBuilder}.
+ * <p>
+ * Only the name and the description are kept; the options of the subcommand
+ * are declared by the given consumer, which is called when a command line
+ * actually selects this subcommand.
+ */
+final class Subcommand {
+
+	final String name;
+	final String description;
+	private final Consumer<CliParserBuilder> declaration;
+
+	Subcommand(final String name, final String description, final Consumer<CliParserBuilder> declaration) {
+		this.name = name;
+		this.description = description;
+		this.declaration = declaration;
+	}
+
+	/**
+	 * Declares and compiles the options of this subcommand.
+	 * <p>
+	 * The subcommand inherits the engine, the expansion of response-files, the
+	 * config-files, the parse-cache, the converters and the listeners of its
+	 * parent.
+	 *
+	 * @param parent the spec this subcommand is part of
+	 * @return the compiled spec of this subcommand
+	 */
+	CliSpec compile(final CliSpec parent) {
+		CliParserBuilder builder = new CliParserBuilder(null, parent.jarName, description);
+		builder.engine = parent.engine;
+		builder.argFiles = parent.argFiles;
+		builder.configFiles.addAll(parent.configFiles);
+		builder.parseCache = parent.cacheDirectory;
+		builder.parseCacheSize = parent.cacheSize;
+		builder.converters.putAll(parent.converters);
+		builder.listeners.addAll(parent.listeners);
+		builder.command = parent.command == null ? name : parent.command + " " + name;
+		declaration.accept(builder);
+		return builder.compile();
+	}
+}
@@ -0,0 +1,34 @@
+package info.unterrainer.commons.cliutils;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when values of a command line violate the validators of their options
+ * (see {@link Arg#min(Object)}, {@link Arg#max(Object)},
+ * {@link Arg#pattern(String)}, {@link Arg#oneOf(Object...)} and
+ * {@link Arg#check(java.util.function.Predicate, String)}).
+ * <p>
+ * All values are validated in one pass, so it contains every violation, not
+ * only the first one.
+ */
+public class ValidationException extends IllegalStateException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<String> violations;
+
+	public ValidationException(final List<String> violations) {
+		super(String.join("\n", violations));
+		this.violations = Collections.unmodifiableList(violations);
+	}
+
+	/**
+	 * Returns the messages of all violations.
+	 *
+	 * @return the messages
+	 */
+	public List<String> violations() {
+		return violations;
+	}
+}
@@ -0,0 +1,113 @@
+package info.unterrainer.commons.cliutils;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * The compiled validators of an option (its range, pattern, allowed values and
+ * custom checks), built once when its spec is compiled.
+ */
+final class Validator {
+
+	/**
+	 * A custom check, added using {@link Arg#check(Predicate, String)}.
+	 */
+	static final class Check {
+		private final Predicate<Object> predicate;
+		private final String message;
+
+		@SuppressWarnings("unchecked")
+		Check(final Predicate<?> predicate, final String message) {
+			this.predicate = (Predicate<Object>) predicate;
+			this.message = message;
+		}
+	}
+
+	private final String option;
+	private final Comparable<Object> min;
+	private final Comparable<Object> max;
+	private final Pattern pattern;
+	private final Set<Object> allowed;
+	private final String allowedNames;
+	private final Check[] checks;
+
+	@SuppressWarnings("unchecked")
+	private Validator(final CliOption o) {
+		option = o.longName();
+		min = (Comparable<Object>) comparable(o, o.min(), "minimum");
+		max = (Comparable<Object>) comparable(o, o.max(), "maximum");
+		pattern = o.pattern() == null ? null : Pattern.compile(o.pattern());
+		allowed = o.allowedValues() == null ? null : new HashSet<>(o.allowedValues());
+		allowedNames = o.allowedValues() == null ? null : names(o.allowedValues());
+		checks = o.checks() == null ? null : o.checks().toArray(new Check[0]);
+	}
+
+	/**
+	 * Compiles the validators of the given option.
+	 *
+	 * @param o the option
+	 * @return the validator or null, if the option doesn't have any validators
+	 * @throws IllegalArgumentException if a minimum or maximum isn't comparable
+	 * @throws java.util.regex.PatternSyntaxException if the pattern is invalid
+	 */
+	static Validator of(final CliOption o) {
+		if (!o.hasValidators())
+			return null;
+		return new Validator(o);
+	}
+
+	private static String names(final List<?> values) {
+		StringBuilder sb = new StringBuilder();
+		for (Object v : values) {
+			if (sb.length() > 0)
+				sb.append(", ");
+			sb.append(v);
+		}
+		return sb.toString();
+	}
+
+	private static Comparable<?> comparable(final CliOption o, final Object bound, final String name) {
+		if (bound == null)
+			return null;
+		if (!(bound instanceof Comparable))
+			throw new IllegalArgumentException(String.format("The %s of option '%s' isn't comparable.", name,
+					o.longName()));
+		return (Comparable<?>) bound;
+	}
+
+	/**
+	 * Returns true, if the validator needs the converted value and not only the
+	 * raw one.
+	 */
+	boolean needsValue() {
+		return min != null || max != null || allowed != null || checks != null;
+	}
+
+	/**
+	 * Validates a single value, adding all violations to the given list.
+	 *
+	 * @param raw        the value as given on the command line
+	 * @param value      the converted value (if {@link #needsValue()})
+	 * @param violations the violations found so far
+	 */
+	void validate(final String raw, final Object value, final List<String> violations) {
+		if (pattern != null && !pattern.matcher(raw).matches())
+			violations.add(String.format("Value '%s' of option '%s' doesn't match '%s'.", raw, option,
+					pattern.pattern()));
+		if (min != null && min.compareTo(value) > 0)
+			violations.add(String.format("Value '%s' of option '%s' is less than %s.", raw, option, min));
+		if (max != null && max.compareTo(value) < 0)
+			violations.add(String.format("Value '%s' of option '%s' is greater than %s.", raw, option, max));
+		if (allowed != null && !allowed.contains(value))
+			violations.add(String.format("Value '%s' of option '%s' isn't one of: %s.", raw, option,
+					allowedNames));
+		if (checks != null)
+			for (Check check : checks)
+				if (!check.predicate.test(value))
+					violations.add(String.format("Value '%s' of option '%s' is invalid: %s", raw, option,
+							check.message));
+	}
+}
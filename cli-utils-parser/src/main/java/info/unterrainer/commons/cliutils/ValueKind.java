@@ -0,0 +1,27 @@
+package info.unterrainer.commons.cliutils;
+
+/**
+ * Describes how the converted value of an option is stored in a {@link Cli}.
+ */
+enum ValueKind {
+	OBJECT, INT, LONG, FLOAT, DOUBLE;
+
+	/**
+	 * Numbers are only stored as primitives if they are converted by the
+	 * built-in converters (including the one for byte-sizes).
+	 *
+	 * @param converter the converter of the option
+	 * @return the kind
+	 */
+	static ValueKind of(final Converter<?> converter) {
+		if (converter == BuiltinConverter.INTEGER)
+			return INT;
+		if (converter == BuiltinConverter.LONG || converter == BuiltinConverter.BYTE_SIZE)
+			return LONG;
+		if (converter == BuiltinConverter.FLOAT)
+			return FLOAT;
+		if (converter == BuiltinConverter.DOUBLE)
+			return DOUBLE;
+		return OBJECT;
+	}
+}
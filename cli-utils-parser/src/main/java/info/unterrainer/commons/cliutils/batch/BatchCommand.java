@@ -0,0 +1,39 @@
+package info.unterrainer.commons.cliutils.batch;
+
+/**
+ * A single command line of a command-file.
+ */
+public final class BatchCommand {
+
+	private final int lineNumber;
+	private final String line;
+	private final String[] args;
+
+	BatchCommand(final int lineNumber, final String line, final String[] args) {
+		this.lineNumber = lineNumber;
+		this.line = line;
+		this.args = args;
+	}
+
+	/**
+	 * Returns the number of the line within the command-file, starting at 1.
+	 *
+	 * @return the line-number
+	 */
+	public int lineNumber() {
+		return lineNumber;
+	}
+
+	public String line() {
+		return line;
+	}
+
+	public String[] args() {
+		return args.clone();
+	}
+
+	@Override
+	public String toString() {
+		return lineNumber + ": " + line;
+	}
+}
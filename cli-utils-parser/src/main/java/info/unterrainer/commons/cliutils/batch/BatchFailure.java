@@ -0,0 +1,47 @@
+package info.unterrainer.commons.cliutils.batch;
+
+/**
+ * A command of a batch that couldn't be parsed, threw an exception or exited
+ * with a code other than 0.
+ */
+public final class BatchFailure {
+
+	private final BatchCommand command;
+	private final int exitCode;
+	private final String message;
+	private final Throwable cause;
+
+	BatchFailure(final BatchCommand command, final int exitCode, final String message, final Throwable cause) {
+		this.command = command;
+		this.exitCode = exitCode;
+		this.message = message;
+		this.cause = cause;
+	}
+
+	public BatchCommand command() {
+		return command;
+	}
+
+	public int exitCode() {
+		return exitCode;
+	}
+
+	public String message() {
+		return message;
+	}
+
+	/**
+	 * Returns the exception thrown by the parser or the handler.
+	 *
+	 * @return the exception or null, if the command exited with a code other
+	 *         than 0
+	 */
+	public Throwable cause() {
+		return cause;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("line %d: %s (exit code %d)", command.lineNumber(), message, exitCode);
+	}
+}
@@ -0,0 +1,24 @@
+package info.unterrainer.commons.cliutils.batch;
+
+import info.unterrainer.commons.cliutils.Cli;
+
+/**
+ * Runs a single command line of a command-file executed by a
+ * {@link BatchRunner}.
+ * <p>
+ * Handlers run concurrently, so they have to be thread-safe.
+ */
+@FunctionalInterface
+public interface BatchHandler {
+
+	/**
+	 * Runs the command.
+	 *
+	 * @param cli     the parsed command line
+	 * @param command the line of the command-file
+	 * @return the exit code of the command
+	 * @throws Exception if the command fails; it's counted with exit code
+	 *                   {@link BatchRunner#EXIT_FAILURE}
+	 */
+	int handle(Cli cli, BatchCommand command) throws Exception;
+}
@@ -0,0 +1,41 @@
+package info.unterrainer.commons.cliutils.batch;
+
+import java.io.PrintStream;
+
+/**
+ * Receives the progress of a {@link BatchRunner}.
+ * <p>
+ * Calls are serialized by the runner, so implementations don't have to be
+ * thread-safe.
+ */
+@FunctionalInterface
+public interface BatchProgress {
+
+	/**
+	 * Called whenever a command has completed.
+	 *
+	 * @param completed the number of completed commands
+	 * @param failed    the number of failed commands (included in completed)
+	 * @param total     the number of commands in the command-file
+	 */
+	void update(int completed, int failed, int total);
+
+	/**
+	 * Called once, when all commands have completed.
+	 *
+	 * @param result the result
+	 */
+	default void finished(final BatchResult result) {
+	}
+
+	/**
+	 * Returns a progress printing a single line with the number of completed
+	 * and failed commands that is overwritten in place.
+	 *
+	 * @param out the stream to print to
+	 * @return the progress
+	 */
+	static BatchProgress text(final PrintStream out) {
+		return new TextProgress(out);
+	}
+}
@@ -0,0 +1,53 @@
+package info.unterrainer.commons.cliutils.batch;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The aggregated outcome of running all commands of a command-file.
+ */
+public final class BatchResult {
+
+	private final int total;
+	private final List<BatchFailure> failures;
+
+	BatchResult(final int total, final List<BatchFailure> failures) {
+		this.total = total;
+		this.failures = Collections.unmodifiableList(failures);
+	}
+
+	/**
+	 * Returns the number of commands run.
+	 *
+	 * @return the number of commands
+	 */
+	public int total() {
+		return total;
+	}
+
+	public int succeeded() {
+		return total - failures.size();
+	}
+
+	/**
+	 * Returns the failed commands, ordered by their line-number.
+	 *
+	 * @return the failures
+	 */
+	public List<BatchFailure> failures() {
+		return failures;
+	}
+
+	/**
+	 * Returns the exit code of the whole batch, which is the highest exit code
+	 * of all commands.
+	 *
+	 * @return the exit code
+	 */
+	public int exitCode() {
+		int result = 0;
+		for (BatchFailure f : failures)
+			result = Math.max(result, f.exitCode());
+		return result;
+	}
+}
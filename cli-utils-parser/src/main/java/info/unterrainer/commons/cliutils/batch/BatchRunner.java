@@ -0,0 +1,200 @@
+package info.unterrainer.commons.cliutils.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import info.unterrainer.commons.cliutils.Cli;
+import info.unterrainer.commons.cliutils.CliParser;
+import info.unterrainer.commons.cliutils.CliSpec;
+
+/**
+ * Runs all command lines of a command-file in a single JVM.
+ * <p>
+ * Every line is parsed against the same compiled {@link CliSpec} and the
+ * result is dispatched to the {@link BatchHandler} on a bounded pool: at most
+ * {@link #parallelism(int)} commands run at the same time, on virtual threads
+ * on Java 21 and later and on platform threads otherwise. The file is read
+ * while the commands are running, so it's never held in memory.
+ * <p>
+ * Lines are split at whitespace; arguments may be quoted using single- or
+ * double-quotes. Empty lines and lines starting with '#' are skipped.
+ */
+public final class BatchRunner {
+
+	public static final int EXIT_FAILURE = 1;
+	public static final int EXIT_USAGE = 2;
+
+	private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+
+	private final CliSpec spec;
+	private final BatchHandler handler;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	private BatchProgress progress;
+
+	/**
+	 * The state of a single run of a command-file.
+	 */
+	private final class Execution {
+		private final int total;
+		private final List<BatchFailure> failures = new ArrayList<>();
+		private int completed;
+
+		private Execution(final int total) {
+			this.total = total;
+		}
+
+		private synchronized void completed(final BatchFailure failure) {
+			completed++;
+			if (failure != null)
+				failures.add(failure);
+			if (progress != null)
+				progress.update(completed, failures.size(), total);
+		}
+
+		private synchronized BatchResult result() {
+			List<BatchFailure> sorted = new ArrayList<>(failures);
+			sorted.sort(Comparator.comparingInt(f -> f.command().lineNumber()));
+			BatchResult result = new BatchResult(completed, sorted);
+			if (progress != null)
+				progress.finished(result);
+			return result;
+		}
+	}
+
+	public BatchRunner(final CliSpec spec, final BatchHandler handler) {
+		this.spec = spec;
+		this.handler = handler;
+	}
+
+	/**
+	 * Sets the maximum number of commands running at the same time. Defaults to
+	 * the number of processors.
+	 *
+	 * @param parallelism the number of commands
+	 * @return this runner
+	 */
+	public BatchRunner parallelism(final int parallelism) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("Parallelism must be at least 1.");
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Reports the progress of the batch to the given listener, like
+	 * {@link BatchProgress#text(PrintStream)}.
+	 *
+	 * @param progress the listener
+	 * @return this runner
+	 */
+	public BatchRunner progress(final BatchProgress progress) {
+		this.progress = progress;
+		return this;
+	}
+
+	/**
+	 * Runs all commands of the given command-file and waits for them to
+	 * complete.
+	 * <p>
+	 * Commands that can't be parsed are counted with exit code
+	 * {@link #EXIT_USAGE}, commands whose handler throws an exception (or an
+	 * error) with {@link #EXIT_FAILURE}.
+	 *
+	 * @param file the command-file (UTF-8)
+	 * @return the aggregated exit codes and errors
+	 * @throws IOException          if the file can't be read
+	 * @throws InterruptedException if interrupted while waiting for the commands
+	 */
+	public BatchResult run(final Path file) throws IOException, InterruptedException {
+		Execution execution = new Execution(count(file));
+		Semaphore permits = new Semaphore(parallelism);
+		ExecutorService executor = newExecutor(parallelism);
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				String[] args = split(line);
+				if (args.length == 0)
+					continue;
+				BatchCommand command = new BatchCommand(lineNumber, line, args);
+				permits.acquire();
+				executor.execute(() -> {
+					BatchFailure failure;
+					try {
+						failure = run(command);
+					} catch (Throwable t) {
+						// Errors are recorded as well, so the result covers every command.
+						failure = new BatchFailure(command, EXIT_FAILURE, t.toString(), t);
+					}
+					try {
+						execution.completed(failure);
+					} finally {
+						permits.release();
+					}
+				});
+			}
+			permits.acquire(parallelism);
+		} finally {
+			executor.shutdown();
+		}
+		return execution.result();
+	}
+
+	private BatchFailure run(final BatchCommand command) {
+		BatchFailure failure = null;
+		Cli cli = null;
+		try {
+			cli = spec.parse(command.args(), DISCARD);
+		} catch (RuntimeException e) {
+			failure = new BatchFailure(command, EXIT_USAGE, e.getMessage(), e);
+		}
+		if (cli != null)
+			try {
+				int code = handler.handle(cli, command);
+				if (code != 0)
+					failure = new BatchFailure(command, code, "Exited with code " + code + ".", null);
+			} catch (Exception e) {
+				failure = new BatchFailure(command, EXIT_FAILURE, String.valueOf(e.getMessage()), e);
+			}
+		return failure;
+	}
+
+	private static ExecutorService newExecutor(final int parallelism) {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newFixedThreadPool(parallelism, r -> {
+				Thread t = new Thread(r, "cli-batch-worker");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+
+	private static int count(final Path file) throws IOException {
+		int result = 0;
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null)
+				if (split(line).length > 0)
+					result++;
+		}
+		return result;
+	}
+
+	private static String[] split(final String line) {
+		return CliParser.splitArguments(line);
+	}
+}
@@ -0,0 +1,42 @@
+package info.unterrainer.commons.cliutils.batch;
+
+import java.io.PrintStream;
+
+/**
+ * Prints the progress of a batch as a single line that is overwritten using
+ * carriage-returns, at most ten times a second.
+ */
+final class TextProgress implements BatchProgress {
+
+	private static final long INTERVAL = 100_000_000L;
+
+	private final PrintStream out;
+	private long last = System.nanoTime() - INTERVAL;
+
+	TextProgress(final PrintStream out) {
+		this.out = out;
+	}
+
+	@Override
+	public void update(final int completed, final int failed, final int total) {
+		long now = System.nanoTime();
+		if (now - last < INTERVAL && completed < total)
+			return;
+		last = now;
+		print(completed, failed, total);
+	}
+
+	@Override
+	public void finished(final BatchResult result) {
+		print(result.total(), result.failures().size(), result.total());
+		out.println();
+		out.flush();
+	}
+
+	private void print(final int completed, final int failed, final int total) {
+		String width = "%" + String.valueOf(total).length() + "d";
+		out.print(String.format("\r[" + width + "/%d] %3d%% %d failed", completed, total,
+				total == 0 ? 100 : completed * 100L / total, failed));
+		out.flush();
+	}
+}
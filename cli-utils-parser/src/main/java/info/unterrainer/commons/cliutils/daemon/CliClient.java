@@ -0,0 +1,108 @@
+package info.unterrainer.commons.cliutils.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * The thin client of a {@link CliDaemon}.
+ * <p>
+ * Forwards the arguments, the environment and the working directory to the
+ * daemon and copies the output it streams back to standard-out and
+ * standard-error. The client doesn't load any classes of the parser.
+ */
+public final class CliClient {
+
+	public static final String SOCKET_PROPERTY = "cli.daemon.socket";
+	public static final String SOCKET_VARIABLE = "CLI_DAEMON_SOCKET";
+
+	private CliClient() {
+	}
+
+	/**
+	 * Runs the given command line on the daemon listening on the socket given by
+	 * the system-property {@value #SOCKET_PROPERTY} or the environment-variable
+	 * {@value #SOCKET_VARIABLE} and exits with its exit code.
+	 *
+	 * @param args the command line arguments
+	 */
+	public static void main(final String[] args) {
+		String socket = System.getProperty(SOCKET_PROPERTY, System.getenv(SOCKET_VARIABLE));
+		if (socket == null) {
+			System.err.printf("Set -D%s or %s to the socket of the daemon.%n", SOCKET_PROPERTY, SOCKET_VARIABLE);
+			System.exit(CliDaemon.EXIT_USAGE);
+		}
+		try {
+			System.exit(run(Path.of(socket), args));
+		} catch (IOException e) {
+			System.err.println("Cannot reach the daemon: " + e.getMessage());
+			System.exit(CliDaemon.EXIT_FAILURE);
+		}
+	}
+
+	/**
+	 * Runs the given command line on the daemon using the environment and the
+	 * working directory of this process.
+	 *
+	 * @param socket the socket the daemon listens on
+	 * @param args   the command line arguments
+	 * @return the exit code
+	 * @throws IOException if the daemon can't be reached
+	 */
+	public static int run(final Path socket, final String[] args) throws IOException {
+		return run(socket, args, System.getenv(), Path.of("").toAbsolutePath(), System.out, System.err);
+	}
+
+	/**
+	 * Runs the given command line on the daemon.
+	 *
+	 * @param socket the socket the daemon listens on
+	 * @param args   the command line arguments
+	 * @param env    the environment passed to the command
+	 * @param cwd    the working directory passed to the command
+	 * @param out    receives the standard-output of the command
+	 * @param err    receives the standard-error of the command
+	 * @return the exit code
+	 * @throws IOException if the daemon can't be reached
+	 */
+	public static int run(final Path socket, final String[] args, final Map<String, String> env, final Path cwd,
+			final PrintStream out, final PrintStream err) throws IOException {
+		try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+			channel.connect(UnixDomainSocketAddress.of(socket));
+			DataOutputStream request = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+			Protocol.writeRequest(request, args, env, cwd);
+			DataInputStream response = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+			byte[] buffer = new byte[8192];
+			while (true) {
+				byte type;
+				try {
+					type = response.readByte();
+				} catch (EOFException e) {
+					throw new IOException("The daemon closed the connection without an exit code.", e);
+				}
+				if (type == Protocol.EXIT)
+					return response.readInt();
+				PrintStream target = type == Protocol.STDERR ? err : out;
+				int length = response.readInt();
+				while (length > 0) {
+					int n = response.read(buffer, 0, Math.min(length, buffer.length));
+					if (n < 0)
+						throw new EOFException();
+					target.write(buffer, 0, n);
+					length -= n;
+				}
+				target.flush();
+			}
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package info.unterrainer.commons.cliutils.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import info.unterrainer.commons.cliutils.Cli;
+import info.unterrainer.commons.cliutils.CliSpec;
+
+/**
+ * Keeps a compiled {@link CliSpec} in a warm JVM and runs the command lines
+ * sent by {@link CliClient}s over a Unix domain socket.
+ * <p>
+ * Every request is parsed and dispatched to the {@link CommandHandler} on a
+ * thread of its own; on Java 21 and later that's a virtual thread. Output
+ * written to the {@link Invocation} is streamed back to the client while the
+ * command is running, followed by its exit code.
+ * <p>
+ * Anyone who can connect to the socket can run commands in this JVM, so the
+ * socket is made accessible to its owner only (on file-systems supporting
+ * POSIX permissions). Place it in a directory only its owner can access (like
+ * {@code $XDG_RUNTIME_DIR}) as well, since the permissions can only be set
+ * after the socket has been created. A socket of another daemon that is still
+ * running is never replaced.
+ */
+public final class CliDaemon implements Closeable {
+
+	public static final int EXIT_FAILURE = 1;
+	public static final int EXIT_USAGE = 2;
+
+	private final CliSpec spec;
+	private final Path socket;
+	private final CommandHandler handler;
+	private final ExecutorService executor = newExecutor();
+	private volatile ServerSocketChannel server;
+
+	public CliDaemon(final CliSpec spec, final Path socket, final CommandHandler handler) {
+		this.spec = spec;
+		this.socket = socket;
+		this.handler = handler;
+	}
+
+	/**
+	 * Returns the socket this daemon listens on.
+	 *
+	 * @return the path of the socket
+	 */
+	public Path socket() {
+		return socket;
+	}
+
+	/**
+	 * Creates an executor running every task on a new virtual thread, if the
+	 * JVM supports them, and on a (cached) platform thread otherwise.
+	 */
+	private static ExecutorService newExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(r -> {
+				Thread t = new Thread(r, "cli-daemon-worker");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+
+	/**
+	 * Binds the socket and accepts requests on a background thread until the
+	 * daemon is closed.
+	 *
+	 * @return this daemon
+	 * @throws IOException if the socket can't be bound
+	 */
+	public CliDaemon start() throws IOException {
+		bind();
+		Thread acceptor = new Thread(this::accept, "cli-daemon");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		return this;
+	}
+
+	/**
+	 * Binds the socket and accepts requests on the calling thread until the
+	 * daemon is closed.
+	 *
+	 * @throws IOException if the socket can't be bound
+	 */
+	public void serve() throws IOException {
+		bind();
+		accept();
+	}
+
+	private void bind() throws IOException {
+		if (Files.exists(socket, LinkOption.NOFOLLOW_LINKS)) {
+			if (Files.isRegularFile(socket, LinkOption.NOFOLLOW_LINKS)
+					|| Files.isDirectory(socket, LinkOption.NOFOLLOW_LINKS))
+				throw new IOException(String.format("'%s' exists and isn't a socket.", socket));
+			if (isServed())
+				throw new IOException(String.format("Another daemon is listening on '%s'.", socket));
+			// The socket of a daemon that is gone.
+			Files.delete(socket);
+		}
+		ServerSocketChannel s = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		try {
+			s.bind(UnixDomainSocketAddress.of(socket));
+			if (socket.getFileSystem().supportedFileAttributeViews().contains("posix"))
+				Files.setPosixFilePermissions(socket, PosixFilePermissions.fromString("rw-------"));
+		} catch (IOException e) {
+			s.close();
+			throw e;
+		}
+		server = s;
+	}
+
+	private boolean isServed() {
+		try (SocketChannel probe = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+			return probe.connect(UnixDomainSocketAddress.of(socket));
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private void accept() {
+		ServerSocketChannel s = server;
+		while (s.isOpen()) {
+			SocketChannel channel;
+			try {
+				channel = s.accept();
+			} catch (AsynchronousCloseException e) {
+				return;
+			} catch (IOException e) {
+				if (!s.isOpen())
+					return;
+				continue;
+			}
+			executor.execute(() -> handle(channel));
+		}
+	}
+
+	private void handle(final SocketChannel channel) {
+		try (channel;
+				DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+				DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+			String[] args = Protocol.readArgs(in);
+			Invocation invocation = new Invocation(args, Protocol.readEnv(in), Path.of(Protocol.readString(in)),
+					stream(out, Protocol.STDOUT), stream(out, Protocol.STDERR));
+			int code = run(args, invocation);
+			invocation.out().flush();
+			invocation.err().flush();
+			synchronized (out) {
+				out.writeByte(Protocol.EXIT);
+				out.writeInt(code);
+				out.flush();
+			}
+		} catch (IOException e) {
+			// The client went away; there is no one left to report this to.
+		}
+	}
+
+	private static PrintStream stream(final DataOutputStream out, final byte type) {
+		return new PrintStream(new BufferedOutputStream(new Protocol.FrameOutputStream(out, type)), true,
+				StandardCharsets.UTF_8);
+	}
+
+	private int run(final String[] args, final Invocation invocation) {
+		Cli cli;
+		try {
+			cli = spec.parse(args, invocation.out(), invocation.env(), invocation.cwd());
+		} catch (RuntimeException e) {
+			invocation.err().println(e.getMessage());
+			return EXIT_USAGE;
+		}
+		try {
+			return handler.handle(cli, invocation);
+		} catch (Exception e) {
+			e.printStackTrace(invocation.err());
+			return EXIT_FAILURE;
+		}
+	}
+
+	/**
+	 * Stops accepting requests and removes the socket. Requests that are already
+	 * running are completed.
+	 */
+	@Override
+	public void close() throws IOException {
+		ServerSocketChannel s = server;
+		if (s != null)
+			s.close();
+		executor.shutdown();
+		Files.deleteIfExists(socket);
+	}
+}
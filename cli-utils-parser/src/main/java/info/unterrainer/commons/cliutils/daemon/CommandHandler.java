@@ -0,0 +1,25 @@
+package info.unterrainer.commons.cliutils.daemon;
+
+import info.unterrainer.commons.cliutils.Cli;
+
+/**
+ * Runs a single command line parsed by a {@link CliDaemon}.
+ */
+@FunctionalInterface
+public interface CommandHandler {
+
+	/**
+	 * Runs the command.
+	 * <p>
+	 * Write to {@link Invocation#out()} and {@link Invocation#err()} instead of
+	 * {@code System.out} and {@code System.err}.
+	 *
+	 * @param cli        the parsed command line
+	 * @param invocation the environment, working directory and output of the
+	 *                   client
+	 * @return the exit code sent to the client
+	 * @throws Exception if the command fails; the client exits with
+	 *                   {@link CliDaemon#EXIT_FAILURE}
+	 */
+	int handle(Cli cli, Invocation invocation) throws Exception;
+}
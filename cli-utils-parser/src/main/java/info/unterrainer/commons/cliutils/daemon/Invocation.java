@@ -0,0 +1,60 @@
+package info.unterrainer.commons.cliutils.daemon;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * A single command line received by a {@link CliDaemon}.
+ * <p>
+ * Holds the environment and the working directory of the client, since the
+ * ones of the daemon's JVM are shared by all requests. Everything written to
+ * {@link #out()} and {@link #err()} is streamed back to the client.
+ */
+public final class Invocation {
+
+	private final String[] args;
+	private final Map<String, String> env;
+	private final Path cwd;
+	private final PrintStream out;
+	private final PrintStream err;
+
+	Invocation(final String[] args, final Map<String, String> env, final Path cwd, final PrintStream out,
+			final PrintStream err) {
+		this.args = args;
+		this.env = env;
+		this.cwd = cwd;
+		this.out = out;
+		this.err = err;
+	}
+
+	public String[] args() {
+		return args.clone();
+	}
+
+	public Map<String, String> env() {
+		return env;
+	}
+
+	public Path cwd() {
+		return cwd;
+	}
+
+	public PrintStream out() {
+		return out;
+	}
+
+	public PrintStream err() {
+		return err;
+	}
+
+	/**
+	 * Resolves the given path against the working directory of the client.
+	 *
+	 * @param path the path (given on the command line, for example)
+	 * @return the resolved path
+	 */
+	public Path resolve(final String path) {
+		return cwd.resolve(path);
+	}
+}
@@ -0,0 +1,123 @@
+package info.unterrainer.commons.cliutils.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The wire-format spoken between {@link CliClient} and {@link CliDaemon}.
+ * <p>
+ * The client sends a single request (the arguments, the environment and the
+ * working directory). The daemon answers with any number of frames containing
+ * output (a type-byte, the length and the bytes) followed by a single frame
+ * containing the exit code.
+ */
+final class Protocol {
+
+	static final byte STDOUT = 1;
+	static final byte STDERR = 2;
+	static final byte EXIT = 3;
+
+	/**
+	 * The maximum number of arguments or environment-variables of a request.
+	 */
+	static final int MAX_ENTRIES = 1 << 16;
+	/**
+	 * The maximum length of a single string of a request in bytes.
+	 */
+	static final int MAX_STRING = 1 << 20;
+
+	private Protocol() {
+	}
+
+	static void writeRequest(final DataOutputStream out, final String[] args, final Map<String, String> env,
+			final Path cwd) throws IOException {
+		out.writeInt(args.length);
+		for (String arg : args)
+			writeString(out, arg);
+		out.writeInt(env.size());
+		for (Map.Entry<String, String> e : env.entrySet()) {
+			writeString(out, e.getKey());
+			writeString(out, e.getValue());
+		}
+		writeString(out, cwd.toAbsolutePath().toString());
+		out.flush();
+	}
+
+	static String[] readArgs(final DataInputStream in) throws IOException {
+		String[] args = new String[readLength(in, MAX_ENTRIES, "arguments")];
+		for (int i = 0; i < args.length; i++)
+			args[i] = readString(in);
+		return args;
+	}
+
+	static Map<String, String> readEnv(final DataInputStream in) throws IOException {
+		int n = readLength(in, MAX_ENTRIES, "environment-variables");
+		Map<String, String> env = new HashMap<>(n * 4 / 3 + 1);
+		for (int i = 0; i < n; i++)
+			env.put(readString(in), readString(in));
+		return env;
+	}
+
+	static void writeString(final DataOutputStream out, final String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(final DataInputStream in) throws IOException {
+		byte[] bytes = new byte[readLength(in, MAX_STRING, "bytes")];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads a length announced by the peer, which mustn't be trusted to allocate
+	 * an array of that size.
+	 */
+	private static int readLength(final DataInputStream in, final int max, final String what) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > max)
+			throw new IOException(String.format("Invalid number of %s: %d (the maximum is %d).", what, length, max));
+		return length;
+	}
+
+	/**
+	 * Sends everything written to it as output-frames of a single type.
+	 * <p>
+	 * Frames of stdout and stderr share a single connection, so writing a frame
+	 * is synchronized on it.
+	 */
+	static final class FrameOutputStream extends OutputStream {
+
+		private final DataOutputStream out;
+		private final byte type;
+
+		FrameOutputStream(final DataOutputStream out, final byte type) {
+			this.out = out;
+			this.type = type;
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			if (len == 0)
+				return;
+			synchronized (out) {
+				out.writeByte(type);
+				out.writeInt(len);
+				out.write(b, off, len);
+				out.flush();
+			}
+		}
+	}
+}
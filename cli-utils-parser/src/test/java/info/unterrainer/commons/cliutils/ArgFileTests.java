@@ -0,0 +1,106 @@
+package info.unterrainer.commons.cliutils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+public class ArgFileTests {
+
+	private Path write(final String content) throws IOException {
+		Path file = Files.createTempFile("args", ".txt");
+		file.toFile().deleteOnExit();
+		return Files.writeString(file, content);
+	}
+
+	private CliParserBuilder builder(final ParserEngine engine) {
+		return CliParser.specFor("test", "a test program")
+				.engine(engine)
+				.expandArgFiles()
+				.addFlag(Flag.builder("verbose").shortName("v"))
+				.addArg(Arg.String("name"))
+				.addArg(Arg.Integer("ids").unlimited());
+	}
+
+	@Test
+	public void argFileIsExpanded() throws IOException {
+		Path file = write("# a comment\n--name \"John Doe\"\n-v\n");
+		for (ParserEngine engine : ParserEngine.values()) {
+			Cli cli = builder(engine).compile().parse(new String[] { "@" + file });
+
+			assertThat(cli.isFlagSet("verbose")).isTrue();
+			assertThat((String) cli.getArgValue("name")).isEqualTo("John Doe");
+		}
+	}
+
+	@Test
+	public void unlimitedValuesInArgFileAreStreamed() throws IOException {
+		Path file = write("--ids 1 2,3\n4\n5 -v rest");
+		for (ParserEngine engine : ParserEngine.values()) {
+			Arg<Integer> ids = Arg.Integer("ids").unlimited();
+			Cli cli = builder(engine).addArg(ids).compile().parse(new String[] { "@" + file, "--name", "n" });
+
+			List<Integer> values = cli.streamArgValues(ids).collect(Collectors.toList());
+			assertThat(values).containsExactly(1, 2, 3, 4, 5);
+			assertThat(cli.getInts(ids)).containsExactly(1, 2, 3, 4, 5);
+			assertThat(cli.isFlagSet("verbose")).isTrue();
+			assertThat((String) cli.getArgValue("name")).isEqualTo("n");
+			assertThat(cli.getArgs()).containsExactly("rest");
+		}
+	}
+
+	@Test
+	public void doubleDashInArgFileEndsOptions() throws IOException {
+		Path file = write("--ids 1 2 -- 3 -v\n");
+		Path other = write("-v");
+		for (ParserEngine engine : ParserEngine.values()) {
+			Arg<Integer> ids = Arg.Integer("ids").unlimited();
+			Cli cli = builder(engine).addArg(ids).compile().parse(new String[] { "@" + file, "@" + other });
+
+			assertThat(cli.getInts(ids)).containsExactly(1, 2);
+			assertThat(cli.isFlagSet("verbose")).isFalse();
+			assertThat(cli.getArgs()).containsExactly("3", "-v", "@" + other);
+		}
+	}
+
+	@Test
+	public void valuesOnCommandLineAndInArgFileAreCombined() throws IOException {
+		Path file = write("3 4");
+		Arg<Integer> ids = Arg.Integer("ids").unlimited();
+		Cli cli = builder(ParserEngine.NATIVE).addArg(ids)
+				.compile()
+				.parse(new String[] { "--ids", "1,2", "@" + file, "-v" });
+
+		Iterator<Integer> i = cli.iterateArgValues(ids);
+		assertThat(i.next()).isEqualTo(1);
+		assertThat(i.next()).isEqualTo(2);
+		assertThat(i.next()).isEqualTo(3);
+		assertThat(i.next()).isEqualTo(4);
+		assertThat(i.hasNext()).isFalse();
+		assertThat(cli.isFlagSet("verbose")).isTrue();
+	}
+
+	@Test
+	public void missingArgFileThrowsException() {
+		for (ParserEngine engine : ParserEngine.values())
+			assertThrows(RuntimeException.class,
+					() -> builder(engine).compile().parse(new String[] { "@does-not-exist.txt" }));
+	}
+
+	@Test
+	public void argFilesAreNotExpandedByDefault() {
+		Cli cli = CliParser.specFor("test", "a test program")
+				.addArg(Arg.String("name"))
+				.compile()
+				.parse(new String[] { "--name", "@home" });
+
+		assertThat((String) cli.getArgValue("name")).isEqualTo("@home");
+	}
+}
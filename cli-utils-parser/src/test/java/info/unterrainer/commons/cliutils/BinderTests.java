@@ -0,0 +1,100 @@
+package info.unterrainer.commons.cliutils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class BinderTests {
+
+	public static class Config {
+		@Option(shortName = "s", description = "the server")
+		private String server;
+		@Option(longName = "port-number", shortName = "p")
+		private int port = 8080;
+		@Option
+		private Double ratio;
+		@Option(shortName = "v")
+		private boolean verbose;
+		@Option
+		private List<Integer> ids;
+		private String ignored = "untouched";
+	}
+
+	public record Settings(@Option(shortName = "s") String server, @Option(longName = "port-number") int port,
+			@Option boolean verbose, String ignored) {
+	}
+
+	public static class Broken {
+		@Option
+		private final String server = null;
+	}
+
+	private CliSpec spec() {
+		return CliParser.specFor("test", "a test program").addOptions(Config.class).compile();
+	}
+
+	@Test
+	public void optionsAreRegistered() {
+		CliSpec spec = spec();
+		assertThat(spec.options.keySet()).contains("server", "port-number", "ratio", "verbose", "ids");
+		assertThat(spec.options.get("server").shortName()).isEqualTo("s");
+		assertThat(spec.options.get("ids").numberOfArgs()).isEqualTo(CliOption.UNLIMITED);
+	}
+
+	@Test
+	public void bindingToClassWorks() {
+		Config config = spec().parse("-s localhost -p 1234 --ratio 0.5 -v --ids 1,2,3".split(" ")).bind(Config.class);
+		assertThat(config.server).isEqualTo("localhost");
+		assertThat(config.port).isEqualTo(1234);
+		assertThat(config.ratio).isEqualTo(0.5);
+		assertThat(config.verbose).isTrue();
+		assertThat(config.ids).containsExactly(1, 2, 3);
+		assertThat(config.ignored).isEqualTo("untouched");
+	}
+
+	@Test
+	public void unsetOptionsKeepTheirDefault() {
+		Config config = spec().parse("-s localhost".split(" ")).bind(Config.class);
+		assertThat(config.port).isEqualTo(8080);
+		assertThat(config.ratio).isNull();
+		assertThat(config.verbose).isFalse();
+	}
+
+	@Test
+	public void bindingIntoInstanceWorks() {
+		Config config = new Config();
+		Config result = spec().parse("-p 1".split(" ")).bindInto(config);
+		assertThat(result).isSameAs(config);
+		assertThat(config.port).isEqualTo(1);
+	}
+
+	@Test
+	public void bindingToRecordWorks() {
+		CliSpec spec = CliParser.specFor("test", "a test program").addOptions(Settings.class).compile();
+		Settings settings = spec.parse("-s localhost --verbose".split(" ")).bind(Settings.class);
+		assertThat(settings.server()).isEqualTo("localhost");
+		assertThat(settings.port()).isEqualTo(0);
+		assertThat(settings.verbose()).isTrue();
+		assertThat(settings.ignored()).isNull();
+	}
+
+	@Test
+	public void bindingToMismatchingTypeThrowsException() {
+		Cli cli = CliParser.specFor("test", "a test program")
+				.addArg(Arg.String("port-number"))
+				.addArg(Arg.String("server"))
+				.addFlag(Flag.builder("verbose"))
+				.compile()
+				.parse(new String[0]);
+		assertThrows(IllegalArgumentException.class, () -> cli.bind(Settings.class));
+	}
+
+	@Test
+	public void bindingToFinalFieldThrowsException() {
+		assertThrows(IllegalArgumentException.class,
+				() -> CliParser.specFor("test", "a test program").addOptions(Broken.class));
+	}
+}
@@ -227,4 +227,202 @@ public class BuilderTests {
 		assertThat(cli.isFlagSet("result")).isFalse();
 		assertThat(cli.isFlagSet("recursive")).isTrue();
 	}
+
+	@Test
+	public void compiledSpecCanBeReusedForSeveralCommandLines() {
+		CliSpec spec = CliParser.specFor("test", "a test program")
+				.addFlag(Flag.builder("flag"))
+				.addArg(Arg.Integer("integer").defaultValue(2))
+				.compile();
+
+		Cli first = spec.parse("--flag --integer 5".split(" "));
+		Cli second = spec.parse(new String[0]);
+
+		assertThat(first.isFlagSet("flag")).isTrue();
+		assertThat((Integer) first.getArgValue("integer")).isEqualByComparingTo(5);
+		assertThat(second.isFlagSet("flag")).isFalse();
+		assertThat((Integer) second.getArgValue("integer")).isEqualByComparingTo(2);
+	}
+
+	@Test
+	public void compiledSpecIsNotAffectedByLaterChangesToTheBuilder() {
+		CliParserBuilder builder = CliParser.specFor("test", "a test program").addFlag(Flag.builder("flat"));
+		CliSpec spec = builder.compile();
+		builder.addFlag(Flag.builder("row"));
+
+		assertThrows(RuntimeException.class, () -> spec.parse("--row".split(" ")));
+	}
+
+	@Test
+	public void compilingConstraintOnUnknownOptionThrowsException() {
+		assertThrows(IllegalStateException.class,
+				() -> CliParser.specFor("test", "a test program")
+						.addFlag(Flag.builder("flat"))
+						.addMinRequired(1, "flat", "row")
+						.compile());
+	}
+
+	@Test
+	public void handlesGiveTypedAccess() {
+		Flag verbose = Flag.builder("verbose");
+		Arg<String> name = Arg.String("name");
+		Arg<Integer> count = Arg.Integer("count").defaultValue(1);
+		Cli cli = CliParser.cliFor("--verbose --name blah".split(" "), "test", "a test program")
+				.addFlag(verbose)
+				.addArg(name)
+				.addArg(count)
+				.create();
+
+		String n = cli.getArgValue(name);
+		Integer c = cli.getArgValue(count);
+		assertThat(cli.isFlagSet(verbose)).isTrue();
+		assertThat(cli.isArgSet(count)).isFalse();
+		assertThat(n).isEqualTo("blah");
+		assertThat(c).isEqualByComparingTo(1);
+	}
+
+	@Test
+	public void primitiveGettersReturnSetAndDefaultValues() {
+		Arg<Integer> integer = Arg.Integer("integer");
+		Arg<Float> f = Arg.Float("float").defaultValue(3.2F);
+		Arg<Double> d = Arg.Double("double");
+		Cli cli = CliParser.cliFor("--integer 3 --double 2.5".split(" "), "test", "a test program")
+				.addArg(integer)
+				.addArg(f)
+				.addArg(d)
+				.create();
+
+		assertThat(cli.getInt(integer)).isEqualTo(3);
+		assertThat(cli.getFloat(f)).isEqualTo(3.2F);
+		assertThat(cli.getDouble(d)).isEqualTo(2.5D);
+	}
+
+	@Test
+	public void primitiveGetterOfUnsetArgWithoutDefaultThrowsException() {
+		Arg<Integer> integer = Arg.Integer("integer");
+		Cli cli = CliParser.cliFor(new String[0], "test", "a test program").addArg(integer).create();
+
+		assertThrows(IllegalStateException.class, () -> cli.getInt(integer));
+	}
+
+	@Test
+	public void invalidNumberThrowsExceptionWhenParsing() {
+		String[] args = "--integer abc".split(" ");
+		assertThrows(RuntimeException.class,
+				() -> CliParser.cliFor(args, "test", "a test program").addArg(Arg.Integer("integer")).create());
+	}
+
+	@Test
+	public void constraintsWorkWithMoreThanSixtyFourOptions() {
+		CliParserBuilder builder = CliParser.specFor("test", "a test program");
+		for (int i = 0; i < 100; i++)
+			builder.addFlag(Flag.builder("flag" + i));
+		CliSpec spec = builder.addExactlyRequired(2, "flag3", "flag70", "flag99").compile();
+
+		assertThat(spec.parse("--flag3 --flag99".split(" ")).isFlagSet("flag99")).isTrue();
+		assertThrows(RuntimeException.class, () -> spec.parse("--flag3 --flag70 --flag99".split(" ")));
+		assertThrows(RuntimeException.class, () -> spec.parse("--flag70 --flag1".split(" ")));
+	}
+
+	@Test
+	public void violatedDependencyThrowsException() {
+		String[] args = "--flat".split(" ");
+		IllegalStateException e = assertThrows(IllegalStateException.class,
+				() -> CliParser.cliFor(args, "test", "a test program")
+						.addFlag(Flag.builder("flat"))
+						.addFlag(Flag.builder("row"))
+						.addDependency("flat", "row")
+						.create());
+		assertThat(e.getMessage()).contains("row");
+	}
+
+	@Test
+	public void fulfilledDependencyWorks() {
+		String[] args = "--flat --row".split(" ");
+		Cli cli = CliParser.cliFor(args, "test", "a test program")
+				.addFlag(Flag.builder("flat"))
+				.addFlag(Flag.builder("row"))
+				.addDependency("flat", "row")
+				.create();
+		assertThat(cli.isFlagSet("row")).isTrue();
+	}
+
+	@Test
+	public void dependenciesAreMerged() {
+		CliSpec spec = CliParser.specFor("test", "a test program")
+				.addFlag(Flag.builder("flat"))
+				.addFlag(Flag.builder("row"))
+				.addFlag(Flag.builder("col"))
+				.addDependency("flat", "row")
+				.addDependency("flat", "col")
+				.compile();
+		IllegalStateException e = assertThrows(IllegalStateException.class,
+				() -> spec.parse("--flat --row".split(" ")));
+		assertThat(e.getMessage()).contains("col");
+	}
+
+	@Test
+	public void dependenciesAreTransitive() {
+		CliSpec spec = CliParser.specFor("test", "a test program")
+				.addFlag(Flag.builder("cluster"))
+				.addFlag(Flag.builder("nodes"))
+				.addFlag(Flag.builder("node-file"))
+				.addDependency("cluster", "nodes")
+				.addDependency("nodes", "node-file")
+				.compile();
+		IllegalStateException e = assertThrows(IllegalStateException.class,
+				() -> spec.parse("--cluster --nodes".split(" ")));
+		assertThat(e.getMessage()).isEqualTo("With 'cluster' option you must also specify these: [node-file]");
+		assertThat(spec.parse("--cluster --nodes --node-file".split(" ")).isFlagSet("cluster")).isTrue();
+	}
+
+	@Test
+	public void cyclicDependencyIsDetectedAtCompileTime() {
+		IllegalStateException e = assertThrows(IllegalStateException.class,
+				() -> CliParser.specFor("test", "a test program")
+						.addFlag(Flag.builder("a"))
+						.addFlag(Flag.builder("b"))
+						.addFlag(Flag.builder("c"))
+						.addDependency("a", "b")
+						.addDependency("b", "c")
+						.addDependency("c", "a")
+						.compile());
+		assertThat(e.getMessage()).startsWith("Cyclic dependency: ");
+	}
+
+	@Test
+	public void unknownOptionsOfConstraintsAreDetectedAtCompileTime() {
+		IllegalStateException e = assertThrows(IllegalStateException.class,
+				() -> CliParser.specFor("test", "a test program")
+						.addFlag(Flag.builder("a"))
+						.addMinRequired(1, "a", "b")
+						.addDependency("c", "a")
+						.compile());
+		assertThat(e.getMessage()).isEqualTo("Unknown option: [b, c]");
+	}
+
+	@Test
+	public void violatedExclusionThrowsException() {
+		CliSpec spec = CliParser.specFor("test", "a test program")
+				.addFlag(Flag.builder("quiet"))
+				.addFlag(Flag.builder("verbose"))
+				.addExclusion("quiet", "verbose")
+				.compile();
+		IllegalStateException e = assertThrows(IllegalStateException.class,
+				() -> spec.parse("--verbose --quiet".split(" ")));
+		assertThat(e.getMessage()).isEqualTo("Option 'quiet' can't be used together with: [verbose]");
+		assertThat(spec.parse("--verbose".split(" ")).isFlagSet("verbose")).isTrue();
+	}
+
+	@Test
+	public void unsatisfiableDependencyIsDetectedAtCompileTime() {
+		assertThrows(IllegalStateException.class,
+				() -> CliParser.specFor("test", "a test program")
+						.addFlag(Flag.builder("a"))
+						.addFlag(Flag.builder("b"))
+						.addFlag(Flag.builder("c"))
+						.addDependency("a", "b", "c")
+						.addExclusion("c", "b")
+						.compile());
+	}
 }
@@ -0,0 +1,103 @@
+package info.unterrainer.commons.cliutils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+public class CompletionTests {
+
+	private enum Mode {
+		FAST, SAFE
+	}
+
+	private CliSpec spec() {
+		return CliParser.specFor("tool", "a tool")
+				.addArg(Arg.Enum("mode", Mode.class).shortName("m").description("the mode"))
+				.addArg(Arg.String("coordinates").name("x", "y").description("a pair of coordinates"))
+				.addFlag(Flag.builder("verbose").shortName("v").description("talks a lot [really]"))
+				.subcommand("import", "imports things", spec -> spec.addArg(Arg.Path("file").shortName("f")))
+				.subcommand("export", "exports things",
+						spec -> spec.addFlag(Flag.builder("all"))
+								.subcommand("users", s -> s.addFlag(Flag.builder("admins"))))
+				.compile();
+	}
+
+	private static boolean installed(final String shell) {
+		for (String dir : System.getenv().getOrDefault("PATH", "").split(File.pathSeparator))
+			if (Files.isExecutable(Path.of(dir, shell)))
+				return true;
+		return false;
+	}
+
+	private static String run(final String... command) throws IOException, InterruptedException {
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+		assertThat(process.waitFor()).as(output).isEqualTo(0);
+		return output;
+	}
+
+	private String bashComplete(final String line) throws IOException, InterruptedException {
+		Path script = Files.createTempFile("tool", ".bash");
+		Files.writeString(script, spec().completion(Shell.BASH));
+		return run("bash", "-c", "source " + script + "; COMP_WORDS=(" + line + "); "
+				+ "COMP_CWORD=$((${#COMP_WORDS[@]} - 1)); _tool_complete; echo \"${COMPREPLY[*]}\"").trim();
+	}
+
+	@Test
+	public void bashScriptContainsOptionsSubcommandsAndChoices() {
+		String script = spec().completion(Shell.BASH);
+		assertThat(script).contains("complete -o default -F _tool_complete tool")
+				.contains("--mode|-m) COMPREPLY=($(compgen -W \"FAST SAFE\" -- \"$cur\")); return ;;")
+				.contains("'import'|'export'|'export users') cmd=\"$next\" ;;")
+				.contains("--file|-f) COMPREPLY=($(compgen -f -- \"$cur\")); return ;;");
+	}
+
+	@Test
+	public void bashCompletesOptionsSubcommandsAndChoices() throws Exception {
+		assumeTrue(installed("bash"));
+		assertThat(bashComplete("tool ''").split(" ")).containsExactlyInAnyOrder("--mode", "-m", "--coordinates",
+				"--verbose", "-v", "--help", "-h", "import", "export");
+		assertThat(bashComplete("tool --m")).isEqualTo("--mode");
+		assertThat(bashComplete("tool -m ''")).isEqualTo("FAST SAFE");
+		assertThat(bashComplete("tool export --").split(" ")).containsExactlyInAnyOrder("--all", "--help");
+		assertThat(bashComplete("tool export users --a")).isEqualTo("--admins");
+	}
+
+	@Test
+	public void zshScriptContainsArgNamesAndDescriptions() throws Exception {
+		String script = spec().completion(Shell.ZSH);
+		assertThat(script).startsWith("#compdef tool\n")
+				.contains("'(-m --mode)'{-m,--mode}'[the mode]:ARG:(FAST SAFE)'")
+				.contains("'--coordinates[a pair of coordinates]:x::y:'")
+				.contains("'(-v --verbose)'{-v,--verbose}'[talks a lot \\[really\\]]'")
+				.contains("'1:command:((import\\:\"imports things\" export\\:\"exports things\"))'")
+				.contains("users) _tool_export_users ;;")
+				.contains("'(-f --file)'{-f,--file}'[]:ARG:_files'");
+		if (installed("zsh"))
+			run("zsh", "-n", "-c", script);
+	}
+
+	@Test
+	public void fishScriptContainsOptionsSubcommandsAndChoices() throws Exception {
+		String script = spec().completion(Shell.FISH);
+		assertThat(script).contains("complete -c tool -n '__tool_command \"\"' -a 'import' -d 'imports things'")
+				.contains("-n '__tool_command \"\"' -l mode -s m -r -a 'FAST SAFE' -d 'the mode <ARG>'")
+				.contains("complete -c tool -n '__tool_command \"export users\"' -l admins")
+				.contains("-l file -s f -r -F -d '<ARG>'");
+		if (installed("fish"))
+			run("fish", "-n", "-c", script);
+	}
+
+	@Test
+	public void commandNameMayBeGiven() {
+		assertThat(spec().completion(Shell.BASH, "my-tool"))
+				.contains("complete -o default -F _my_tool_complete my-tool");
+	}
+}
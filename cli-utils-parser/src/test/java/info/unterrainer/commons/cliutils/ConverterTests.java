@@ -0,0 +1,171 @@
+package info.unterrainer.commons.cliutils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ConverterTests {
+
+	private enum Mode {
+		FAST, SAFE
+	}
+
+	private static final class Hex {
+		private final int value;
+
+		private Hex(final int value) {
+			this.value = value;
+		}
+	}
+
+	private <T> T convert(final Arg<T> arg, final String value) {
+		return CliParser.specFor("test", "a test program")
+				.addArg(arg)
+				.compile()
+				.parse(new String[] { "--" + arg.longName, value })
+				.getArgValue(arg);
+	}
+
+	@Test
+	public void builtinTypesAreConverted() throws Exception {
+		assertThat(convert(Arg.Long("v"), "12345678901")).isEqualTo(12345678901L);
+		assertThat(convert(Arg.Boolean("v"), "yes")).isEqualTo(true);
+		assertThat(convert(Arg.Boolean("v"), "OFF")).isEqualTo(false);
+		assertThat(convert(Arg.BigDecimal("v"), "1.10")).isEqualTo(new BigDecimal("1.10"));
+		assertThat(convert(Arg.Enum("v", Mode.class), "SAFE")).isEqualTo(Mode.SAFE);
+		assertThat(convert(Arg.Enum("v", Mode.class), "fast")).isEqualTo(Mode.FAST);
+		assertThat(convert(Arg.Path("v"), "a/b")).isEqualTo(Path.of("a/b"));
+		assertThat(convert(Arg.URI("v"), "http://localhost:80/x")).isEqualTo(new URI("http://localhost:80/x"));
+		assertThat(convert(Arg.InetSocketAddress("v"), "127.0.0.1:8080"))
+				.isEqualTo(new InetSocketAddress("127.0.0.1", 8080));
+		assertThat(convert(Arg.InetSocketAddress("v"), "[::1]:22")).isEqualTo(new InetSocketAddress("::1", 22));
+	}
+
+	@Test
+	public void durationsAreConverted() {
+		assertThat(convert(Arg.Duration("v"), "PT1M")).isEqualTo(Duration.ofMinutes(1));
+		assertThat(convert(Arg.Duration("v"), "500ms")).isEqualTo(Duration.ofMillis(500));
+		assertThat(convert(Arg.Duration("v"), "2h")).isEqualTo(Duration.ofHours(2));
+		assertThat(convert(Arg.Duration("v"), "1.5s")).isEqualTo(Duration.ofMillis(1500));
+		assertThat(convert(Arg.Duration("v"), "0.25d")).isEqualTo(Duration.ofHours(6));
+		assertThat(convert(Arg.Duration("v"), "-1.5m")).isEqualTo(Duration.ofSeconds(-90));
+		assertThat(convert(Arg.Duration("v"), "1.0000000005s")).isEqualTo(Duration.ofSeconds(1, 1));
+		IllegalStateException e = assertThrows(IllegalStateException.class,
+				() -> convert(Arg.Duration("timeout"), "1.5y"));
+		assertThat(e.getMessage()).isEqualTo("Value '1.5y' of option 'timeout' is invalid: "
+				+ "Expected an ISO-8601 duration or one of the units: ns, us, ms, s, m, h, d");
+	}
+
+	@Test
+	public void byteSizesAreConverted() {
+		assertThat(convert(Arg.ByteSize("v"), "512")).isEqualTo(512L);
+		assertThat(convert(Arg.ByteSize("v"), "64K")).isEqualTo(64L * 1024);
+		assertThat(convert(Arg.ByteSize("v"), "512M")).isEqualTo(512L * 1024 * 1024);
+		assertThat(convert(Arg.ByteSize("v"), "1.5GiB")).isEqualTo(3L * 512 * 1024 * 1024);
+		assertThat(convert(Arg.ByteSize("v"), "2tb")).isEqualTo(2L << 40);
+		assertThat(convert(Arg.ByteSize("v"), "0")).isEqualTo(0L);
+	}
+
+	@Test
+	public void negativeByteSizesAreRejected() {
+		IllegalStateException e = assertThrows(IllegalStateException.class,
+				() -> convert(Arg.ByteSize("cache"), "-1KB"));
+		assertThat(e.getMessage()).isEqualTo("Value '-1KB' of option 'cache' is invalid: "
+				+ "Expected a size that isn't negative");
+	}
+
+	@Test
+	public void longsAreReadWithoutBoxing() {
+		Arg<Long> size = Arg.ByteSize("size").defaultValue(1024L);
+		Arg<Long> count = Arg.Long("count");
+		Cli cli = CliParser.specFor("test", "a test program")
+				.addArg(size)
+				.addArg(count)
+				.compile()
+				.parse(new String[] { "--count", "3000000000" });
+		assertThat(cli.getLong(size)).isEqualTo(1024L);
+		assertThat(cli.getLong(count)).isEqualTo(3000000000L);
+	}
+
+	@Test
+	public void byteSizesAreReadWithoutBoxing() {
+		Arg<Long> size = Arg.ByteSize("size");
+		Cli cli = CliParser.specFor("test", "a test program")
+				.addArg(size)
+				.compile()
+				.parse(new String[] { "--size", "512M" });
+		assertThat(cli.getLong(size)).isEqualTo(512L * 1024 * 1024);
+		assertThat(cli.<Long>getArgValue(size)).isEqualTo(512L * 1024 * 1024);
+	}
+
+	@Test
+	public void numbersWithCustomConvertersAreReadByPrimitiveGetters() {
+		Arg<Integer> n = Arg.Integer("n").converter(s -> Integer.parseInt(s, 16));
+		Arg<Long> l = Arg.Long("l").converter(s -> Long.parseLong(s, 16));
+		Arg<Float> f = Arg.Float("f").converter(s -> Float.parseFloat(s) / 2);
+		Arg<Double> d = Arg.Double("d").converter(s -> Double.parseDouble(s) / 2);
+		Cli cli = CliParser.specFor("test", "a test program")
+				.addArg(n)
+				.addArg(l)
+				.addArg(f)
+				.addArg(d)
+				.compile()
+				.parse(new String[] { "--n", "ff", "--l", "100", "--f", "3", "--d", "5" });
+		assertThat(cli.getInt(n)).isEqualTo(255);
+		assertThat(cli.getLong(l)).isEqualTo(256L);
+		assertThat(cli.getFloat(f)).isEqualTo(1.5F);
+		assertThat(cli.getDouble(d)).isEqualTo(2.5D);
+	}
+
+	@Test
+	public void invalidValuesAreReported() {
+		IllegalStateException e = assertThrows(IllegalStateException.class,
+				() -> convert(Arg.Enum("mode", Mode.class), "slow"));
+		assertThat(e.getMessage()).isEqualTo("Value 'slow' of option 'mode' is invalid: Expected one of: FAST, SAFE");
+		e = assertThrows(IllegalStateException.class, () -> convert(Arg.Long("count"), "x"));
+		assertThat(e.getMessage()).isEqualTo("Value 'x' of option 'count' is not a valid number.");
+	}
+
+	@Test
+	public void convertersMayBeRegisteredPerBuilder() {
+		Arg<Hex> hex = Arg.of("hex", Hex.class);
+		Cli cli = CliParser.specFor("test", "a test program")
+				.addArg(hex)
+				.registerConverter(Hex.class, s -> new Hex(Integer.parseInt(s, 16)))
+				.compile()
+				.parse(new String[] { "--hex", "ff" });
+		assertThat(cli.getArgValue(hex).value).isEqualTo(255);
+	}
+
+	@Test
+	public void convertersMayBeRegisteredGlobally() {
+		Converters.register(Hex.class, s -> new Hex(Integer.parseInt(s, 16)));
+		assertThat(convert(Arg.of("hex", Hex.class), "10").value).isEqualTo(16);
+	}
+
+	@Test
+	public void convertersOfOptionsTakePrecedence() {
+		Arg<Integer> hex = Arg.Integer("ids").unlimited().converter(s -> Integer.parseInt(s, 16));
+		Cli cli = CliParser.specFor("test", "a test program")
+				.addArg(hex)
+				.compile()
+				.parse(new String[] { "--ids", "a,ff" });
+		assertThat(cli.getInts(hex)).containsExactly(10, 255);
+		assertThat(cli.<Integer>getArgValues(hex)).isEqualTo(List.of(10, 255));
+	}
+
+	@Test
+	public void typesWithoutConverterAreRejected() {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> CliParser.specFor("test", "a test program").addArg(Arg.of("x", Object.class)).compile());
+		assertThat(e.getMessage()).isEqualTo("There is no converter for type java.lang.Object of option 'x'.");
+	}
+}
@@ -0,0 +1,70 @@
+package info.unterrainer.commons.cliutils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.junit.jupiter.api.Test;
+
+public class HelpRendererTests {
+
+	private static final String DESCRIPTION = "a small tool to help validate some things. It has a rather long description "
+			+ "that has to be wrapped at least once.\nIt also contains a line-break.";
+
+	private CliSpec spec() {
+		return CliParser.specFor("test", DESCRIPTION)
+				.addArg(Arg.String("server").shortName("s").description("the server instance to connect to").optional())
+				.addArg(Arg.Integer("port").description("the port").isRequired())
+				.addArg(Arg.String("coordinates").name("x", "y").description("a pair of coordinates"))
+				.addArg(Arg.Double("values").shortName("V").unlimited()
+						.description("a very long description of a multi-valued option, which is long enough to "
+								+ "be wrapped over more than two lines if the terminal isn't very wide at all"))
+				.addFlag(Flag.builder("list").shortName("l").description("lists things"))
+				.addFlag(Flag.builder("Zap"))
+				.compile();
+	}
+
+	private String commons(final CliSpec spec, final int width) {
+		Options options = new Options();
+		for (CliOption o : spec.slots)
+			options.addOption(o.option());
+		StringWriter result = new StringWriter();
+		PrintWriter pw = new PrintWriter(result);
+		new HelpFormatter().printHelp(pw, width, "java -jar test.jar", DESCRIPTION, options, 1, 3, "", true);
+		pw.flush();
+		return result.toString();
+	}
+
+	private String rendered(final CliSpec spec, final int width) {
+		StringWriter result = new StringWriter();
+		spec.printHelp(result, width);
+		return result.toString();
+	}
+
+	@Test
+	public void layoutMatchesHelpFormatter() {
+		CliSpec spec = spec();
+		assertThat(rendered(spec, 74)).isEqualTo(commons(spec, 74));
+	}
+
+	@Test
+	public void layoutMatchesHelpFormatterForNarrowTerminals() {
+		CliSpec spec = spec();
+		assertThat(rendered(spec, 40)).isEqualTo(commons(spec, 40));
+	}
+
+	@Test
+	public void layoutIsCachedPerWidth() {
+		HelpRenderer renderer = new HelpRenderer("java -jar test.jar", DESCRIPTION, spec().slots);
+		String layout = renderer.render(60);
+		assertThat(renderer.render(60)).isSameAs(layout);
+		String wide = renderer.render(100);
+		assertThat(wide).isNotSameAs(layout);
+		assertThat(wide).isNotEqualTo(layout);
+		assertThat(renderer.render(100)).isSameAs(wide);
+		assertThat(renderer.render(60)).isSameAs(layout);
+	}
+}
@@ -0,0 +1,39 @@
+package info.unterrainer.commons.cliutils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class NumbersTests {
+
+	private static final String[] SAMPLES = { "0", "-0", "1", "+1", "-1", "0.1", "0.3", "3.14159", "1e22", "1e23",
+			"1.5e-7", "123456789012345", "1234567890123456789", "9007199254740993", "4.9e-324", "1.7976931348623157e308",
+			"NaN", "-Infinity", "0x1p3", "2.5d", "7f", "  5 ", ".5", "5.", "1E+2" };
+
+	@Test
+	public void parsedDoublesMatchTheJdk() {
+		for (String s : SAMPLES)
+			assertThat(Double.doubleToRawLongBits(Numbers.parseDouble("[" + s + "]", 1, s.length() + 1)))
+					.isEqualTo(Double.doubleToRawLongBits(Double.parseDouble(s)));
+	}
+
+	@Test
+	public void parsedFloatsMatchTheJdk() {
+		for (String s : SAMPLES)
+			assertThat(Float.floatToRawIntBits(Numbers.parseFloat("[" + s + "]", 1, s.length() + 1)))
+					.isEqualTo(Float.floatToRawIntBits(Float.parseFloat(s)));
+	}
+
+	@Test
+	public void randomDecimalsMatchTheJdk() {
+		Random random = new Random(42);
+		for (int i = 0; i < 100_000; i++) {
+			String s = String.format("%d.%de%d", random.nextInt(2_000_000) - 1_000_000, random.nextInt(100_000),
+					random.nextInt(50) - 25);
+			assertThat(Numbers.parseDouble(s, 0, s.length())).isEqualTo(Double.parseDouble(s));
+			assertThat(Numbers.parseFloat(s, 0, s.length())).isEqualTo(Float.parseFloat(s));
+		}
+	}
+}
@@ -0,0 +1,176 @@
+package info.unterrainer.commons.cliutils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+public class ParseCacheTests {
+
+	private final Path directory;
+	private final Path file;
+	private final List<Phase> phases = new ArrayList<>();
+	private final Arg<Integer> ids = Arg.Integer("ids").unlimited().min(0);
+	private final Arg<String> name = Arg.String("name");
+
+	public ParseCacheTests() throws IOException {
+		directory = Files.createTempDirectory("cache");
+		file = Files.createTempFile("args", ".txt");
+		Files.writeString(file, "--ids 1 2,3\n4 --name \"John Doe\" -v rest");
+	}
+
+	private CliSpec spec(final ParserEngine engine) {
+		return CliParser.specFor("test", "a test program")
+				.engine(engine)
+				.expandArgFiles()
+				.parseCache(directory)
+				.addFlag(Flag.builder("verbose").shortName("v"))
+				.addArg(name)
+				.addArg(ids)
+				.addListener((phase, option, nanos) -> phases.add(phase))
+				.compile();
+	}
+
+	private long entries() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	private void assertValues(final Cli cli) {
+		assertThat(cli.getInts(ids)).containsExactly(1, 2, 3, 4);
+		assertThat(cli.streamArgValues(ids).collect(Collectors.toList())).containsExactly(1, 2, 3, 4);
+		assertThat(cli.getArgValue(name)).isEqualTo("John Doe");
+		assertThat(cli.isFlagSet("verbose")).isTrue();
+		assertThat(cli.getArgs()).containsExactly("rest");
+	}
+
+	@Test
+	public void repeatedCommandLinesAreReadFromTheCache() throws IOException {
+		String[] args = new String[] { "@" + file };
+		assertValues(spec(ParserEngine.NATIVE).parse(args));
+		assertThat(phases).contains(Phase.PARSE, Phase.VALIDATION);
+		for (ParserEngine engine : ParserEngine.values()) {
+			phases.clear();
+			assertValues(spec(engine).parse(args));
+			assertThat(phases).doesNotContain(Phase.PARSE, Phase.VALIDATION);
+		}
+		assertThat(entries()).isEqualTo(1L);
+	}
+
+	@Test
+	public void changedResponseFilesMissTheCache() throws IOException {
+		String[] args = new String[] { "@" + file };
+		spec(ParserEngine.NATIVE).parse(args);
+		Files.writeString(file, "--ids 5");
+		phases.clear();
+		Cli cli = spec(ParserEngine.NATIVE).parse(args);
+		assertThat(phases).contains(Phase.PARSE);
+		assertThat(cli.getInts(ids)).containsExactly(5);
+		assertThat(entries()).isEqualTo(2L);
+	}
+
+	@Test
+	public void changedSchemasMissTheCache() throws IOException {
+		String[] args = new String[] { "--name", "n" };
+		spec(ParserEngine.NATIVE).parse(args);
+		CliParser.specFor("test", "a test program").parseCache(directory).addArg(Arg.String("name")).compile().parse(
+				args);
+		assertThat(entries()).isEqualTo(2L);
+	}
+
+	@Test
+	public void invalidCommandLinesAreNotCached() throws IOException {
+		assertThrows(ValidationException.class,
+				() -> spec(ParserEngine.NATIVE).parse(new String[] { "--ids", "-1" }));
+		assertThat(entries()).isEqualTo(0L);
+	}
+
+	@Test
+	public void customChecksAreAppliedToCachedLines() throws IOException {
+		String[] args = new String[] { "--name", "n" };
+		CliParser.specFor("test", "a test program")
+				.parseCache(directory)
+				.addArg(Arg.String("name").check(s -> true, "is accepted"))
+				.compile()
+				.parse(args);
+		CliSpec changed = CliParser.specFor("test", "a test program")
+				.parseCache(directory)
+				.addArg(Arg.String("name").check(s -> false, "is rejected"))
+				.compile();
+		ValidationException e = assertThrows(ValidationException.class, () -> changed.parse(args));
+		assertThat(e.getMessage()).contains("is rejected");
+		assertThat(entries()).isEqualTo(1L);
+	}
+
+	@Test
+	public void oldestEntriesAreEvicted() throws IOException {
+		CliSpec spec = CliParser.specFor("test", "a test program").parseCache(directory, 2).addArg(name).compile();
+		for (int i = 0; i < 5; i++)
+			spec.parse(new String[] { "--name", "n" + i });
+		assertThat(entries()).isEqualTo(2L);
+		assertThat(spec.parse(new String[] { "--name", "n4" }).<String>getArgValue(name)).isEqualTo("n4");
+	}
+
+	@Test
+	public void corruptEntriesAreIgnored() throws IOException {
+		String[] args = new String[] { "@" + file };
+		spec(ParserEngine.NATIVE).parse(args);
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path entry : files.collect(Collectors.toList()))
+				Files.write(entry, new byte[] { 1, 2, 3 });
+		}
+		assertValues(spec(ParserEngine.NATIVE).parse(args));
+	}
+
+	private Path entry() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.findFirst().get();
+		}
+	}
+
+	private void assertReplaced(final String[] args) throws IOException {
+		phases.clear();
+		assertValues(spec(ParserEngine.NATIVE).parse(args));
+		assertThat(phases).contains(Phase.PARSE);
+		phases.clear();
+		assertValues(spec(ParserEngine.NATIVE).parse(args));
+		assertThat(phases).doesNotContain(Phase.PARSE);
+		assertThat(entries()).isEqualTo(1L);
+	}
+
+	@Test
+	public void truncatedEntriesAreReplaced() throws IOException {
+		String[] args = new String[] { "@" + file };
+		spec(ParserEngine.NATIVE).parse(args);
+		Path entry = entry();
+		byte[] bytes = Files.readAllBytes(entry);
+		Files.write(entry, Arrays.copyOf(bytes, bytes.length - 6));
+		assertReplaced(args);
+	}
+
+	@Test
+	public void entriesWithInvalidLengthsAreReplaced() throws IOException {
+		String[] args = new String[] { "@" + file };
+		spec(ParserEngine.NATIVE).parse(args);
+		Path entry = entry();
+		// The last value is the positional argument 'rest'.
+		ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(entry));
+		bytes.putInt(bytes.capacity() - 8, Integer.MAX_VALUE - 8);
+		Files.write(entry, bytes.array());
+		assertReplaced(args);
+		bytes.putInt(bytes.capacity() - 8, -1);
+		Files.write(entry, bytes.array());
+		assertReplaced(args);
+	}
+}
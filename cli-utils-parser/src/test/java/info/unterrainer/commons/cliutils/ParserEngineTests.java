@@ -0,0 +1,167 @@
+package info.unterrainer.commons.cliutils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+public class ParserEngineTests {
+
+	private CliParserBuilder builder(final ParserEngine engine) {
+		return CliParser.specFor("test", "a test program")
+				.engine(engine)
+				.addFlag(Flag.builder("verbose").shortName("v"))
+				.addFlag(Flag.builder("all").shortName("a"))
+				.addArg(Arg.String("format").shortName("f"))
+				.addArg(Arg.String("force"))
+				.addArg(Arg.Integer("count").shortName("c"))
+				.addArg(Arg.Double("offset"))
+				.addArg(Arg.Integer("ids").shortName("I").unlimited())
+				.addArg(Arg.String("pair").name("KEY", "VALUE"));
+	}
+
+	private void bothEngines(final String args, final Consumer<Cli> assertions) {
+		for (ParserEngine engine : ParserEngine.values())
+			assertions.accept(builder(engine).compile().parse(args.isEmpty() ? new String[0] : args.split(" ")));
+	}
+
+	private void bothEnginesFail(final String args) {
+		for (ParserEngine engine : ParserEngine.values())
+			assertThrows(RuntimeException.class, () -> builder(engine).compile().parse(args.split(" ")));
+	}
+
+	@Test
+	public void abbreviatedLongOptionsAreResolved() {
+		bothEngines("--verb --form=xml --cou 3", cli -> {
+			assertThat(cli.isFlagSet("verbose")).isTrue();
+			assertThat((String) cli.getArgValue("format")).isEqualTo("xml");
+			assertThat((Integer) cli.getArgValue("count")).isEqualByComparingTo(3);
+		});
+	}
+
+	@Test
+	public void exactLongOptionWinsOverLongerOnes() {
+		bothEngines("--force yes", cli -> {
+			assertThat((String) cli.getArgValue("force")).isEqualTo("yes");
+			assertThat(cli.isArgSet("format")).isFalse();
+		});
+	}
+
+	@Test
+	public void ambiguousLongOptionFails() {
+		bothEnginesFail("--fo xml");
+	}
+
+	@Test
+	public void unknownOptionFails() {
+		bothEnginesFail("--unknown");
+	}
+
+	@Test
+	public void missingArgumentFails() {
+		bothEnginesFail("--count");
+	}
+
+	@Test
+	public void concatenatedShortFlagsAreSet() {
+		bothEngines("-va", cli -> {
+			assertThat(cli.isFlagSet("verbose")).isTrue();
+			assertThat(cli.isFlagSet("all")).isTrue();
+		});
+	}
+
+	@Test
+	public void shortOptionWithAttachedValueIsSet() {
+		bothEngines("-c42 -fjson", cli -> {
+			assertThat((Integer) cli.getArgValue("count")).isEqualByComparingTo(42);
+			assertThat((String) cli.getArgValue("format")).isEqualTo("json");
+		});
+	}
+
+	@Test
+	public void negativeNumbersAreValues() {
+		bothEngines("--count -3 --offset -1.5e2", cli -> {
+			assertThat((Integer) cli.getArgValue("count")).isEqualByComparingTo(-3);
+			assertThat((Double) cli.getArgValue("offset")).isEqualByComparingTo(-150D);
+		});
+	}
+
+	@Test
+	public void unlimitedValuesAreSplitAndCollected() {
+		bothEngines("-I 1,2 3 -v", cli -> {
+			List<Integer> ids = cli.getArgValues("ids");
+			assertThat(ids).containsExactly(1, 2, 3);
+			assertThat(cli.isFlagSet("verbose")).isTrue();
+		});
+	}
+
+	@Test
+	public void fixedNumberOfValuesIsConsumed() {
+		bothEngines("--pair a b rest", cli -> {
+			List<String> pair = cli.getArgValues("pair");
+			assertThat(pair).containsExactly("a", "b");
+			assertThat(cli.getArgs()).containsExactly("rest");
+		});
+	}
+
+	@Test
+	public void doubleDashStopsOptionParsing() {
+		bothEngines("-v -- -a --count", cli -> {
+			assertThat(cli.isFlagSet("verbose")).isTrue();
+			assertThat(cli.isFlagSet("all")).isFalse();
+			assertThat(cli.getArgs()).containsExactly("-a", "--count");
+		});
+	}
+
+	@Test
+	public void missingRequiredOptionFails() {
+		for (ParserEngine engine : ParserEngine.values())
+			assertThrows(RuntimeException.class,
+					() -> CliParser.specFor("test", "a test program")
+							.engine(engine)
+							.addArg(Arg.String("needed").isRequired())
+							.compile()
+							.parse(new String[0]));
+	}
+
+	@Test
+	public void unlimitedValuesCanBeReadAsPrimitiveArrays() {
+		for (ParserEngine engine : ParserEngine.values()) {
+			Arg<Integer> ids = Arg.Integer("ids").unlimited();
+			Arg<Float> weights = Arg.Float("weights").unlimited().separator(';');
+			Arg<Double> values = Arg.Double("values").unlimited();
+			Cli cli = CliParser.specFor("test", "a test program")
+					.engine(engine)
+					.addArg(ids)
+					.addArg(weights)
+					.addArg(values)
+					.compile()
+					.parse(new String[] { "--ids", "1,2,3", "4", "--weights", "0.5;1.25", "--values", "-1.5,2e3" });
+
+			assertThat(cli.getInts(ids)).containsExactly(1, 2, 3, 4);
+			assertThat(cli.getFloats(weights)).containsExactly(0.5F, 1.25F);
+			assertThat(cli.getDoubles(values)).containsExactly(-1.5D, 2000D);
+		}
+	}
+
+	@Test
+	public void unsetUnlimitedValuesReturnDefaultOrEmptyArray() {
+		Arg<Integer> ids = Arg.Integer("ids").unlimited();
+		Arg<Double> values = Arg.Double("values").unlimited().defaultValue(1.5D);
+		Cli cli = CliParser.specFor("test", "a test program").addArg(ids).addArg(values).compile().parse(new String[0]);
+
+		assertThat(cli.getInts(ids)).isEmpty();
+		assertThat(cli.getDoubles(values)).containsExactly(1.5D);
+	}
+
+	@Test
+	public void invalidNumberInPrimitiveArrayThrowsException() {
+		Arg<Integer> ids = Arg.Integer("ids").unlimited();
+		Cli cli = CliParser.specFor("test", "a test program").addArg(ids).compile().parse("--ids 1,x,3".split(" "));
+
+		assertThrows(IllegalStateException.class, () -> cli.getInts(ids));
+	}
+}
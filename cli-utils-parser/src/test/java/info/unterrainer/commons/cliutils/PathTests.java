@@ -0,0 +1,114 @@
+package info.unterrainer.commons.cliutils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+public class PathTests {
+
+	private final Path root;
+
+	public PathTests() throws IOException {
+		root = Files.createTempDirectory("paths");
+		for (String file : new String[] { "a.parquet", "b.txt", "x/c.parquet", "x/y/d.parquet", "x/y/e.txt" }) {
+			Path path = root.resolve(file);
+			Files.createDirectories(path.getParent());
+			Files.writeString(path, file);
+		}
+	}
+
+	private List<String> paths(final Arg<Path> arg, final String... args) {
+		Cli cli = CliParser.specFor("test", "a test program").addArg(arg).compile().parse(args);
+		try (Stream<Path> paths = cli.getPaths(arg)) {
+			return paths.map(p -> root.relativize(p).toString()).collect(Collectors.toList());
+		}
+	}
+
+	@Test
+	public void globsAreExpanded() {
+		Arg<Path> files = Arg.Path("files").unlimited().glob();
+		assertThat(paths(files, "--files", root + "/*.parquet")).containsExactly("a.parquet");
+		assertThat(paths(files, "--files", root + "/**/*.parquet")).containsExactlyInAnyOrder("a.parquet",
+				"x/c.parquet", "x/y/d.parquet");
+		assertThat(paths(files, "--files", root + "/**/y/*.txt")).containsExactly("x/y/e.txt");
+		Arg<Path> separated = Arg.Path("files").unlimited().separator(';').glob();
+		assertThat(paths(separated, "--files", root + "/*/*.{txt,parquet};" + root + "/b.txt"))
+				.containsExactlyInAnyOrder("x/c.parquet", "b.txt");
+	}
+
+	@Test
+	public void largeGlobsAreStreamedThroughABoundedBuffer() throws IOException {
+		Path many = Files.createDirectories(root.resolve("many"));
+		int n = PathExpansion.CAPACITY * 3;
+		for (int i = 0; i < n; i++)
+			Files.createFile(many.resolve(i + ".log"));
+		Arg<Path> files = Arg.Path("files").unlimited().glob();
+		assertThat(paths(files, "--files", many + "/*.log").size()).isEqualTo(n);
+		Cli cli = CliParser.specFor("test", "a test program")
+				.addArg(files)
+				.compile()
+				.parse(new String[] { "--files", many + "/*.log" });
+		try (Stream<Path> paths = cli.getPaths(files)) {
+			assertThat(paths.limit(5).count()).isEqualTo(5L);
+		}
+	}
+
+	@Test
+	public void abandonedStreamsStopTheirWalkers() throws Exception {
+		Path many = Files.createDirectories(root.resolve("many"));
+		for (int i = 0; i < PathExpansion.CAPACITY * 2; i++)
+			Files.createFile(many.resolve(i + ".log"));
+		Arg<Path> files = Arg.Path("files").unlimited().glob();
+		Cli cli = CliParser.specFor("test", "a test program")
+				.addArg(files)
+				.compile()
+				.parse(new String[] { "--files", many + "/*.log" });
+		for (int i = 0; i < 64; i++)
+			assertThat(cli.getPaths(files).findFirst().isPresent()).isTrue();
+		for (int i = 0; i < 200 && PathExpansion.running() > 0; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		assertThat(PathExpansion.running()).isEqualTo(0);
+		assertThat(paths(files, "--files", root + "/**/*.parquet")).hasSize(3);
+	}
+
+	@Test
+	public void globsAreLeftAloneByDefault() {
+		Arg<Path> files = Arg.Path("files").unlimited();
+		assertThat(paths(files, "--files", root + "/*.parquet")).containsExactly("*.parquet");
+	}
+
+	@Test
+	public void missingPathsAreReported() {
+		Arg<Path> files = Arg.Path("files").unlimited().glob().mustExist();
+		assertThat(paths(files, "--files", root + "/a.parquet," + root + "/x/*.parquet"))
+				.containsExactlyInAnyOrder("a.parquet", "x/c.parquet");
+		IllegalStateException e = assertThrows(IllegalStateException.class,
+				() -> paths(files, "--files", root + "/missing.txt"));
+		assertThat(e.getMessage()).isEqualTo("Path '" + root + "/missing.txt' of option 'files' doesn't exist.");
+		e = assertThrows(IllegalStateException.class, () -> paths(files, "--files", root + "/*.csv"));
+		assertThat(e.getMessage()).isEqualTo("Pattern '" + root + "/*.csv' of option 'files' doesn't match any file.");
+	}
+
+	@Test
+	public void defaultValuesAreExpanded() {
+		Arg<Path> files = Arg.Path("files").glob().defaultValue(Path.of(root + "/x/y/*.txt"));
+		assertThat(paths(files)).containsExactly("x/y/e.txt");
+	}
+
+	@Test
+	public void onlyPathOptionsMayBeChecked() {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> CliParser.specFor("test", "a test program").addArg(Arg.String("x").mustExist()).compile());
+		assertThat(e.getMessage()).isEqualTo("Option 'x' isn't a path-option.");
+	}
+}
@@ -0,0 +1,97 @@
+package info.unterrainer.commons.cliutils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class PhaseTests {
+
+	private final List<String> phases = new ArrayList<>();
+
+	private CliParserBuilder builder() {
+		return CliParser.specFor("test", "a test program")
+				.addArg(Arg.Integer("count").defaultValue(1))
+				.addArg(Arg.Integer("ids").unlimited())
+				.addFlag(Flag.builder("flat"))
+				.addFlag(Flag.builder("row"))
+				.addMinRequired(1, "flat", "row")
+				.addDependency("count", "flat")
+				.addListener((phase, option, nanos) -> {
+					assertThat(nanos).isGreaterThanOrEqualTo(0L);
+					phases.add(option == null ? phase.name() : phase.name() + ":" + option);
+				});
+	}
+
+	@Test
+	public void listenersReceiveEveryPhase() {
+		CliSpec spec = builder().compile();
+		assertThat(phases).containsExactly("AVAILABILITY_CHECK", "CONSTRAINT_COMPILATION");
+		phases.clear();
+
+		Cli cli = spec.parse(new String[] { "--flat", "--ids", "1,2" });
+		assertThat(phases).containsExactly("PARSE", "N_REQUIRED", "DEPENDENCIES", "CONVERSION");
+		phases.clear();
+
+		assertThat(cli.getInts(Arg.Integer("ids"))).containsExactly(1, 2);
+		assertThat(phases).containsExactly("CONVERSION:ids");
+		phases.clear();
+
+		spec.printHelp(new PrintStream(new ByteArrayOutputStream()));
+		assertThat(phases).containsExactly("HELP");
+	}
+
+	@Test
+	public void failingPhasesAreReported() {
+		CliSpec spec = builder().compile();
+		phases.clear();
+		PrintStream out = new PrintStream(new ByteArrayOutputStream());
+		assertThrows(IllegalStateException.class, () -> spec.parse(new String[] { "--ids", "1" }, out));
+		assertThat(phases).containsExactly("PARSE", "N_REQUIRED", "HELP");
+		phases.clear();
+
+		Cli cli = spec.parse(new String[] { "--row", "--ids", "1,x" });
+		phases.clear();
+		assertThrows(IllegalStateException.class, () -> cli.getInts(Arg.Integer("ids")));
+		assertThat(phases).containsExactly("HELP", "CONVERSION:ids");
+	}
+
+	@Test
+	public void subcommandsInheritListeners() {
+		CliParser.specFor("test", "a test program")
+				.addListener((phase, option, nanos) -> phases.add(phase.name()))
+				.subcommand("run", spec -> spec.addFlag(Flag.builder("fast")))
+				.compile()
+				.parse(new String[] { "run", "--fast" });
+		assertThat(phases).containsExactly("PARSE", "CONVERSION", "CONVERSION");
+	}
+
+	@Test
+	public void phasesAreRecordedByTheFlightRecorder() throws Exception {
+		Path file = Files.createTempFile("phases", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("info.unterrainer.commons.cliutils.Phase");
+			recording.start();
+			builder().compile().parse(new String[] { "--row" });
+			recording.stop();
+			recording.dump(file);
+		}
+		List<String> recorded = new ArrayList<>();
+		for (RecordedEvent event : RecordingFile.readAllEvents(file))
+			recorded.add(event.getString("phase"));
+		Files.delete(file);
+		assertThat(recorded).containsExactly("AVAILABILITY_CHECK", "CONSTRAINT_COMPILATION", "PARSE", "N_REQUIRED", "DEPENDENCIES",
+				"CONVERSION");
+	}
+}
@@ -0,0 +1,170 @@
+package info.unterrainer.commons.cliutils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+
+public class PluginTests {
+
+	static final List<String> activated = new CopyOnWriteArrayList<>();
+	static final List<String> initialized = new CopyOnWriteArrayList<>();
+
+	public enum Format {
+		JSON, CSV
+	}
+
+	public static class ExportDescriptor implements CliPluginDescriptor {
+
+		@Override
+		public void declare(final CliParserBuilder builder) {
+			builder.addArg(Arg.Enum("export-format", Format.class).description("the format to export to"))
+					.addArg(Arg.Integer("export-limit").min(1))
+					.addFlag(Flag.builder("export-all").description("exports everything"))
+					.addDependency("export-limit", "export-format");
+		}
+
+		@Override
+		public String pluginClassName() {
+			return "info.unterrainer.commons.cliutils.PluginTests$ExportPlugin";
+		}
+	}
+
+	public static class ExportPlugin implements CliPlugin {
+
+		@Override
+		public void activate(final Cli cli) {
+			Format format = cli.getArgValue("export-format");
+			activated.add("export:" + format);
+		}
+	}
+
+	public static class ImportDescriptor implements CliPluginDescriptor {
+
+		@Override
+		public void declare(final CliParserBuilder builder) {
+			builder.addArg(Arg.String("import-file").shortName("i").unlimited().description("the files to import"));
+		}
+
+		@Override
+		public String pluginClassName() {
+			return "info.unterrainer.commons.cliutils.PluginTests$ImportPlugin";
+		}
+	}
+
+	public static class ImportPlugin implements CliPlugin {
+
+		@Override
+		public void activate(final Cli cli) {
+			activated.add("import:" + cli.getArgValues("import-file"));
+		}
+	}
+
+	public static class UnusedDescriptor implements CliPluginDescriptor {
+
+		@Override
+		public void declare(final CliParserBuilder builder) {
+			builder.addFlag(Flag.builder("unused").description("never used by the tests"));
+		}
+
+		@Override
+		public String pluginClassName() {
+			return "info.unterrainer.commons.cliutils.PluginTests$UnusedPlugin";
+		}
+	}
+
+	public static class UnusedPlugin implements CliPlugin {
+
+		static {
+			initialized.add(UnusedPlugin.class.getName());
+		}
+
+		@Override
+		public void activate(final Cli cli) {
+			activated.add("unused");
+		}
+	}
+
+	public PluginTests() {
+		activated.clear();
+	}
+
+	private CliSpec spec() {
+		return CliParser.specFor("tool", "a tool with plugins")
+				.addFlag(Flag.builder("verbose").shortName("v"))
+				.loadPlugins(PluginTests.class.getClassLoader())
+				.compile();
+	}
+
+	@Test
+	public void optionsAreDeclaredByDescriptors() {
+		CliSpec spec = spec();
+		assertThat(spec.options.keySet()).contains("export-format", "export-limit", "export-all", "import-file",
+				"unused");
+		assertThat(spec.options.get("import-file").shortName()).isEqualTo("i");
+		assertThat(spec.options.get("export-all").numberOfArgs()).isEqualTo(0);
+	}
+
+	@Test
+	public void optionsOfPluginsAreTypedValidatedAndConstrained() {
+		CliSpec spec = spec();
+		assertThat(spec.parse(new String[] { "--export-format", "CSV", "--export-limit", "3" })
+				.getInt(Arg.Integer("export-limit"))).isEqualTo(3);
+		assertThat(activated).containsExactly("export:CSV");
+		PrintStream out = new PrintStream(new ByteArrayOutputStream());
+		assertThrows(ValidationException.class,
+				() -> spec.parse(new String[] { "--export-format", "CSV", "--export-limit", "0" }, out));
+		assertThrows(IllegalStateException.class, () -> spec.parse(new String[] { "--export-limit", "3" }, out));
+	}
+
+	@Test
+	public void pluginsMayNotRedeclareOptions() {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> CliParser.specFor("tool", "a tool with plugins")
+						.addFlag(Flag.builder("export-all"))
+						.loadPlugins(PluginTests.class.getClassLoader()));
+		assertThat(e.getMessage()).isEqualTo("Option 'export-all' of plugin "
+				+ "'info.unterrainer.commons.cliutils.PluginTests$ExportPlugin' is already declared.");
+	}
+
+	@Test
+	public void noPluginIsActivatedWithoutItsOptions() {
+		Cli cli = spec().parse(new String[] { "-v" });
+		assertThat(cli.isFlagSet("verbose")).isTrue();
+		assertThat(activated).isEmpty();
+	}
+
+	@Test
+	public void onlyPluginsWithPresentOptionsAreActivated() {
+		spec().parse(new String[] { "-i", "a.csv", "b.csv" });
+		assertThat(activated).containsExactly("import:[a.csv, b.csv]");
+	}
+
+	@Test
+	public void anyOptionOfPluginActivatesIt() {
+		spec().parse(new String[] { "--export-all" });
+		assertThat(activated).containsExactly("export:null");
+	}
+
+	@Test
+	public void pluginsAreNotActivatedForHelp() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		spec().parse(new String[] { "-h", "--export-all" }, new PrintStream(out));
+		assertThat(activated).isEmpty();
+		assertThat(out.toString()).contains("--export-format", "the files to import", "--unused");
+	}
+
+	@Test
+	public void classesOfUnusedPluginsAreNeverLoaded() {
+		CliSpec spec = spec();
+		spec.parse(new String[] { "--export-format", "JSON", "-i", "x" });
+		spec.parse(new String[] { "-h" }, new PrintStream(new ByteArrayOutputStream()));
+		assertThat(activated).containsExactlyInAnyOrder("export:JSON", "import:[x]");
+		assertThat(initialized).isEmpty();
+	}
+}
@@ -0,0 +1,110 @@
+package info.unterrainer.commons.cliutils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class SourcesTests {
+
+	private final Arg<String> server = Arg.String("server").shortName("s").env("TOOL_SERVER").property("server")
+			.defaultValue("localhost");
+	private final Arg<Integer> port = Arg.Integer("port").env("TOOL_PORT").property("port").defaultValue(80);
+	private final Arg<Integer> ids = Arg.Integer("ids").unlimited().env("TOOL_IDS");
+
+	private Path config(final String content) throws IOException {
+		Path file = Files.createTempFile("tool", ".properties");
+		Files.writeString(file, content);
+		return file;
+	}
+
+	private Cli parse(final Path config, final Map<String, String> env, final String... args) {
+		return CliParser.specFor("tool", "a tool")
+				.configFile(config)
+				.addArg(server)
+				.addArg(port)
+				.addArg(ids)
+				.compile()
+				.parse(args, System.out, env);
+	}
+
+	@Test
+	public void commandLineTakesPrecedence() throws IOException {
+		Cli cli = parse(config("server=file\nport=1"), Map.of("TOOL_SERVER", "env"), "-s", "cmd");
+		assertThat(cli.getArgValue(server)).isEqualTo("cmd");
+	}
+
+	@Test
+	public void environmentTakesPrecedenceOverConfigFile() throws IOException {
+		Cli cli = parse(config("server=file\nport=1"), Map.of("TOOL_SERVER", "env", "TOOL_PORT", "2"));
+		assertThat(cli.getArgValue(server)).isEqualTo("env");
+		assertThat(cli.getInt(port)).isEqualTo(2);
+		assertThat(cli.isArgSet(server)).isFalse();
+	}
+
+	@Test
+	public void configFileTakesPrecedenceOverDefault() throws IOException {
+		Cli cli = parse(config("server=file\nport=1"), Map.of());
+		assertThat(cli.getArgValue(server)).isEqualTo("file");
+		assertThat(cli.getInt(port)).isEqualTo(1);
+	}
+
+	@Test
+	public void defaultIsUsedLast() throws IOException {
+		Cli cli = parse(config(""), Map.of());
+		assertThat(cli.getArgValue(server)).isEqualTo("localhost");
+		assertThat(cli.getInt(port)).isEqualTo(80);
+		assertThat(cli.<Integer>getArgValues(ids)).isEmpty();
+	}
+
+	@Test
+	public void missingConfigFilesAreSkipped() {
+		Cli cli = parse(Path.of("does-not-exist.properties"), Map.of());
+		assertThat(cli.getArgValue(server)).isEqualTo("localhost");
+	}
+
+	@Test
+	public void multipleValuesAreSplit() throws IOException {
+		Cli cli = parse(config(""), Map.of("TOOL_IDS", "1,2,3"));
+		assertThat(cli.getInts(ids)).containsExactly(1, 2, 3);
+		assertThat(cli.<Integer>getArgValues(ids)).isEqualTo(List.of(1, 2, 3));
+	}
+
+	@Test
+	public void configFileIsOnlyReadWhenNeeded() throws IOException {
+		Path config = config("port=1");
+		Cli cli = parse(config, Map.of("TOOL_SERVER", "env"));
+		Files.delete(config);
+		assertThat(cli.getArgValue(server)).isEqualTo("env");
+		assertThat(cli.getInt(port)).isEqualTo(80);
+	}
+
+	@Test
+	public void requiredOptionsMayBeGivenByOtherSources() throws IOException {
+		Path config = config("user=me");
+		CliSpec spec = CliParser.specFor("tool", "a tool")
+				.configFile(config)
+				.addArg(Arg.String("user").shortName("u").property("user").isRequired())
+				.addArg(Arg.String("password").env("TOOL_PASSWORD").isRequired())
+				.compile();
+		assertThat(spec.parse(new String[0], System.out, Map.of("TOOL_PASSWORD", "x")).<String>getArgValue("user"))
+				.isEqualTo("me");
+		RuntimeException e = assertThrows(RuntimeException.class,
+				() -> spec.parse(new String[0], new PrintStream(PrintStream.nullOutputStream()), Map.of()));
+		assertThat(e.getMessage()).isEqualTo("Missing required option: password");
+	}
+
+	@Test
+	public void invalidNumbersAreReported() throws IOException {
+		Cli cli = parse(config("port=eighty"), Map.of());
+		IllegalStateException e = assertThrows(IllegalStateException.class, () -> cli.getInt(port));
+		assertThat(e.getMessage()).isEqualTo("Value 'eighty' of option 'port' is not a valid number.");
+	}
+}
@@ -0,0 +1,142 @@
+package info.unterrainer.commons.cliutils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringWriter;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class SubcommandTests {
+
+	private final AtomicInteger imports = new AtomicInteger();
+	private final AtomicInteger exports = new AtomicInteger();
+
+	private CliSpec spec() {
+		return CliParser.specFor("tool", "a tool with subcommands")
+				.addFlag(Flag.builder("version").shortName("v"))
+				.subcommand("import", "imports things", spec -> {
+					imports.incrementAndGet();
+					spec.addArg(Arg.String("file").shortName("f").isRequired())
+							.addFlag(Flag.builder("dry-run"));
+				})
+				.subcommand("export", "exports things", spec -> {
+					exports.incrementAndGet();
+					spec.addArg(Arg.Integer("limit").defaultValue(10))
+							.subcommand("users", spec2 -> spec2.addFlag(Flag.builder("all")));
+				})
+				.compile();
+	}
+
+	@Test
+	public void selectsSubcommandByFirstArgument() {
+		Cli cli = spec().parse(new String[] { "import", "-f", "a.csv", "--dry-run" });
+		assertThat(cli.getSubcommand()).isEqualTo("import");
+		assertThat(cli.isFlagSet("version")).isFalse();
+		Cli sub = cli.getSubcommandCli();
+		assertThat(sub.<String>getArgValue("file")).isEqualTo("a.csv");
+		assertThat(sub.isFlagSet("dry-run")).isTrue();
+		assertThat(sub.getSubcommand()).isNull();
+	}
+
+	@Test
+	public void handlesMayBeSharedBySubcommands() {
+		Flag verbose = Flag.builder("verbose");
+		Arg<Integer> level = Arg.Integer("level").defaultValue(1);
+		CliSpec spec = CliParser.specFor("tool", "a tool with subcommands")
+				.addFlag(verbose)
+				.addArg(level)
+				.subcommand("run", "runs things",
+						sub -> sub.addArg(Arg.String("target")).addArg(level).addFlag(verbose))
+				.compile();
+		Cli sub = spec.parse(new String[] { "run", "--target", "x", "--level", "5", "--verbose" }).getSubcommandCli();
+		assertThat(sub.isFlagSet(verbose)).isTrue();
+		assertThat(sub.getInt(level)).isEqualTo(5);
+		Cli cli = spec.parse(new String[] { "--level", "3" });
+		assertThat(cli.isFlagSet(verbose)).isFalse();
+		assertThat(cli.getInt(level)).isEqualTo(3);
+		assertThat(sub.getInt(level)).isEqualTo(5);
+	}
+
+	@Test
+	public void onlySelectedSubcommandIsBuilt() {
+		CliSpec spec = spec();
+		assertThat(imports.get()).isEqualTo(0);
+		spec.parse(new String[] { "import", "-f", "a.csv" });
+		spec.parse(new String[] { "import", "-f", "b.csv" });
+		assertThat(imports.get()).isEqualTo(1);
+		assertThat(exports.get()).isEqualTo(0);
+	}
+
+	@Test
+	public void optionsOfParentAreParsedWithoutSubcommand() {
+		Cli cli = spec().parse(new String[] { "-v" });
+		assertThat(cli.getSubcommand()).isNull();
+		assertThat(cli.getSubcommandCli()).isNull();
+		assertThat(cli.isFlagSet("version")).isTrue();
+	}
+
+	@Test
+	public void optionsAreScopedToTheirSubcommand() {
+		assertThrows(RuntimeException.class, () -> spec().parse(new String[] { "export", "-f", "a.csv" }));
+		RuntimeException e = assertThrows(RuntimeException.class, () -> spec().parse(new String[] { "import" }));
+		assertThat(e.getMessage()).isEqualTo("Missing required option: f");
+	}
+
+	@Test
+	public void optionsOfParentCantPrecedeSubcommand() {
+		RuntimeException e = assertThrows(RuntimeException.class,
+				() -> spec().parse(new String[] { "-v", "import" }));
+		assertThat(e.getMessage()).isEqualTo("Command 'import' must be the first argument.");
+	}
+
+	@Test
+	public void requiredOrConstrainedOptionsOfParentAreRejected() {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> CliParser.specFor("tool", "a tool with subcommands")
+						.addArg(Arg.String("user").isRequired())
+						.subcommand("import", spec -> spec.addFlag(Flag.builder("dry-run")))
+						.compile());
+		assertThat(e.getMessage()).startsWith("The options of a spec with subcommands can't be required");
+		assertThrows(IllegalArgumentException.class, () -> CliParser.specFor("tool", "a tool with subcommands")
+				.addFlag(Flag.builder("quiet"))
+				.addFlag(Flag.builder("verbose"))
+				.addExclusion("quiet", "verbose")
+				.subcommand("import", spec -> spec.addFlag(Flag.builder("dry-run")))
+				.compile());
+	}
+
+	@Test
+	public void unknownSubcommandThrows() {
+		RuntimeException e = assertThrows(RuntimeException.class, () -> spec().parse(new String[] { "delete" }));
+		assertThat(e.getMessage()).isEqualTo("Unknown command: 'delete'");
+	}
+
+	@Test
+	public void subcommandsMayBeNested() {
+		Cli cli = spec().parse(new String[] { "export", "users", "--all" });
+		assertThat(cli.getSubcommand()).isEqualTo("export");
+		Cli export = cli.getSubcommandCli();
+		assertThat(export.getSubcommand()).isEqualTo("users");
+		assertThat(export.getSubcommandCli().isFlagSet("all")).isTrue();
+	}
+
+	@Test
+	public void helpListsSubcommands() {
+		StringWriter out = new StringWriter();
+		spec().printHelp(out, 74);
+		assertThat(out.toString()).contains("<command> [<args>]")
+				.contains("commands:")
+				.contains(" import   imports things")
+				.contains(" export   exports things");
+	}
+
+	@Test
+	public void helpOfSubcommandContainsItsName() {
+		Cli cli = spec().parse(new String[] { "import", "-f", "a.csv" });
+		StringWriter out = new StringWriter();
+		cli.getSubcommandCli().spec.printHelp(out, 74);
+		assertThat(out.toString()).startsWith("usage: java -jar tool.jar import ").contains("--dry-run");
+	}
+}
@@ -0,0 +1,103 @@
+package info.unterrainer.commons.cliutils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class ValidatorTests {
+
+	private final Arg<Integer> port = Arg.Integer("port").min(1).max(65535);
+	private final Arg<String> name = Arg.String("name").pattern("[a-z][a-z0-9-]*");
+	private final Arg<String> level = Arg.String("level").oneOf("debug", "info", "warn");
+	private final Arg<Integer> ids = Arg.Integer("ids").unlimited().check(i -> i % 2 == 0, "must be even");
+	private final Arg<Duration> timeout = Arg.Duration("timeout").max(Duration.ofMinutes(1));
+
+	private CliSpec spec() {
+		return CliParser.specFor("test", "a test program")
+				.addArg(port)
+				.addArg(name)
+				.addArg(level)
+				.addArg(ids)
+				.addArg(timeout)
+				.compile();
+	}
+
+	@Test
+	public void validValuesAreAccepted() {
+		Cli cli = spec().parse(new String[] { "--port", "8080", "--name", "web-1", "--level", "info", "--ids",
+				"2,4,6", "--timeout", "30s" });
+		assertThat(cli.getInt(port)).isEqualTo(8080);
+		assertThat(cli.getArgValue(level)).isEqualTo("info");
+		assertThat(cli.getInts(ids)).containsExactly(2, 4, 6);
+	}
+
+	@Test
+	public void allViolationsAreReportedTogether() {
+		ValidationException e = assertThrows(ValidationException.class, () -> spec().parse(new String[] { "--port",
+				"0", "--name", "Web", "--level", "trace", "--ids", "2,3,x,5", "--timeout", "2m" }));
+		assertThat(e.violations()).containsExactlyInAnyOrder("Value '0' of option 'port' is less than 1.",
+				"Value 'Web' of option 'name' doesn't match '[a-z][a-z0-9-]*'.",
+				"Value 'trace' of option 'level' isn't one of: debug, info, warn.",
+				"Value '3' of option 'ids' is invalid: must be even",
+				"Value 'x' of option 'ids' is not a valid number.",
+				"Value '5' of option 'ids' is invalid: must be even",
+				"Value '2m' of option 'timeout' is greater than PT1M.");
+		assertThat(e.getMessage()).contains("Value '3' of option 'ids' is invalid: must be even\n"
+				+ "Value 'x' of option 'ids' is not a valid number.\n"
+				+ "Value '5' of option 'ids' is invalid: must be even");
+	}
+
+	@Test
+	public void checkedValuesAreConvertedOnce() {
+		AtomicInteger conversions = new AtomicInteger();
+		Arg<Integer> sizes = Arg.Integer("sizes").unlimited().min(0).converter(s -> {
+			conversions.incrementAndGet();
+			return Integer.valueOf(s);
+		});
+		Arg<Integer> size = Arg.Integer("size").max(10).converter(s -> {
+			conversions.incrementAndGet();
+			return Integer.valueOf(s);
+		});
+		Cli cli = CliParser.specFor("test", "a test program")
+				.addArg(sizes)
+				.addArg(size)
+				.compile()
+				.parse(new String[] { "--sizes", "1,2,3", "--size", "4" });
+		assertThat(cli.getInts(sizes)).containsExactly(1, 2, 3);
+		assertThat(cli.getArgValues(sizes)).containsExactly(1, 2, 3);
+		assertThat(cli.getInt(size)).isEqualTo(4);
+		assertThat(conversions.get()).isEqualTo(4);
+	}
+
+	@Test
+	public void valuesFromOtherSourcesAreValidated() {
+		Arg<Integer> threads = Arg.Integer("threads").max(64).env("THREADS");
+		Cli cli = CliParser.specFor("test", "a test program")
+				.addArg(threads)
+				.compile()
+				.parse(new String[0], System.out, Map.of("THREADS", "128"));
+		ValidationException e = assertThrows(ValidationException.class, () -> cli.getInt(threads));
+		assertThat(e.getMessage()).isEqualTo("Value '128' of option 'threads' is greater than 64.");
+	}
+
+	@Test
+	public void boundsMustBeComparable() {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> CliParser.specFor("test", "a test program")
+						.addArg(Arg.InetSocketAddress("address").min(new InetSocketAddress(1)))
+						.compile());
+		assertThat(e.getMessage()).isEqualTo("The minimum of option 'address' isn't comparable.");
+	}
+
+	@Test
+	public void allowedValuesAreCompleted() {
+		assertThat(spec().completion(Shell.BASH))
+				.contains("--level) COMPREPLY=($(compgen -W \"debug info warn\" -- \"$cur\")); return ;;");
+	}
+}
@@ -0,0 +1,121 @@
+package info.unterrainer.commons.cliutils.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import info.unterrainer.commons.cliutils.Arg;
+import info.unterrainer.commons.cliutils.CliParser;
+import info.unterrainer.commons.cliutils.CliSpec;
+
+public class BatchTests {
+
+	private static final Arg<String> NAME = Arg.String("name").shortName("n");
+	private static final Arg<Integer> CODE = Arg.Integer("code").defaultValue(0);
+
+	private final CliSpec spec = CliParser.specFor("tool", "a tool").addArg(NAME).addArg(CODE).compile();
+
+	private Path write(final String content) throws IOException {
+		Path file = Files.createTempFile("commands", ".txt");
+		file.toFile().deleteOnExit();
+		return Files.writeString(file, content);
+	}
+
+	@Test
+	public void allLinesAreParsedAndDispatched() throws Exception {
+		Path file = write("# names\n--name a\n\n-n 'b c'\n--name \"d\" # trailing comment\n");
+		Set<String> names = ConcurrentHashMap.newKeySet();
+		BatchResult result = new BatchRunner(spec, (cli, command) -> {
+			names.add(cli.getArgValue(NAME));
+			return 0;
+		}).run(file);
+		assertThat(names).containsExactlyInAnyOrder("a", "b c", "d");
+		assertThat(result.total()).isEqualTo(3);
+		assertThat(result.succeeded()).isEqualTo(3);
+		assertThat(result.exitCode()).isEqualTo(0);
+	}
+
+	@Test
+	public void exitCodesAndErrorsAreAggregated() throws Exception {
+		Path file = write("--name ok\n--code 3\n--unknown\n--name fail\n--code 1\n");
+		BatchResult result = new BatchRunner(spec, (cli, command) -> {
+			if ("fail".equals(cli.getArgValue(NAME)))
+				throw new IllegalStateException("boom");
+			return cli.getInt(CODE);
+		}).run(file);
+		assertThat(result.total()).isEqualTo(5);
+		assertThat(result.succeeded()).isEqualTo(1);
+		assertThat(result.exitCode()).isEqualTo(3);
+		List<String> failures = new ArrayList<>();
+		for (BatchFailure f : result.failures())
+			failures.add(f.toString());
+		assertThat(failures).containsExactly("line 2: Exited with code 3. (exit code 3)",
+				"line 3: Unrecognized option: --unknown (exit code 2)", "line 4: boom (exit code 1)",
+				"line 5: Exited with code 1. (exit code 1)");
+		assertThat(result.failures().get(2).cause()).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void errorsOfHandlersAreRecorded() throws Exception {
+		Path file = write("--name ok\n--name error\n");
+		BatchResult result = new BatchRunner(spec, (cli, command) -> {
+			if ("error".equals(cli.getArgValue(NAME)))
+				throw new AssertionError("broken");
+			return 0;
+		}).run(file);
+		assertThat(result.total()).isEqualTo(2);
+		assertThat(result.succeeded()).isEqualTo(1);
+		assertThat(result.exitCode()).isEqualTo(BatchRunner.EXIT_FAILURE);
+		assertThat(result.failures().get(0).toString())
+				.isEqualTo("line 2: java.lang.AssertionError: broken (exit code 1)");
+		assertThat(result.failures().get(0).cause()).isInstanceOf(AssertionError.class);
+	}
+
+	@Test
+	public void linesAreSplitLikeResponseFiles() {
+		assertThat(CliParser.splitArguments("  -n 'a b'\t\"c\"d#e # comment")).containsExactly("-n", "a b", "cd#e");
+		assertThat(CliParser.splitArguments("# only a comment")).isEmpty();
+	}
+
+	@Test
+	public void parallelismIsBounded() throws Exception {
+		StringBuilder commands = new StringBuilder();
+		for (int i = 0; i < 50; i++)
+			commands.append("--name ").append(i).append('\n');
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger peak = new AtomicInteger();
+		BatchResult result = new BatchRunner(spec, (cli, command) -> {
+			peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+			Thread.sleep(5);
+			running.decrementAndGet();
+			return 0;
+		}).parallelism(4).run(write(commands.toString()));
+		assertThat(result.total()).isEqualTo(50);
+		assertThat(peak.get() <= 4).isTrue();
+		assertThrows(IllegalArgumentException.class, () -> new BatchRunner(spec, (cli, command) -> 0).parallelism(0));
+	}
+
+	@Test
+	public void progressIsPrintedAsOneLine() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new BatchRunner(spec, (cli, command) -> cli.getInt(CODE))
+				.progress(BatchProgress.text(new PrintStream(out, true, StandardCharsets.UTF_8)))
+				.run(write("--code 0\n--code 0\n--code 1\n"));
+		String text = out.toString(StandardCharsets.UTF_8);
+		assertThat(text).endsWith("\r[3/3] 100% 1 failed\n");
+		assertThat(text.split("\n").length).isEqualTo(1);
+	}
+}
@@ -0,0 +1,207 @@
+package info.unterrainer.commons.cliutils.daemon;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import info.unterrainer.commons.cliutils.Arg;
+import info.unterrainer.commons.cliutils.CliParser;
+import info.unterrainer.commons.cliutils.CliSpec;
+import info.unterrainer.commons.cliutils.Flag;
+
+public class DaemonTests {
+
+	private static final Arg<String> NAME = Arg.String("name").shortName("n").isRequired();
+	private static final Flag FAIL = Flag.builder("fail");
+
+	private final CliSpec spec = CliParser.specFor("greeter", "greets people").addArg(NAME).addFlag(FAIL).compile();
+
+	private static final class Result {
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+		private int code;
+
+		private String out() {
+			return out.toString(StandardCharsets.UTF_8);
+		}
+
+		private String err() {
+			return err.toString(StandardCharsets.UTF_8);
+		}
+	}
+
+	private CliDaemon daemon(final Path socket) throws IOException {
+		return new CliDaemon(spec, socket, (cli, invocation) -> {
+			if (cli.isHelpSet())
+				return 0;
+			if (cli.isFlagSet(FAIL))
+				throw new IllegalStateException("failed on purpose");
+			invocation.out().printf("Hello %s from %s%n", cli.getArgValue(NAME), invocation.cwd());
+			invocation.err().println("LANG=" + invocation.env().get("LANG"));
+			return 3;
+		}).start();
+	}
+
+	private Result run(final Path socket, final String... args) throws IOException {
+		Result result = new Result();
+		result.code = CliClient.run(socket, args, Map.of("LANG", "de_AT"), Path.of("/work"),
+				new PrintStream(result.out, true, StandardCharsets.UTF_8),
+				new PrintStream(result.err, true, StandardCharsets.UTF_8));
+		return result;
+	}
+
+	private Path socket() throws IOException {
+		return Files.createTempDirectory("cli-daemon").resolve("daemon.sock");
+	}
+
+	@Test
+	public void streamsOutputAndExitCode() throws IOException {
+		try (CliDaemon daemon = daemon(socket())) {
+			Result result = run(daemon.socket(), "-n", "Gerald");
+			assertThat(result.code).isEqualTo(3);
+			assertThat(result.out()).isEqualTo("Hello Gerald from /work" + System.lineSeparator());
+			assertThat(result.err()).isEqualTo("LANG=de_AT" + System.lineSeparator());
+		}
+	}
+
+	@Test
+	public void parseErrorsAreReportedWithHelp() throws IOException {
+		try (CliDaemon daemon = daemon(socket())) {
+			Result result = run(daemon.socket(), "--unknown");
+			assertThat(result.code).isEqualTo(CliDaemon.EXIT_USAGE);
+			assertThat(result.out()).startsWith("usage: java -jar greeter.jar");
+			assertThat(result.err()).contains("--unknown");
+		}
+	}
+
+	@Test
+	public void failingCommandsExitWithFailure() throws IOException {
+		try (CliDaemon daemon = daemon(socket())) {
+			Result result = run(daemon.socket(), "-n", "x", "--fail");
+			assertThat(result.code).isEqualTo(CliDaemon.EXIT_FAILURE);
+			assertThat(result.err()).contains("failed on purpose");
+		}
+	}
+
+	@Test
+	public void requestsAreServedConcurrently() throws Exception {
+		ExecutorService clients = Executors.newFixedThreadPool(8);
+		try (CliDaemon daemon = daemon(socket())) {
+			List<Future<Result>> results = new ArrayList<>();
+			for (int i = 0; i < 32; i++) {
+				String name = "client" + i;
+				results.add(clients.submit(() -> run(daemon.socket(), "--name", name)));
+			}
+			for (int i = 0; i < results.size(); i++)
+				assertThat(results.get(i).get().out()).startsWith("Hello client" + i + " ");
+		} finally {
+			clients.shutdown();
+		}
+	}
+
+	@Test
+	public void relativePathsAreResolvedAgainstTheWorkingDirectoryOfTheClient() throws IOException {
+		Path cwd = Files.createTempDirectory("cli-client");
+		Files.writeString(cwd.resolve("args.txt"), "--name Gerald --input data.txt");
+		Files.writeString(cwd.resolve("data.txt"), "data");
+		Arg<Path> input = Arg.of("input", Path.class).mustExist();
+		CliSpec fileSpec = CliParser.specFor("reader", "reads files")
+				.expandArgFiles()
+				.addArg(NAME)
+				.addArg(input)
+				.compile();
+		try (CliDaemon daemon = new CliDaemon(fileSpec, socket(), (cli, invocation) -> {
+			invocation.out().println(cli.<String>getArgValue(NAME) + " " + cli.getArgValue(input) + " "
+					+ cli.getPaths(input).findFirst().get());
+			return 0;
+		}).start()) {
+			Result result = new Result();
+			result.code = CliClient.run(daemon.socket(), new String[] { "@args.txt" }, Map.of(), cwd,
+					new PrintStream(result.out, true, StandardCharsets.UTF_8),
+					new PrintStream(result.err, true, StandardCharsets.UTF_8));
+			assertThat(result.err()).isEmpty();
+			assertThat(result.code).isEqualTo(0);
+			Path data = cwd.resolve("data.txt");
+			assertThat(result.out()).isEqualTo("Gerald " + data + " " + data + System.lineSeparator());
+		}
+	}
+
+	@Test
+	public void invalidLengthsAreRejected() throws IOException {
+		assertThrows(IOException.class, () -> Protocol.readArgs(input(-1)));
+		assertThrows(IOException.class, () -> Protocol.readEnv(input(Integer.MAX_VALUE)));
+		assertThrows(IOException.class, () -> Protocol.readString(input(Protocol.MAX_STRING + 1)));
+	}
+
+	private static DataInputStream input(final int length) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new DataOutputStream(bytes).writeInt(length);
+		return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+	}
+
+	@Test
+	public void closingRemovesTheSocket() throws IOException {
+		Path socket = socket();
+		daemon(socket).close();
+		assertThat(Files.exists(socket)).isFalse();
+	}
+
+	@Test
+	public void socketsOfRunningDaemonsAreNotReplaced() throws IOException {
+		try (CliDaemon daemon = daemon(socket())) {
+			IOException e = assertThrows(IOException.class, () -> daemon(daemon.socket()));
+			assertThat(e.getMessage()).contains("Another daemon is listening");
+			assertThat(run(daemon.socket(), "-n", "x").code).isEqualTo(3);
+		}
+	}
+
+	@Test
+	public void staleSocketsAreReplaced() throws IOException {
+		Path socket = socket();
+		ServerSocketChannel stale = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		stale.bind(UnixDomainSocketAddress.of(socket));
+		stale.close();
+		assertThat(Files.exists(socket)).isTrue();
+		try (CliDaemon daemon = daemon(socket)) {
+			assertThat(run(daemon.socket(), "-n", "x").code).isEqualTo(3);
+		}
+	}
+
+	@Test
+	public void filesAreNotReplaced() throws IOException {
+		Path socket = socket();
+		Files.writeString(socket, "data");
+		assertThrows(IOException.class, () -> daemon(socket));
+		assertThat(Files.readString(socket)).isEqualTo("data");
+	}
+
+	@Test
+	public void socketsAreAccessibleToTheirOwnerOnly() throws IOException {
+		try (CliDaemon daemon = daemon(socket())) {
+			if (daemon.socket().getFileSystem().supportedFileAttributeViews().contains("posix"))
+				assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(daemon.socket())))
+						.isEqualTo("rw-------");
+		}
+	}
+}
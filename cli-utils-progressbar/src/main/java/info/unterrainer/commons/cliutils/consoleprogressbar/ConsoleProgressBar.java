@@ -65,8 +65,8 @@ public class ConsoleProgressBar {
 	@Getter
 	private boolean drawInitialized = false;
 	private int lastNumberOfCharactersDrawn;
-	@Getter
 	private DrawableComponent component;
+	private boolean defaultComponentWithControlCharacters;
 
 	@Builder
 	public ConsoleProgressBar(final Integer width, final Double minValue, final Double maxValue,
@@ -77,13 +77,27 @@ public class ConsoleProgressBar {
 		this.width = Optional.ofNullable(width).orElse(50);
 		this.controlCharacterSupport = Optional.ofNullable(controlCharacterSupport).orElse(true);
 
+		this.component = component;
+		if (component == null)
+			defaultComponentWithControlCharacters = this.controlCharacterSupport;
+	}
+
+	/**
+	 * Gets the draw-able component of this progress bar.
+	 * <p>
+	 * The default component is created (and its classes are loaded) the first
+	 * time it is needed.
+	 *
+	 * @return the component
+	 */
+	public DrawableComponent getComponent() {
 		if (component == null) {
-			if (this.controlCharacterSupport)
-				this.component = ProgressBar.builder().build();
+			if (defaultComponentWithControlCharacters)
+				component = ProgressBar.builder().build();
 			else
-				this.component = SimpleInsertBar.builder().build();
-		} else
-			this.component = component;
+				component = SimpleInsertBar.builder().build();
+		}
+		return component;
 	}
 
 	private void checkFader() {
@@ -191,8 +205,8 @@ public class ConsoleProgressBar {
 
 			if (isRedrawNecessary()) {
 				if (drawInitialized)
-					component.remove(ps, width, lastNumberOfCharactersDrawn);
-				component.draw(ps, fader, width, drawInitialized, fullNumber, lastNumberOfCharactersDrawn);
+					getComponent().remove(ps, width, lastNumberOfCharactersDrawn);
+				getComponent().draw(ps, fader, width, drawInitialized, fullNumber, lastNumberOfCharactersDrawn);
 				drawInitialized = true;
 				lastNumberOfCharactersDrawn = fullNumber;
 			}
@@ -213,7 +227,7 @@ public class ConsoleProgressBar {
 		if (ps != null) {
 			checkFader();
 			int fullNumber = (int) (fader.getPercentage() * width);
-			component.draw(ps, fader, width, drawInitialized, fullNumber, lastNumberOfCharactersDrawn);
+			getComponent().draw(ps, fader, width, drawInitialized, fullNumber, lastNumberOfCharactersDrawn);
 			drawInitialized = true;
 			lastNumberOfCharactersDrawn = fullNumber;
 			ps.flush();
@@ -234,7 +248,7 @@ public class ConsoleProgressBar {
 		if (ps != null) {
 			checkFader();
 			if (drawInitialized) {
-				component.remove(ps, width, lastNumberOfCharactersDrawn);
+				getComponent().remove(ps, width, lastNumberOfCharactersDrawn);
 				ps.flush();
 			}
 		}
@@ -0,0 +1,57 @@
+package info.unterrainer.commons.cliutils.sample;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import info.unterrainer.commons.cliutils.Arg;
+import info.unterrainer.commons.cliutils.Cli;
+import info.unterrainer.commons.cliutils.CliParser;
+import info.unterrainer.commons.cliutils.Flag;
+import info.unterrainer.commons.cliutils.consoleprogressbar.ConsoleProgressBar;
+
+/**
+ * A minimal tool used to compare the startup-time and memory-footprint of the
+ * native-image and the JVM build.
+ */
+public final class SampleTool {
+
+	private SampleTool() {
+	}
+
+	public static void main(final String[] args) throws IOException {
+		Arg<Integer> steps = Arg.Integer("steps").shortName("n").description("the number of steps").defaultValue(20);
+		Flag stats = Flag.builder("stats").description("prints the peak resident set size (Linux only)");
+		Cli cli = CliParser.cliFor(args, "cli-sample", "a sample tool for native-image builds")
+				.addArg(steps)
+				.addFlag(stats)
+				.create();
+		if (cli.isHelpSet())
+			return;
+
+		int n = cli.getInt(steps);
+		ConsoleProgressBar bar = ConsoleProgressBar.builder()
+				.maxValue((double) n)
+				.controlCharacterSupport(false)
+				.build();
+		for (int i = 1; i <= n; i++)
+			bar.updateValue(i).redraw(System.out);
+		bar.complete().redraw(System.out);
+		System.out.println();
+
+		if (cli.isFlagSet(stats))
+			System.out.println("rss-kb=" + peakRss());
+	}
+
+	private static long peakRss() throws IOException {
+		Path status = Path.of("/proc/self/status");
+		if (!Files.exists(status))
+			return -1;
+		return Files.readAllLines(status)
+				.stream()
+				.filter(l -> l.startsWith("VmHWM:"))
+				.mapToLong(l -> Long.parseLong(l.replaceAll("[^0-9]", "")))
+				.findFirst()
+				.orElse(-1);
+	}
+}
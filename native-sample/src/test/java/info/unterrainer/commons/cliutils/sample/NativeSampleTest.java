@@ -0,0 +1,117 @@
+package info.unterrainer.commons.cliutils.sample;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the sample tool as a JVM-process, as a JVM-process using an
+ * AppCDS-archive (if it has been built using {@code mvn -Pappcds package}) and
+ * as a native-image-process (if it has been built using
+ * {@code mvn -Pnative package}) and reports the median startup-time and peak
+ * RSS to standard-out and {@code target/native-report.txt} (or
+ * {@code target/appcds-report.txt}).
+ */
+public class NativeSampleTest {
+
+	private static final int RUNS = 5;
+	private static final Path EXECUTABLE = Path.of("target", "cli-sample");
+	private static final Path ARCHIVE = Path.of("target", "cli-sample.jsa");
+
+	private static final class Result {
+		private final long millis;
+		private final long rssKb;
+
+		private Result(final long millis, final long rssKb) {
+			this.millis = millis;
+			this.rssKb = rssKb;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%5d ms, %7d kB RSS", millis, rssKb);
+		}
+	}
+
+	private static Result measure(final List<String> command) throws IOException, InterruptedException {
+		long[] millis = new long[RUNS];
+		long[] rss = new long[RUNS];
+		for (int i = 0; i < RUNS; i++) {
+			long start = System.nanoTime();
+			Process p = new ProcessBuilder(command).redirectErrorStream(true).start();
+			String output = new String(p.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+			assertThat(p.waitFor()).as(output).isEqualTo(0);
+			millis[i] = (System.nanoTime() - start) / 1_000_000;
+			int index = output.indexOf("rss-kb=");
+			rss[i] = index == -1 ? -1 : Long.parseLong(output.substring(index + 7).trim());
+		}
+		Arrays.sort(millis);
+		Arrays.sort(rss);
+		return new Result(millis[RUNS / 2], rss[RUNS / 2]);
+	}
+
+	private static List<String> jvm() {
+		return new ArrayList<>(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(), "-cp",
+				System.getProperty("java.class.path"), SampleTool.class.getName(), "--stats", "-n", "50"));
+	}
+
+	/**
+	 * The archive is only used if the class-path matches the one it has been
+	 * created with.
+	 */
+	private static List<String> packagedJvm(final String... options) throws IOException {
+		Path jar;
+		try (Stream<Path> files = Files.list(Path.of("target"))) {
+			jar = files.filter(p -> p.getFileName().toString().matches("cli-utils-native-sample-.*\\.jar"))
+					.findFirst()
+					.orElseThrow(() -> new IOException("package the sample tool first"));
+		}
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(List.of(options));
+		command.addAll(List.of("-cp", jar + File.pathSeparator + Path.of("target", "lib", "*"),
+				SampleTool.class.getName(), "--stats", "-n", "50"));
+		return command;
+	}
+
+	private static void report(final String file, final String text) throws IOException {
+		System.out.print(text);
+		Files.createDirectories(Path.of("target"));
+		Files.writeString(Path.of("target", file), text);
+	}
+
+	@Test
+	public void appCdsBuildIsComparedToJvmBuild() throws Exception {
+		assumeTrue(Files.exists(ARCHIVE), "build the AppCDS-archive using 'mvn -Pappcds package' first");
+		Result jvm = measure(packagedJvm());
+		Result cds = measure(packagedJvm("-XX:SharedArchiveFile=" + ARCHIVE, "-Xshare:auto"));
+		report("appcds-report.txt", String.format(
+				"startup and peak RSS (median of %d runs)%njvm:        %s%njvm+appcds: %s%n", RUNS, jvm, cds));
+	}
+
+	@Test
+	public void jvmBuildRuns() throws Exception {
+		Result result = measure(jvm());
+		assertThat(result.millis).isGreaterThan(0L);
+	}
+
+	@Test
+	public void nativeBuildIsComparedToJvmBuild() throws Exception {
+		assumeTrue(Files.isExecutable(EXECUTABLE), "build the native image using 'mvn -Pnative package' first");
+		Result jvm = measure(jvm());
+		Result nativeImage = measure(List.of(EXECUTABLE.toString(), "--stats", "-n", "50"));
+		report("native-report.txt", String.format("startup and peak RSS (median of %d runs)%njvm:    %s%nnative: %s%n",
+				RUNS, jvm, nativeImage));
+	}
+}
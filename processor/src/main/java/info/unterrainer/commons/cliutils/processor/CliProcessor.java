@@ -0,0 +1,626 @@
+package info.unterrainer.commons.cliutils.processor;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+import info.unterrainer.commons.cliutils.Arg;
+import info.unterrainer.commons.cliutils.CliParser;
+import info.unterrainer.commons.cliutils.CliParserBuilder;
+import info.unterrainer.commons.cliutils.Flag;
+import info.unterrainer.commons.cliutils.Option;
+
+/**
+ * Generates a parser, a validator, the help-text and a binder for every class
+ * annotated with {@link GenerateCli} at build time.
+ * <p>
+ * The generated code consists of a single switch over the option-names and
+ * direct field-assignments (or a call of the canonical constructor of a
+ * record), so there is neither schema construction nor reflection at runtime.
+ * The help-text is rendered by the library when the code is generated and is
+ * stored as a constant.
+ * <p>
+ * The generated parser follows the runtime parser for exact short- and
+ * long-names, {@code --name=value}, positional arguments, '--',
+ * response-files (if enabled), options taking an unlimited number of values
+ * and its error messages. It doesn't support abbreviated long-names,
+ * concatenated short flags, values attached to short-names ({@code -p8080}
+ * or {@code -p=8080}), sources, validators or converters; use a
+ * {@link info.unterrainer.commons.cliutils.CliSpec} for these.
+ */
+@SupportedAnnotationTypes("info.unterrainer.commons.cliutils.processor.GenerateCli")
+public class CliProcessor extends AbstractProcessor {
+
+	private enum Kind {
+		FLAG, VALUE, VALUES
+	}
+
+	private static final class Model {
+		private String variable;
+		private String field;
+		private String longName;
+		private String shortName;
+		private String description;
+		private boolean required;
+		private Kind kind;
+		// The boxed type of the value (or the elements of a list), null for flags.
+		private String type;
+		private boolean primitive;
+		private boolean bound;
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+		for (Element element : roundEnv.getElementsAnnotatedWith(GenerateCli.class)) {
+			if (!(element instanceof TypeElement) || element.getKind() == ElementKind.INTERFACE
+					|| element.getKind() == ElementKind.ENUM) {
+				error(element, "@GenerateCli may only be used on classes and records.");
+				continue;
+			}
+			try {
+				generate((TypeElement) element);
+			} catch (IllegalArgumentException e) {
+				error(element, e.getMessage());
+			} catch (IOException e) {
+				error(element, "Cannot write the generated parser: " + e.getMessage());
+			}
+		}
+		return true;
+	}
+
+	private void error(final Element element, final String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+
+	private void generate(final TypeElement type) throws IOException {
+		boolean record = type.getKind() == ElementKind.RECORD;
+		List<Model> models = new ArrayList<>();
+		for (Element e : type.getEnclosedElements()) {
+			if (e.getKind() != ElementKind.FIELD || e.getModifiers().contains(Modifier.STATIC))
+				continue;
+			Option option = e.getAnnotation(Option.class);
+			if (option == null && !record)
+				continue;
+			if (option != null && !record && (e.getModifiers().contains(Modifier.PRIVATE)
+					|| e.getModifiers().contains(Modifier.FINAL)))
+				throw new IllegalArgumentException(
+						String.format("Field '%s' must neither be private nor final.", e.getSimpleName()));
+			models.add(model((VariableElement) e, option));
+		}
+
+		GenerateCli annotation = type.getAnnotation(GenerateCli.class);
+		String help = help(annotation, models);
+		String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		String typeName = type.getQualifiedName().toString();
+		String simpleName = type.getSimpleName() + "Cli";
+		String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+		try (Writer out = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+			out.write(new Generator(packageName, simpleName, typeName, record, annotation.argFiles(), models, help)
+					.generate());
+		}
+	}
+
+	private Model model(final VariableElement field, final Option option) {
+		Model m = new Model();
+		m.field = field.getSimpleName().toString();
+		m.variable = "_" + m.field;
+		m.bound = option != null;
+		if (option != null) {
+			m.longName = option.longName().isEmpty() ? m.field : option.longName();
+			m.shortName = option.shortName().isEmpty() ? null : option.shortName();
+			m.description = option.description().isEmpty() ? null : option.description();
+			m.required = option.required();
+		}
+		TypeMirror t = field.asType();
+		m.primitive = t.getKind().isPrimitive();
+		String name = m.primitive
+				? processingEnv.getTypeUtils().boxedClass((PrimitiveType) t).getQualifiedName().toString()
+				: processingEnv.getTypeUtils().erasure(t).toString();
+		if (name.equals("java.lang.Boolean")) {
+			m.kind = Kind.FLAG;
+			m.type = m.primitive ? "boolean" : "java.lang.Boolean";
+		} else if (name.equals("java.util.List")) {
+			m.kind = Kind.VALUES;
+			List<? extends TypeMirror> arguments = ((DeclaredType) t).getTypeArguments();
+			m.type = arguments.isEmpty() ? "java.lang.String" : arguments.get(0).toString();
+		} else {
+			m.kind = Kind.VALUE;
+			m.type = name;
+		}
+		if (m.bound && m.kind != Kind.FLAG && !isSupported(m.type))
+			throw new IllegalArgumentException(
+					String.format("Field '%s' has an unsupported type: %s", m.field, t.toString()));
+		if (!m.bound)
+			m.type = t.toString();
+		return m;
+	}
+
+	private static boolean isSupported(final String type) {
+		return type.equals("java.lang.String") || type.equals("java.lang.Integer") || type.equals("java.lang.Float")
+				|| type.equals("java.lang.Double");
+	}
+
+	/**
+	 * Renders the help-text using the library itself, so it looks exactly like
+	 * the one of a spec built at runtime.
+	 */
+	private static String help(final GenerateCli annotation, final List<Model> models) {
+		CliParserBuilder builder = CliParser.specFor(annotation.jarName(), annotation.description());
+		for (Model m : models) {
+			if (!m.bound)
+				continue;
+			if (m.kind == Kind.FLAG) {
+				Flag flag = Flag.builder(m.longName).shortName(m.shortName).description(m.description);
+				builder.addFlag(m.required ? flag.isRequired() : flag);
+				continue;
+			}
+			Arg<?> arg = arg(m);
+			arg.shortName(m.shortName).description(m.description);
+			if (m.kind == Kind.VALUES)
+				arg.unlimited();
+			if (m.required)
+				arg.isRequired();
+			builder.addArg(arg);
+		}
+		StringWriter result = new StringWriter();
+		builder.compile().printHelp(result, 74);
+		return result.toString().replace(System.lineSeparator(), "\n");
+	}
+
+	private static Arg<?> arg(final Model m) {
+		switch (m.type) {
+		case "java.lang.Integer":
+			return Arg.Integer(m.longName);
+		case "java.lang.Float":
+			return Arg.Float(m.longName);
+		case "java.lang.Double":
+			return Arg.Double(m.longName);
+		default:
+			return Arg.String(m.longName);
+		}
+	}
+
+	/**
+	 * Writes the source of the generated class.
+	 */
+	private static final class Generator {
+		private final String packageName;
+		private final String simpleName;
+		private final String typeName;
+		private final boolean record;
+		private final boolean argFiles;
+		private final List<Model> models;
+		private final String help;
+		private final StringBuilder sb = new StringBuilder();
+
+		private Generator(final String packageName, final String simpleName, final String typeName,
+				final boolean record, final boolean argFiles, final List<Model> models, final String help) {
+			this.packageName = packageName;
+			this.simpleName = simpleName;
+			this.typeName = typeName;
+			this.record = record;
+			this.argFiles = argFiles;
+			this.models = models;
+			this.help = help;
+		}
+
+		private Generator line(final int indent, final String format, final Object... args) {
+			sb.append("\t".repeat(indent)).append(String.format(format, args)).append('\n');
+			return this;
+		}
+
+		private String generate() {
+			if (!packageName.isEmpty())
+				line(0, "package %s;", packageName).line(0, "");
+			line(0, "/**");
+			line(0, " * Parses the command line into a {@link %s}.", typeName);
+			line(0, " * <p>");
+			line(0, " * Generated by the cli-utils annotation processor; don't edit.");
+			line(0, " */");
+			line(0, "@javax.annotation.processing.Generated(\"%s\")", CliProcessor.class.getName());
+			line(0, "public final class %s {", simpleName).line(0, "");
+			line(1, "public static final String HELP = %s;", literal(help)).line(0, "");
+			line(1, "private %s() {", simpleName).line(1, "}").line(0, "");
+
+			line(1, "/**");
+			line(1, " * Parses the given command line, rejecting positional arguments.");
+			line(1, " *");
+			line(1, " * @param args the command line arguments");
+			line(1, " * @return the parsed command line or null, if the help-flag is set");
+			line(1, " */");
+			line(1, "public static %s parse(final String[] args) {", typeName);
+			line(2, "return parse(args, null);");
+			line(1, "}").line(0, "");
+
+			line(1, "/**");
+			line(1, " * Parses the given command line.");
+			line(1, " * <p>");
+			line(1, " * If the help-flag is set, the help is printed and null is returned.");
+			line(1, " *");
+			line(1, " * @param args      the command line arguments");
+			line(1, " * @param arguments receives the positional arguments (and all arguments");
+			line(1, " *                  following '--'); if null, they are rejected");
+			line(1, " * @return the parsed command line or null, if the help-flag is set");
+			line(1, " */");
+			line(1, "public static %s parse(final String[] args, final java.util.List<String> arguments) {",
+					typeName);
+			parse();
+			line(1, "}").line(0, "");
+
+			line(1, "public static void printHelp(final java.io.PrintStream out) {");
+			line(2, "out.print(HELP);");
+			line(2, "out.flush();");
+			line(1, "}").line(0, "");
+
+			helpers();
+			sb.setLength(sb.length() - 1);
+			line(0, "}");
+			return sb.toString();
+		}
+
+		private boolean declaresHelp() {
+			for (Model m : models)
+				if (m.bound && ("help".equals(m.longName) || "h".equals(m.shortName)))
+					return true;
+			return false;
+		}
+
+		private void parse() {
+			for (Model m : models) {
+				if (!m.bound)
+					continue;
+				if (m.kind == Kind.VALUES)
+					line(2, "java.util.List<%s> %s = null;", m.type, m.variable);
+				else if (m.kind == Kind.FLAG)
+					line(2, "boolean %s = false;", m.variable);
+				else
+					line(2, "%s %s = null;", m.type, m.variable);
+			}
+			line(2, "boolean showHelp = false;");
+			line(2, "try {");
+			line(3, "String[] tokens = %s;", argFiles ? "expand(args)" : "args");
+			line(3, "boolean skipParsing = false;");
+			line(3, "for (int i = 0; i < tokens.length; i++) {");
+			line(4, "String token = tokens[i];");
+			line(4, "if (token == null)");
+			line(5, "continue;");
+			line(4, "if (skipParsing) {");
+			line(5, "argument(arguments, token);");
+			line(5, "continue;");
+			line(4, "}");
+			line(4, "if (\"--\".equals(token)) {");
+			line(5, "skipParsing = true;");
+			line(5, "continue;");
+			line(4, "}");
+			line(4, "String arg = token;");
+			line(4, "String value = null;");
+			line(4, "int separator = arg.startsWith(\"--\") ? arg.indexOf('=') : -1;");
+			line(4, "if (separator != -1) {");
+			line(5, "value = arg.substring(separator + 1);");
+			line(5, "arg = arg.substring(0, separator);");
+			line(4, "}");
+			line(4, "switch (arg) {");
+			for (Model m : models) {
+				if (!m.bound)
+					continue;
+				line(4, "case %s:", literal("--" + m.longName));
+				if (m.shortName != null)
+					line(4, "case %s:", literal("-" + m.shortName));
+				String name = literal(m.longName);
+				String key = literal(m.shortName != null ? m.shortName : m.longName);
+				switch (m.kind) {
+				case FLAG:
+					line(5, "if (value != null)");
+					line(6, "throw new RuntimeException(\"Unrecognized option: \" + token);");
+					line(5, "%s = true;", m.variable);
+					break;
+				case VALUES:
+					line(5, "if (value == null)");
+					line(6, "value = value(tokens, ++i, %s);", key);
+					line(5, "if (%s == null)", m.variable);
+					line(6, "%s = new java.util.ArrayList<>();", m.variable);
+					line(5, "while (true) {");
+					line(6, "for (String s : value.split(\",\", -1))");
+					line(7, "%s.add(%s);", m.variable, convert(m, "s", name));
+					line(6, "if (i + 1 >= tokens.length || !isValue(tokens[i + 1]))");
+					line(7, "break;");
+					line(6, "value = unquote(tokens[++i]);");
+					line(5, "}");
+					break;
+				default:
+					line(5, "if (value == null)");
+					line(6, "value = value(tokens, ++i, %s);", key);
+					line(5, "if (%s == null)", m.variable);
+					line(6, "%s = %s;", m.variable, convert(m, "value", name));
+				}
+				line(5, "break;");
+			}
+			if (!declaresHelp()) {
+				line(4, "case \"--help\":");
+				line(4, "case \"-h\":");
+				line(5, "if (value != null)");
+				line(6, "throw new RuntimeException(\"Unrecognized option: \" + token);");
+				line(5, "showHelp = true;");
+				line(5, "break;");
+			}
+			line(4, "default:");
+			line(5, "if (token.length() > 1 && token.charAt(0) == '-')");
+			line(6, "throw new RuntimeException(\"Unrecognized option: \" + token);");
+			line(5, "argument(arguments, token);");
+			line(4, "}");
+			line(3, "}");
+			line(3, "if (showHelp) {");
+			line(4, "printHelp(System.out);");
+			line(4, "return null;");
+			line(3, "}");
+			required();
+			line(2, "} catch (RuntimeException e) {");
+			line(3, "printHelp(System.out);");
+			line(3, "throw e;");
+			line(2, "}");
+			bind();
+		}
+
+		private void required() {
+			boolean any = false;
+			for (Model m : models)
+				if (m.bound && m.required) {
+					if (!any)
+						line(3, "java.util.List<String> missing = new java.util.ArrayList<>();");
+					any = true;
+					line(3, "if (%s)", m.kind == Kind.FLAG ? "!" + m.variable : m.variable + " == null")
+							.line(4, "missing.add(%s);", literal(m.shortName != null ? m.shortName : m.longName));
+				}
+			if (!any)
+				return;
+			line(3, "if (!missing.isEmpty())");
+			line(4, "throw new RuntimeException(");
+			line(6, "\"Missing required option\" + (missing.size() == 1 ? \"\" : \"s\") + \": \"");
+			line(8, "+ String.join(\", \", missing));");
+		}
+
+		private void bind() {
+			if (record) {
+				List<String> arguments = new ArrayList<>();
+				for (Model m : models)
+					arguments.add(!m.bound ? zero(m.type) : m.primitive && m.kind == Kind.VALUE
+							? String.format("%s == null ? %s : %s", m.variable, zero(unbox(m.type)), m.variable)
+							: m.variable);
+				line(2, "return new %s(%s);", typeName, String.join(", ", arguments));
+				return;
+			}
+			line(2, "%s result = new %s();", typeName, typeName);
+			for (Model m : models) {
+				if (m.kind == Kind.FLAG)
+					line(2, "result.%s = %s;", m.field, m.variable);
+				else
+					line(2, "if (%s != null)", m.variable).line(3, "result.%s = %s;", m.field, m.variable);
+			}
+			line(2, "return result;");
+		}
+
+		private static String convert(final Model m, final String value, final String name) {
+			switch (m.type) {
+			case "java.lang.Integer":
+				return String.format("toInt(%s, %s)", value, name);
+			case "java.lang.Float":
+				return String.format("toFloat(%s, %s)", value, name);
+			case "java.lang.Double":
+				return String.format("toDouble(%s, %s)", value, name);
+			default:
+				return value;
+			}
+		}
+
+		private static String unbox(final String type) {
+			switch (type) {
+			case "java.lang.Integer":
+				return "int";
+			case "java.lang.Float":
+				return "float";
+			case "java.lang.Double":
+				return "double";
+			default:
+				return type;
+			}
+		}
+
+		private static String zero(final String type) {
+			switch (type) {
+			case "boolean":
+				return "false";
+			case "byte":
+			case "short":
+			case "int":
+			case "long":
+			case "char":
+				return "(" + type + ") 0";
+			case "float":
+				return "0f";
+			case "double":
+				return "0d";
+			default:
+				return "null";
+			}
+		}
+
+		private void helpers() {
+			line(1, "private static String value(final String[] tokens, final int i, final String option) {");
+			line(2, "if (i >= tokens.length || !isValue(tokens[i]))");
+			line(3, "throw new RuntimeException(\"Missing argument for option: \" + option);");
+			line(2, "return unquote(tokens[i]);");
+			line(1, "}").line(0, "");
+			line(1, "private static boolean isValue(final String s) {");
+			line(2, "if (s == null || \"--\".equals(s))");
+			line(3, "return false;");
+			line(2, "if (s.length() < 2 || s.charAt(0) != '-')");
+			line(3, "return true;");
+			line(2, "int separator = s.indexOf('=');");
+			line(2, "switch (separator == -1 ? s : s.substring(0, separator)) {");
+			for (Model m : models) {
+				if (!m.bound)
+					continue;
+				line(2, "case %s:", literal("--" + m.longName));
+				if (m.shortName != null)
+					line(2, "case %s:", literal("-" + m.shortName));
+			}
+			if (!declaresHelp()) {
+				line(2, "case \"--help\":");
+				line(2, "case \"-h\":");
+			}
+			line(3, "break;");
+			line(2, "default:");
+			line(3, "return true;");
+			line(2, "}");
+			line(2, "try {");
+			line(3, "Double.parseDouble(s);");
+			line(3, "return true;");
+			line(2, "} catch (NumberFormatException e) {");
+			line(3, "return false;");
+			line(2, "}");
+			line(1, "}").line(0, "");
+			line(1, "private static String unquote(final String s) {");
+			line(2, "int length = s.length();");
+			line(2, "if (length > 1 && s.charAt(0) == '\"' && s.charAt(length - 1) == '\"'");
+			line(4, "&& s.indexOf('\"', 1) == length - 1)");
+			line(3, "return s.substring(1, length - 1);");
+			line(2, "return s;");
+			line(1, "}").line(0, "");
+			line(1, "private static void argument(final java.util.List<String> arguments, final String argument) {");
+			line(2, "if (arguments == null)");
+			line(3, "throw new RuntimeException(\"Unexpected argument: \" + argument);");
+			line(2, "arguments.add(argument);");
+			line(1, "}").line(0, "");
+			if (argFiles)
+				argFiles();
+			number("int", "Integer", "parseInt");
+			number("float", "Float", "parseFloat");
+			number("double", "Double", "parseDouble");
+		}
+
+		/**
+		 * Writes the expansion of response-files, which tokenizes them like the
+		 * runtime parser does.
+		 */
+		private void argFiles() {
+			line(1, "private static String[] expand(final String[] args) {");
+			line(2, "java.util.List<String> result = new java.util.ArrayList<>();");
+			line(2, "boolean skipParsing = false;");
+			line(2, "for (String arg : args) {");
+			line(3, "if (skipParsing || arg == null || arg.length() < 2 || arg.charAt(0) != '@') {");
+			line(4, "result.add(arg);");
+			line(4, "skipParsing |= \"--\".equals(arg);");
+			line(4, "continue;");
+			line(3, "}");
+			line(3, "String content;");
+			line(3, "try {");
+			line(4, "content = java.nio.file.Files.readString(java.nio.file.Path.of(arg.substring(1)));");
+			line(3, "} catch (java.io.IOException | java.nio.file.InvalidPathException e) {");
+			line(4, "throw new RuntimeException(");
+			line(6, "String.format(\"Cannot read argument file '%%s': %%s\", arg.substring(1), e.getMessage()));");
+			line(3, "}");
+			line(3, "skipParsing = tokenize(content, result);");
+			line(2, "}");
+			line(2, "return result.toArray(new String[0]);");
+			line(1, "}").line(0, "");
+			line(1, "private static boolean tokenize(final String content, final java.util.List<String> tokens) {");
+			line(2, "boolean skipParsing = false;");
+			line(2, "int i = 0;");
+			line(2, "while (true) {");
+			line(3, "while (i < content.length()) {");
+			line(4, "char c = content.charAt(i);");
+			line(4, "if (isWhitespace(c))");
+			line(5, "i++;");
+			line(4, "else if (c == '#')");
+			line(5, "while (i < content.length() && content.charAt(i) != '\\n')");
+			line(6, "i++;");
+			line(4, "else");
+			line(5, "break;");
+			line(3, "}");
+			line(3, "if (i >= content.length())");
+			line(4, "return skipParsing;");
+			line(3, "StringBuilder token = new StringBuilder();");
+			line(3, "char quote = 0;");
+			line(3, "for (; i < content.length(); i++) {");
+			line(4, "char c = content.charAt(i);");
+			line(4, "if (quote != 0 && c == quote)");
+			line(5, "quote = 0;");
+			line(4, "else if (quote == 0 && (c == '\"' || c == '\\''))");
+			line(5, "quote = c;");
+			line(4, "else if (quote == 0 && isWhitespace(c))");
+			line(5, "break;");
+			line(4, "else");
+			line(5, "token.append(c);");
+			line(3, "}");
+			line(3, "tokens.add(token.toString());");
+			line(3, "skipParsing |= \"--\".contentEquals(token);");
+			line(2, "}");
+			line(1, "}").line(0, "");
+			line(1, "private static boolean isWhitespace(final char c) {");
+			line(2, "return c == ' ' || c == '\\t' || c == '\\n' || c == '\\r' || c == '\\f';");
+			line(1, "}").line(0, "");
+		}
+
+		private void number(final String primitive, final String boxed, final String parse) {
+			line(1, "private static %s to%s(final String value, final String option) {", boxed,
+					Character.toUpperCase(primitive.charAt(0)) + primitive.substring(1));
+			line(2, "try {");
+			line(3, "return %s.%s(value);", boxed, parse);
+			line(2, "} catch (NumberFormatException e) {");
+			line(3, "throw new IllegalStateException(");
+			line(5, "String.format(\"Value '%%s' of option '%%s' is not a valid number.\", value, option));");
+			line(2, "}");
+			line(1, "}").line(0, "");
+		}
+
+		private static String literal(final String s) {
+			StringBuilder result = new StringBuilder("\"");
+			for (char c : s.toCharArray())
+				switch (c) {
+				case '"':
+					result.append("\\\"");
+					break;
+				case '\\':
+					result.append("\\\\");
+					break;
+				case '\n':
+					result.append("\\n");
+					break;
+				case '\r':
+					result.append("\\r");
+					break;
+				case '\t':
+					result.append("\\t");
+					break;
+				default:
+					if (c < 0x20 || c > 0x7e)
+						result.append(String.format("\\u%04x", (int) c));
+					else
+						result.append(c);
+				}
+			return result.append('"').toString();
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package info.unterrainer.commons.cliutils.processor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Makes the {@link CliProcessor} generate a parser for the
+ * {@link info.unterrainer.commons.cliutils.Option}-annotated fields of a class
+ * (or record) at build time.
+ * <p>
+ * The generated class is placed next to the annotated one and named like it,
+ * suffixed with 'Cli'.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateCli {
+
+	String jarName();
+
+	String description() default "";
+
+	/**
+	 * Expands '@file'-arguments into the arguments contained in that file, like
+	 * {@link info.unterrainer.commons.cliutils.CliParserBuilder#expandArgFiles()}.
+	 */
+	boolean argFiles() default false;
+}
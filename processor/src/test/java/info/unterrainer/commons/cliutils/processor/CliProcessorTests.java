@@ -0,0 +1,205 @@
+package info.unterrainer.commons.cliutils.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+
+import info.unterrainer.commons.cliutils.Arg;
+import info.unterrainer.commons.cliutils.Cli;
+import info.unterrainer.commons.cliutils.CliParser;
+import info.unterrainer.commons.cliutils.Flag;
+
+public class CliProcessorTests {
+
+	private static final String CONFIG = "package sample;\n"
+			+ "import java.util.List;\n"
+			+ "import info.unterrainer.commons.cliutils.Option;\n"
+			+ "import info.unterrainer.commons.cliutils.processor.GenerateCli;\n"
+			+ "@GenerateCli(jarName = \"tool\", description = \"a \\\"sample\\\" tool\")\n"
+			+ "public class Config {\n"
+			+ "	@Option(shortName = \"s\", description = \"the server\", required = true) public String server;\n"
+			+ "	@Option(longName = \"port-number\", shortName = \"p\") public int port = 8080;\n"
+			+ "	@Option public Double ratio;\n"
+			+ "	@Option(shortName = \"v\") public boolean verbose;\n"
+			+ "	@Option public List<Integer> ids;\n"
+			+ "}\n";
+
+	private static final String SETTINGS = "package sample;\n"
+			+ "import info.unterrainer.commons.cliutils.Option;\n"
+			+ "import info.unterrainer.commons.cliutils.processor.GenerateCli;\n"
+			+ "@GenerateCli(jarName = \"tool\", argFiles = true)\n"
+			+ "public record Settings(@Option(shortName = \"s\") String server, @Option int port, String ignored) {\n"
+			+ "}\n";
+
+	private static ClassLoader compile(final String name, final String source) throws IOException {
+		Path dir = Files.createTempDirectory("cli-processor");
+		Path file = dir.resolve(name + ".java");
+		Files.writeString(file, source);
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StringWriter errors = new StringWriter();
+		boolean ok = compiler.getTask(errors, null, null,
+				List.of("-classpath", System.getProperty("java.class.path"), "-processor",
+						CliProcessor.class.getName(), "-d", dir.toString(), "-s", dir.toString()),
+				null, compiler.getStandardFileManager(null, null, null).getJavaFileObjects(file.toFile())).call();
+		assertThat(ok).as(errors.toString()).isTrue();
+		return new URLClassLoader(new URL[] { dir.toUri().toURL() }, CliProcessorTests.class.getClassLoader());
+	}
+
+	private static Object parse(final ClassLoader loader, final String type, final String args) throws Exception {
+		Method parse = loader.loadClass("sample." + type + "Cli").getMethod("parse", String[].class);
+		try {
+			return parse.invoke(null, (Object) (args.isEmpty() ? new String[0] : args.split(" ")));
+		} catch (InvocationTargetException e) {
+			throw (Exception) e.getCause();
+		}
+	}
+
+	private static Object parse(final ClassLoader loader, final String type, final String args,
+			final List<String> arguments) throws Exception {
+		Method parse = loader.loadClass("sample." + type + "Cli").getMethod("parse", String[].class, List.class);
+		try {
+			return parse.invoke(null, args.split(" "), arguments);
+		} catch (InvocationTargetException e) {
+			throw (Exception) e.getCause();
+		}
+	}
+
+	private static Cli parseAtRuntime(final String args) {
+		return CliParser.specFor("tool", "")
+				.addArg(Arg.String("server").shortName("s").isRequired())
+				.addArg(Arg.Integer("port-number").shortName("p"))
+				.addArg(Arg.Double("ratio"))
+				.addFlag(Flag.builder("verbose").shortName("v"))
+				.addArg(Arg.Integer("ids").unlimited())
+				.compile()
+				.parse(args.split(" "), new PrintStream(new ByteArrayOutputStream()));
+	}
+
+	private static Object field(final Object o, final String name) throws Exception {
+		return o.getClass().getField(name).get(o);
+	}
+
+	@Test
+	public void generatedParserBindsClass() throws Exception {
+		ClassLoader loader = compile("Config", CONFIG);
+		Object config = parse(loader, "Config", "-s localhost --port-number=1234 --ratio 0.5 -v --ids 1,2 --ids 3");
+		assertThat(field(config, "server")).isEqualTo("localhost");
+		assertThat(field(config, "port")).isEqualTo(1234);
+		assertThat(field(config, "ratio")).isEqualTo(0.5);
+		assertThat(field(config, "verbose")).isEqualTo(true);
+		assertThat(field(config, "ids")).isEqualTo(List.of(1, 2, 3));
+	}
+
+	@Test
+	public void generatedParserKeepsDefaults() throws Exception {
+		Object config = parse(compile("Config", CONFIG), "Config", "-s localhost");
+		assertThat(field(config, "port")).isEqualTo(8080);
+		assertThat(field(config, "ratio")).isNull();
+	}
+
+	@Test
+	public void generatedParserValidates() throws Exception {
+		ClassLoader loader = compile("Config", CONFIG);
+		RuntimeException e = assertThrows(RuntimeException.class, () -> parse(loader, "Config", "-p 1"));
+		assertThat(e.getMessage()).isEqualTo("Missing required option: s");
+		assertThrows(IllegalStateException.class, () -> parse(loader, "Config", "-s x -p abc"));
+		assertThrows(RuntimeException.class, () -> parse(loader, "Config", "-s x --unknown"));
+		assertThrows(RuntimeException.class, () -> parse(loader, "Config", "-s"));
+	}
+
+	@Test
+	public void generatedParserCollectsPositionalArguments() throws Exception {
+		ClassLoader loader = compile("Config", CONFIG);
+		String args = "a -s localhost b --ids 1 2,3 -v c -- -d --ids";
+		List<String> arguments = new ArrayList<>();
+		Object config = parse(loader, "Config", args, arguments);
+		Cli cli = parseAtRuntime(args);
+		assertThat(arguments).isEqualTo(cli.getArgs()).containsExactly("a", "b", "c", "-d", "--ids");
+		assertThat(field(config, "ids")).isEqualTo(cli.getArgValues(Arg.Integer("ids")))
+				.isEqualTo(List.of(1, 2, 3));
+		assertThat(field(config, "verbose")).isEqualTo(true);
+
+		RuntimeException e = assertThrows(RuntimeException.class, () -> parse(loader, "Config", "-s x a"));
+		assertThat(e.getMessage()).isEqualTo("Unexpected argument: a");
+	}
+
+	@Test
+	public void generatedParserReportsErrorsLikeRuntime() throws Exception {
+		ClassLoader loader = compile("Config", CONFIG);
+		for (String args : List.of("-s x --unknown", "-s", "-s x --verbose=true", "-s x -p -v")) {
+			RuntimeException expected = assertThrows(RuntimeException.class, () -> parseAtRuntime(args));
+			RuntimeException e = assertThrows(RuntimeException.class, () -> parse(loader, "Config", args));
+			assertThat(e.getMessage()).isEqualTo(expected.getMessage());
+		}
+		assertThat(field(parse(loader, "Config", "-s -5 -p -1"), "port")).isEqualTo(-1);
+		assertThat(field(parse(loader, "Config", "-s \"ab\""), "server")).isEqualTo("ab");
+	}
+
+	@Test
+	public void generatedParserDoesntSupportAbbreviationsOrAttachedValues() throws Exception {
+		ClassLoader loader = compile("Config", CONFIG);
+		for (String args : List.of("-s x --verb", "-s x -p8080", "-vs x", "-s x --port 1")) {
+			parseAtRuntime(args);
+			RuntimeException e = assertThrows(RuntimeException.class, () -> parse(loader, "Config", args));
+			assertThat(e.getMessage()).startsWith("Unrecognized option: ");
+		}
+	}
+
+	@Test
+	public void generatedParserExpandsArgFiles() throws Exception {
+		ClassLoader loader = compile("Settings", SETTINGS);
+		Path file = Files.createTempFile("args", ".txt");
+		Files.writeString(file, "# the server\n-s 'local host'\n--port 1234 -- @x\n");
+		List<String> arguments = new ArrayList<>();
+		Object settings = parse(loader, "Settings", "@" + file + " @y", arguments);
+		Files.delete(file);
+		assertThat(settings.getClass().getMethod("server").invoke(settings)).isEqualTo("local host");
+		assertThat(settings.getClass().getMethod("port").invoke(settings)).isEqualTo(1234);
+		assertThat(arguments).containsExactly("@x", "@y");
+		RuntimeException e = assertThrows(RuntimeException.class, () -> parse(loader, "Settings", "@missing"));
+		assertThat(e.getMessage()).startsWith("Cannot read argument file 'missing': ");
+	}
+
+	@Test
+	public void generatedParserReturnsNullOnHelp() throws Exception {
+		assertThat(parse(compile("Config", CONFIG), "Config", "--help")).isNull();
+	}
+
+	@Test
+	public void generatedHelpMatchesRuntimeHelp() throws Exception {
+		ClassLoader loader = compile("Settings", SETTINGS);
+		StringWriter expected = new StringWriter();
+		CliParser.specFor("tool", "")
+				.addArg(Arg.String("server").shortName("s"))
+				.addArg(Arg.Integer("port"))
+				.compile()
+				.printHelp(expected, 74);
+		assertThat(loader.loadClass("sample.SettingsCli").getField("HELP").get(null))
+				.isEqualTo(expected.toString().replace(System.lineSeparator(), "\n"));
+	}
+
+	@Test
+	public void generatedParserCreatesRecord() throws Exception {
+		Object settings = parse(compile("Settings", SETTINGS), "Settings", "-s localhost");
+		assertThat(settings.getClass().getMethod("server").invoke(settings)).isEqualTo("localhost");
+		assertThat(settings.getClass().getMethod("port").invoke(settings)).isEqualTo(0);
+		assertThat(settings.getClass().getMethod("ignored").invoke(settings)).isNull();
+	}
+}